@@ -0,0 +1,24 @@
+package com.example.test.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * How benchmark threads pick accounts. UNCONTENDED gives every thread its own accounts;
+ * CONTENDED sends every thread to the same few hot accounts.
+ */
+public enum AccountDistribution {
+    UNCONTENDED,
+    CONTENDED;
+
+    static final int HOT_ACCOUNTS = 4;
+
+    /** Picks an account for the given thread slot out of {@code accounts}. */
+    String pick(List<String> accounts, int threadSlot, int accountsPerThread) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (this == CONTENDED) {
+            return accounts.get(random.nextInt(HOT_ACCOUNTS));
+        }
+        return accounts.get(threadSlot * accountsPerThread + random.nextInt(accountsPerThread));
+    }
+}
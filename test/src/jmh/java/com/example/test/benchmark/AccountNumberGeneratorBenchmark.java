@@ -0,0 +1,36 @@
+package com.example.test.benchmark;
+
+import com.example.test.service.AccountNumberGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(8)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AccountNumberGeneratorBenchmark {
+
+    WalletFixture fixture;
+    AccountNumberGenerator generator;
+
+    @Setup(Level.Trial)
+    public void start() {
+        fixture = WalletFixture.start("account-number", Map.of());
+        generator = fixture.bean(AccountNumberGenerator.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public String generate() {
+        return generator.generate();
+    }
+}
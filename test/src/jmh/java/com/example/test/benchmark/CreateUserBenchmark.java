@@ -0,0 +1,65 @@
+package com.example.test.benchmark;
+
+import com.example.test.model.User;
+import com.example.test.service.ServiceCall;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Signups per second through createUserAndAccount and through the bulk onboarding chunk path.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(4)
+@Fork(1)
+public class CreateUserBenchmark {
+
+    static final int CHUNK_SIZE = 500;
+
+    @State(Scope.Benchmark)
+    public static class Wallet {
+        WalletFixture fixture;
+        ServiceCall serviceCall;
+        final AtomicLong emails = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void start() {
+            fixture = WalletFixture.start("create-user", Map.of());
+            serviceCall = fixture.serviceCall();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            fixture.close();
+        }
+
+        User nextUser() {
+            User user = new User();
+            user.setEmail("user" + emails.incrementAndGet() + "@bench.local");
+            return user;
+        }
+    }
+
+    @Benchmark
+    public void createUserAndAccount(Wallet wallet) {
+        wallet.serviceCall.createUserAndAccount(wallet.nextUser());
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CHUNK_SIZE)
+    public void createUsersAndAccountsChunk(Wallet wallet, Blackhole blackhole) {
+        List<User> users = new ArrayList<>(CHUNK_SIZE);
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            users.add(wallet.nextUser());
+        }
+        blackhole.consume(wallet.serviceCall.createUsersAndAccounts(users));
+    }
+}
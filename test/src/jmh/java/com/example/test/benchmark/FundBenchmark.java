@@ -0,0 +1,76 @@
+package com.example.test.benchmark;
+
+import com.example.test.dto.FundAccountDto;
+import com.example.test.service.BalanceShards;
+import com.example.test.service.ServiceCall;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Funding throughput. With {@code shards > 0} every account is sharded, so credits to the
+ * contended hot accounts update different balance_shard rows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class FundBenchmark {
+
+    static final int THREADS = 8;
+    static final int ACCOUNTS_PER_THREAD = 4;
+
+    @State(Scope.Benchmark)
+    public static class Wallet {
+
+        @Param({"UNCONTENDED", "CONTENDED"})
+        public AccountDistribution distribution;
+
+        @Param({"0", "8"})
+        public int shards;
+
+        WalletFixture fixture;
+        ServiceCall serviceCall;
+        List<String> accounts;
+        final AtomicInteger slots = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void start() {
+            fixture = WalletFixture.start("fund-" + distribution + "-" + shards, Map.of(
+                    "wallet.transfer.lock-retry.max-attempts", "10"));
+            serviceCall = fixture.serviceCall();
+            accounts = fixture.createFundedAccounts("fund", THREADS * ACCOUNTS_PER_THREAD, BigDecimal.ONE);
+            if (shards > 0) {
+                BalanceShards balanceShards = fixture.bean(BalanceShards.class);
+                accounts.forEach(account -> balanceShards.enable(account, shards));
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Slot {
+        int index;
+
+        @Setup(Level.Trial)
+        public void assign(Wallet wallet) {
+            index = wallet.slots.getAndIncrement() % THREADS;
+        }
+    }
+
+    @Benchmark
+    public void fundAccount(Wallet wallet, Slot slot) {
+        String account = wallet.distribution.pick(wallet.accounts, slot.index, ACCOUNTS_PER_THREAD);
+        wallet.serviceCall.fundAccount(new FundAccountDto(account, BigDecimal.TEN));
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.test.benchmark;
+
+import com.example.test.dto.DoTransDto;
+import com.example.test.dto.FxTransferDto;
+import com.example.test.exception.InsufficientBalanceException;
+import com.example.test.service.FxRateTable;
+import com.example.test.service.ServiceCall;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mixed-currency transfer workload: random source and target currencies across USD, EUR,
+ * GBP and JPY, next to plain base-currency transfers on the same accounts for reference,
+ * and the cost of a rate lookup on its own.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class FxTransferBenchmark {
+
+    static final int THREADS = 8;
+    static final int ACCOUNTS_PER_THREAD = 4;
+    static final String[] CURRENCIES = {"USD", "EUR", "GBP", "JPY"};
+
+    @State(Scope.Benchmark)
+    public static class Wallet {
+
+        @Param({"UNCONTENDED", "CONTENDED"})
+        public AccountDistribution distribution;
+
+        WalletFixture fixture;
+        ServiceCall serviceCall;
+        FxRateTable fxRateTable;
+        List<String> accounts;
+        final AtomicInteger slots = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void start() {
+            fixture = WalletFixture.start("fx-" + distribution, Map.of(
+                    "wallet.transfer.mode", "ORDERED",
+                    "wallet.transfer.lock-retry.max-attempts", "10",
+                    "wallet.fx.base-currency", "USD",
+                    "wallet.fx.rates", "EUR:0.92,GBP:0.79,JPY:151.50"));
+            serviceCall = fixture.serviceCall();
+            fxRateTable = fixture.bean(FxRateTable.class);
+            accounts = fixture.createFundedAccounts("fx", THREADS * ACCOUNTS_PER_THREAD,
+                    BigDecimal.valueOf(1_000_000_000));
+            // Open every foreign balance up front so the workload does not start out short
+            for (String account : accounts) {
+                for (int i = 1; i < CURRENCIES.length; i++) {
+                    serviceCall.doFxTransfer(new FxTransferDto(account, account, BigDecimal.valueOf(100_000_000),
+                            "USD", CURRENCIES[i]));
+                }
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Slot {
+        int index;
+
+        @Setup(Level.Trial)
+        public void assign(Wallet wallet) {
+            index = wallet.slots.getAndIncrement() % THREADS;
+        }
+    }
+
+    private static String[] nextPair(Wallet wallet, Slot slot) {
+        String from = wallet.distribution.pick(wallet.accounts, slot.index, ACCOUNTS_PER_THREAD);
+        String to = wallet.distribution.pick(wallet.accounts, slot.index, ACCOUNTS_PER_THREAD);
+        while (to.equals(from)) {
+            to = wallet.distribution.pick(wallet.accounts, slot.index, ACCOUNTS_PER_THREAD);
+        }
+        return new String[] {from, to};
+    }
+
+    private static String randomCurrency() {
+        return CURRENCIES[ThreadLocalRandom.current().nextInt(CURRENCIES.length)];
+    }
+
+    @Benchmark
+    public void mixedCurrencyTransfer(Wallet wallet, Slot slot, Blackhole blackhole) {
+        String[] pair = nextPair(wallet, slot);
+        try {
+            blackhole.consume(wallet.serviceCall.doFxTransfer(
+                    new FxTransferDto(pair[0], pair[1], BigDecimal.ONE, randomCurrency(), randomCurrency())));
+        } catch (InsufficientBalanceException ex) {
+            blackhole.consume(ex);
+        }
+    }
+
+    @Benchmark
+    public void baseCurrencyTransfer(Wallet wallet, Slot slot, Blackhole blackhole) {
+        String[] pair = nextPair(wallet, slot);
+        try {
+            wallet.serviceCall.doIntraTransfer(new DoTransDto(pair[0], pair[1], BigDecimal.ONE));
+        } catch (InsufficientBalanceException ex) {
+            blackhole.consume(ex);
+        }
+    }
+
+    @Benchmark
+    public FxRateTable.Quote rateLookup(Wallet wallet) {
+        return wallet.fxRateTable.quote(randomCurrency(), randomCurrency());
+    }
+}
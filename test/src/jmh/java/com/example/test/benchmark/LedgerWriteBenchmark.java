@@ -0,0 +1,126 @@
+package com.example.test.benchmark;
+
+import com.example.test.dto.AccountWalletRef;
+import com.example.test.dto.DoTransDto;
+import com.example.test.model.LedgerEntry;
+import com.example.test.repo.AccountRepo;
+import com.example.test.service.LedgerWriter;
+import com.example.test.service.OutboxWriter;
+import com.example.test.service.ServiceCall;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Latency added by writing a transfer's ledger and outbox rows in its own transaction, as
+ * LedgerWriter does instead of group-committing them across requests. {@code balanceOnly}
+ * is the two wallet row updates of a transfer in one transaction, {@code balanceAndLedger}
+ * the same transaction with the ledger and outbox batches, and {@code transfer} a whole
+ * doIntraTransfer for scale. Each thread moves money between its own pair of accounts, so
+ * the figures are write cost, not lock waits.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(LedgerWriteBenchmark.THREADS)
+@Fork(1)
+public class LedgerWriteBenchmark {
+
+    static final int THREADS = 8;
+    static final String WALLET_UPDATE = "UPDATE wallet_balance SET amount = amount + ?, version = version + 1 WHERE id = ?";
+
+    @State(Scope.Benchmark)
+    public static class Wallet {
+
+        WalletFixture fixture;
+        ServiceCall serviceCall;
+        TransactionTemplate transactionTemplate;
+        JdbcTemplate jdbcTemplate;
+        LedgerWriter ledgerWriter;
+        OutboxWriter outboxWriter;
+        List<String> accounts;
+        Map<String, Long> walletIds;
+        final AtomicInteger slots = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void start() {
+            fixture = WalletFixture.start("ledger-write", Map.of());
+            serviceCall = fixture.serviceCall();
+            transactionTemplate = new TransactionTemplate(fixture.bean(PlatformTransactionManager.class));
+            jdbcTemplate = fixture.bean(JdbcTemplate.class);
+            ledgerWriter = fixture.bean(LedgerWriter.class);
+            outboxWriter = fixture.bean(OutboxWriter.class);
+            accounts = fixture.createFundedAccounts("ledger", THREADS * 2, BigDecimal.valueOf(1_000_000_000));
+            walletIds = new HashMap<>();
+            for (AccountWalletRef ref : fixture.bean(AccountRepo.class).findWalletRefs(accounts)) {
+                walletIds.put(ref.getAccountNumber(), ref.getWalletBalanceId());
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Pair {
+        int index;
+        String from;
+        String to;
+        long fromWalletId;
+        long toWalletId;
+        int sequence;
+
+        @Setup(Level.Trial)
+        public void assign(Wallet wallet) {
+            index = wallet.slots.getAndIncrement() % THREADS;
+            from = wallet.accounts.get(2 * index);
+            to = wallet.accounts.get(2 * index + 1);
+            fromWalletId = wallet.walletIds.get(from);
+            toWalletId = wallet.walletIds.get(to);
+        }
+    }
+
+    private static void updateWallets(Wallet wallet, Pair pair) {
+        // Ascending id order, as every transfer path locks them
+        boolean fromFirst = pair.fromWalletId < pair.toWalletId;
+        wallet.jdbcTemplate.batchUpdate(WALLET_UPDATE, List.of(
+                fromFirst ? new Object[]{BigDecimal.ONE.negate(), pair.fromWalletId} : new Object[]{BigDecimal.ONE, pair.toWalletId},
+                fromFirst ? new Object[]{BigDecimal.ONE, pair.toWalletId} : new Object[]{BigDecimal.ONE.negate(), pair.fromWalletId}));
+    }
+
+    @Benchmark
+    public void balanceOnly(Wallet wallet, Pair pair) {
+        wallet.transactionTemplate.executeWithoutResult(status -> updateWallets(wallet, pair));
+    }
+
+    @Benchmark
+    public void balanceAndLedger(Wallet wallet, Pair pair) {
+        wallet.transactionTemplate.executeWithoutResult(status -> {
+            updateWallets(wallet, pair);
+            String reference = "BENCH-" + pair.index + "-" + pair.sequence++;
+            LocalDateTime now = LocalDateTime.now();
+            List<LedgerEntry> entries = List.of(
+                    LedgerEntry.debit(reference, pair.from, pair.to, BigDecimal.ONE, now),
+                    LedgerEntry.credit(reference, pair.to, pair.from, BigDecimal.ONE, now));
+            wallet.ledgerWriter.append(entries);
+            wallet.outboxWriter.append(entries);
+        });
+    }
+
+    @Benchmark
+    public void transfer(Wallet wallet, Pair pair) {
+        wallet.serviceCall.doIntraTransfer(new DoTransDto(pair.from, pair.to, BigDecimal.ONE));
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.test.benchmark;
+
+import com.example.test.model.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The balance arithmetic of one in-memory engine transfer (check, debit, credit) on BigDecimal
+ * balances versus Money minor units, starting from the BigDecimal amount a request carries.
+ * Run with -prof gc and compare gc.alloc.rate.norm (bytes allocated per transfer).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MoneyBenchmark {
+
+    BigDecimal amount;
+    BigDecimal decimalFrom;
+    BigDecimal decimalTo;
+    long minorFrom;
+    long minorTo;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        amount = new BigDecimal("12.34");
+        decimalFrom = new BigDecimal("1000000.00");
+        decimalTo = new BigDecimal("1000000.00");
+        minorFrom = Money.toMinor(decimalFrom);
+        minorTo = Money.toMinor(decimalTo);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTransfer() {
+        if (decimalFrom.compareTo(amount) < 0) {
+            throw new IllegalStateException();
+        }
+        BigDecimal from = decimalFrom.subtract(amount);
+        BigDecimal to = decimalTo.add(amount);
+        // Swap so the balances move back and forth instead of draining
+        decimalFrom = to;
+        decimalTo = from;
+        return from;
+    }
+
+    @Benchmark
+    public long minorUnitsTransfer() {
+        long value = Money.toMinor(amount);
+        if (minorFrom < value) {
+            throw new IllegalStateException();
+        }
+        long from = minorFrom - value;
+        long to = Money.add(minorTo, value);
+        minorFrom = to;
+        minorTo = from;
+        return from;
+    }
+}
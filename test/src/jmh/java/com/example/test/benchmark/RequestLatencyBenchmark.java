@@ -0,0 +1,96 @@
+package com.example.test.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end latency over HTTP with platform versus virtual request threads. Most clients
+ * hammer transfers between a few hot merchant accounts, which block on row locks, while the
+ * rest read balances of unrelated accounts. The interesting figure is the p99 of
+ * {@code latency:balanceRead}: with a small platform pool the reads queue behind blocked
+ * transfers, with virtual threads only the transfers wait (on the database limiter).
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class RequestLatencyBenchmark {
+
+    static final int HOT_ACCOUNTS = 4;
+    static final int COLD_ACCOUNTS = 64;
+    static final String TOMCAT_MAX_THREADS = "50";
+
+    @State(Scope.Group)
+    public static class Api {
+
+        @Param({"false", "true"})
+        public boolean virtualThreads;
+
+        WalletFixture fixture;
+        HttpClient client;
+        String baseUrl;
+        List<String> hotAccounts;
+        List<String> coldAccounts;
+
+        @Setup(Level.Trial)
+        public void start() {
+            fixture = WalletFixture.startWeb("latency-" + virtualThreads, Map.of(
+                    "spring.threads.virtual.enabled", String.valueOf(virtualThreads),
+                    "server.tomcat.threads.max", TOMCAT_MAX_THREADS,
+                    "wallet.transfer.mode", "ORDERED",
+                    "wallet.transfer.lock-retry.max-attempts", "10",
+                    "wallet.db.acquire-timeout", "30s"));
+            hotAccounts = fixture.createFundedAccounts("hot", HOT_ACCOUNTS, BigDecimal.valueOf(1_000_000_000));
+            coldAccounts = fixture.createFundedAccounts("cold", COLD_ACCOUNTS, BigDecimal.valueOf(1_000));
+            baseUrl = fixture.apiUrl();
+            client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            fixture.close();
+        }
+    }
+
+    @Benchmark
+    @Group("latency")
+    @GroupThreads(96)
+    public int hotTransfer(Api api) throws IOException, InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = random.nextInt(HOT_ACCOUNTS);
+        int to = (from + 1 + random.nextInt(HOT_ACCOUNTS - 1)) % HOT_ACCOUNTS;
+        String body = "{\"fromAccount\":\"" + api.hotAccounts.get(from) + "\",\"toAccount\":\""
+                + api.hotAccounts.get(to) + "\",\"amount\":1}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create(api.baseUrl + "/transfer"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return api.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    @Group("latency")
+    @GroupThreads(32)
+    public int balanceRead(Api api) throws IOException, InterruptedException {
+        String account = api.coldAccounts.get(ThreadLocalRandom.current().nextInt(COLD_ACCOUNTS));
+        HttpRequest request = HttpRequest.newBuilder(URI.create(api.baseUrl + "/accounts/" + account + "/balance"))
+                .GET()
+                .build();
+        return api.client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
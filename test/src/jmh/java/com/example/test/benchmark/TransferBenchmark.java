@@ -0,0 +1,103 @@
+package com.example.test.benchmark;
+
+import com.example.test.dto.DoTransDto;
+import com.example.test.exception.InsufficientBalanceException;
+import com.example.test.service.ServiceCall;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of DoService.doIntraTransfer per locking mode, plus the batch endpoint's
+ * service call, for uncontended and contended account distributions.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(8)
+@Fork(1)
+public class TransferBenchmark {
+
+    static final int THREADS = 8;
+    static final int ACCOUNTS_PER_THREAD = 4;
+    static final int BATCH_SIZE = 100;
+
+    @State(Scope.Benchmark)
+    public static class Wallet {
+
+        @Param({"PESSIMISTIC", "ORDERED", "OPTIMISTIC"})
+        public String mode;
+
+        @Param({"false", "true"})
+        public boolean balanceEngine;
+
+        @Param({"UNCONTENDED", "CONTENDED"})
+        public AccountDistribution distribution;
+
+        WalletFixture fixture;
+        ServiceCall serviceCall;
+        List<String> accounts;
+        final AtomicInteger slots = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void start() {
+            fixture = WalletFixture.start("transfer-" + mode + "-" + balanceEngine + "-" + distribution, Map.of(
+                    "wallet.transfer.mode", mode,
+                    "wallet.balance-engine.enabled", String.valueOf(balanceEngine),
+                    "wallet.transfer.lock-retry.max-attempts", "10"));
+            serviceCall = fixture.serviceCall();
+            accounts = fixture.createFundedAccounts("transfer", THREADS * ACCOUNTS_PER_THREAD,
+                    BigDecimal.valueOf(1_000_000_000));
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            fixture.close();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Slot {
+        int index;
+
+        @Setup(Level.Trial)
+        public void assign(Wallet wallet) {
+            index = wallet.slots.getAndIncrement() % THREADS;
+        }
+    }
+
+    private static DoTransDto nextTransfer(Wallet wallet, Slot slot) {
+        String from = wallet.distribution.pick(wallet.accounts, slot.index, ACCOUNTS_PER_THREAD);
+        String to = wallet.distribution.pick(wallet.accounts, slot.index, ACCOUNTS_PER_THREAD);
+        while (to.equals(from)) {
+            to = wallet.distribution.pick(wallet.accounts, slot.index, ACCOUNTS_PER_THREAD);
+        }
+        return new DoTransDto(from, to, BigDecimal.ONE);
+    }
+
+    @Benchmark
+    public void singleTransfer(Wallet wallet, Slot slot, Blackhole blackhole) {
+        try {
+            wallet.serviceCall.doIntraTransfer(nextTransfer(wallet, slot));
+        } catch (InsufficientBalanceException ex) {
+            blackhole.consume(ex);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public void batchTransfer(Wallet wallet, Slot slot, Blackhole blackhole) {
+        List<DoTransDto> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(nextTransfer(wallet, slot));
+        }
+        blackhole.consume(wallet.serviceCall.doIntraTransferBatch(batch));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.test.benchmark;
+
+import com.example.test.TestApplication;
+import com.example.test.dto.FundAccountDto;
+import com.example.test.model.Account;
+import com.example.test.model.User;
+import com.example.test.repo.UserRepo;
+import com.example.test.service.ServiceCall;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the application against a private embedded H2 database, with SQL and per-request
+ * logging and rate limiting turned off so they do not dominate the measurements.
+ * {@link #start} skips the web layer; {@link #startWeb} serves the API on a random port for
+ * end-to-end load tests.
+ */
+final class WalletFixture implements AutoCloseable {
+
+    private final ConfigurableApplicationContext context;
+
+    private WalletFixture(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    static WalletFixture start(String databaseName, Map<String, Object> overrides) {
+        return start(databaseName, overrides, WebApplicationType.NONE);
+    }
+
+    static WalletFixture startWeb(String databaseName, Map<String, Object> overrides) {
+        Map<String, Object> properties = new HashMap<>(overrides);
+        properties.put("server.port", "0");
+        return start(databaseName, properties, WebApplicationType.SERVLET);
+    }
+
+    private static WalletFixture start(String databaseName, Map<String, Object> overrides, WebApplicationType web) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:" + databaseName + ";DB_CLOSE_DELAY=-1");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("spring.h2.console.enabled", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+        // Load tests drive a few accounts far beyond any sane per-account limit
+        properties.put("wallet.rate-limit.enabled", "false");
+        properties.putAll(overrides);
+
+        // Passed as command-line arguments so they win over application.properties
+        String[] args = properties.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TestApplication.class)
+                .web(web)
+                .run(args);
+        return new WalletFixture(context);
+    }
+
+    <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /** Base URL of the wallet API, for fixtures started with {@link #startWeb}. */
+    String apiUrl() {
+        return "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api/v1/wallet";
+    }
+
+    ServiceCall serviceCall() {
+        return bean(ServiceCall.class);
+    }
+
+    /** Creates {@code count} accounts, each funded with {@code openingBalance}. */
+    List<String> createFundedAccounts(String prefix, int count, BigDecimal openingBalance) {
+        List<User> users = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            User user = new User();
+            user.setEmail(prefix + i + "@bench.local");
+            users.add(user);
+        }
+        serviceCall().createUsersAndAccounts(users);
+
+        List<String> accountNumbers = new ArrayList<>(count);
+        for (User user : users) {
+            Account account = bean(UserRepo.class).findByEmail(user.getEmail()).orElseThrow().getAccount();
+            accountNumbers.add(account.getAccountNumber());
+            serviceCall().fundAccount(new FundAccountDto(account.getAccountNumber(), openingBalance));
+        }
+        return accountNumbers;
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.test.config;
+
+import com.example.test.exception.DatabaseBusyException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caps the number of {@code ServiceCall} operations that hold or wait for a database
+ * connection. With virtual threads enabled every request gets its own thread, so without a
+ * cap thousands of them would pile up inside the connection pool and time out there.
+ * Waiters park on a fair {@link Semaphore}, which unmounts a virtual thread instead of
+ * pinning its carrier; callers that cannot get a permit within
+ * {@code wallet.db.acquire-timeout} fail fast with {@link DatabaseBusyException}.
+ *
+ * Runs outside the transaction advice, so a call that starts a transaction takes its permit
+ * before a connection is checked out and releases it after the connection has been returned.
+ * A call made inside a transaction that is already open, such as a standing order batch
+ * settled through {@code settleTransferBatch} or one service call nested in another, takes
+ * no permit: its thread already holds a connection, and waiting for a permit while holding
+ * one would tie up the pool the limiter protects.
+ *
+ * Only active with {@code spring.threads.virtual.enabled=true}: on platform threads the
+ * Tomcat pool already bounds concurrent requests.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class DbAccessLimiter {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutNanos;
+
+    public DbAccessLimiter(MeterRegistry meterRegistry,
+                           @Value("${wallet.db.max-concurrency:10}") int maxConcurrency,
+                           @Value("${wallet.db.acquire-timeout:5s}") Duration acquireTimeout) {
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        Gauge.builder("wallet.db.limiter.waiting", permits, Semaphore::getQueueLength)
+                .description("Service calls waiting for a database permit")
+                .register(meterRegistry);
+        Gauge.builder("wallet.db.limiter.available", permits, Semaphore::availablePermits)
+                .description("Unused database permits")
+                .register(meterRegistry);
+    }
+
+    @Around("execution(* com.example.test.service.ServiceCall.*(..))")
+    public Object limit(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        if (!permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS)) {
+            throw new DatabaseBusyException();
+        }
+        try {
+            return joinPoint.proceed();
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.test.config;
+
+import com.example.test.dto.ApiResponse;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rejects requests over their rate with 429 before they reach the controller, so a client
+ * hammering one account queues in front of nothing instead of on that account's row lock.
+ *
+ * Every API request takes a token from its client's bucket, keyed by the {@code X-API-Key}
+ * header or else the remote address. Requests that debit an account ({@code /transfer},
+ * {@code /transfers/async}, {@code /transfers/fx}, {@code /holds}) also take one from the
+ * source account's bucket, and {@code /transfers/batch} one per item from each item's source.
+ * Credits are never limited per account, so hot receiving accounts are not throttled. The
+ * JSON body is buffered to find the accounts and replayed to the controller.
+ *
+ * Off unless {@code wallet.rate-limit.enabled=true}; the limits have to be sized for the
+ * deployment's traffic.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.rate-limit.enabled", havingValue = "true")
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String API_KEY_HEADER = "X-API-Key";
+    private static final String API_PREFIX = "/api/v1/wallet";
+    private static final String BATCH_PATH = API_PREFIX + "/transfers/batch";
+    private static final Map<String, String> SOURCE_FIELDS = Map.of(
+            API_PREFIX + "/transfer", "fromAccount",
+            API_PREFIX + "/transfers/async", "fromAccount",
+            API_PREFIX + "/transfers/fx", "fromAccount",
+            API_PREFIX + "/holds", "accountNumber");
+
+    private final ObjectMapper objectMapper;
+    private final TokenBuckets clientBuckets;
+    private final TokenBuckets accountBuckets;
+    private final Counter clientRejections;
+    private final Counter accountRejections;
+
+    public RateLimitFilter(ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${wallet.rate-limit.client.rate-per-second:200}") double clientRate,
+                           @Value("${wallet.rate-limit.client.burst:400}") int clientBurst,
+                           @Value("${wallet.rate-limit.account.rate-per-second:20}") double accountRate,
+                           @Value("${wallet.rate-limit.account.burst:40}") int accountBurst,
+                           @Value("${wallet.rate-limit.max-keys:100000}") long maxKeys) {
+        this.objectMapper = objectMapper;
+        this.clientBuckets = new TokenBuckets(clientRate, clientBurst, maxKeys);
+        this.accountBuckets = new TokenBuckets(accountRate, accountBurst, maxKeys);
+        this.clientRejections = rejections(meterRegistry, "client");
+        this.accountRejections = rejections(meterRegistry, "account");
+    }
+
+    private static Counter rejections(MeterRegistry meterRegistry, String scope) {
+        return Counter.builder("wallet.rate-limit.rejected")
+                .description("Requests refused with 429 by the rate limiter")
+                .tag("scope", scope)
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !path(request).startsWith(API_PREFIX);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        String client = apiKey != null && !apiKey.isBlank() ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+        long wait = clientBuckets.tryAcquire(client);
+        if (wait > 0) {
+            clientRejections.increment();
+            reject(response, wait, "Too many requests, please retry later");
+            return;
+        }
+
+        String path = path(request);
+        boolean debits = SOURCE_FIELDS.containsKey(path) || BATCH_PATH.equals(path);
+        if (debits && HttpMethod.POST.matches(request.getMethod())) {
+            byte[] body = request.getInputStream().readAllBytes();
+            request = new BufferedBodyRequest(request, body);
+            for (String account : sourcesOf(body, path)) {
+                wait = accountBuckets.tryAcquire(account);
+                if (wait > 0) {
+                    accountRejections.increment();
+                    reject(response, wait, "Too many requests for account " + account + ", please retry later");
+                    return;
+                }
+            }
+        }
+        chain.doFilter(request, response);
+    }
+
+    /** The accounts the request debits, one entry per batch item. */
+    private List<String> sourcesOf(byte[] body, String path) {
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(body);
+        } catch (IOException ex) {
+            // Let the controller report the malformed body
+            return List.of();
+        }
+        if (root == null) {
+            return List.of();
+        }
+        List<String> sources = new ArrayList<>();
+        if (BATCH_PATH.equals(path)) {
+            for (JsonNode item : root.path("transfers")) {
+                addText(sources, item.path("fromAccount"));
+            }
+        } else {
+            addText(sources, root.path(SOURCE_FIELDS.get(path)));
+        }
+        return sources;
+    }
+
+    private static void addText(List<String> values, JsonNode node) {
+        if (node.isTextual()) {
+            values.add(node.asText());
+        }
+    }
+
+    private void reject(HttpServletResponse response, long waitNanos, String message) throws IOException {
+        long retryAfterSeconds = Math.max(1, (waitNanos + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), ApiResponse.error(message));
+    }
+
+    private static String path(HttpServletRequest request) {
+        return request.getRequestURI().substring(request.getContextPath().length());
+    }
+
+    /** Replays a body the filter has already read. */
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) {
+                    return in.read(buffer, offset, length);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    // The whole body is already in memory, so it is readable at once
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException ex) {
+                        listener.onError(ex);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
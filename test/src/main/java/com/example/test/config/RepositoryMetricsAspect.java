@@ -0,0 +1,90 @@
+package com.example.test.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call on the application's Spring Data repositories as {@code wallet.repository}
+ * tagged with repository and method, so flushes and slow queries can be told apart from
+ * service-level latency. Methods ending in {@code WithLock} additionally record
+ * {@code wallet.lock.wait}, which is dominated by the time spent waiting for row locks.
+ *
+ * Timers are resolved once per repository/method pair and reused, keeping the per-call cost
+ * to a map lookup and two clock reads.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private static final String LOCKING_SUFFIX = "WithLock";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Class<?>, String> repositoryNames = new ConcurrentHashMap<>();
+    private final Map<TimerKey, Timers> timers = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Around("execution(* com.example.test.repo..*.*(..))")
+    public Object time(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = repositoryNames.computeIfAbsent(joinPoint.getThis().getClass(),
+                type -> repositoryName(joinPoint.getThis()));
+        Timers timed = timers.computeIfAbsent(new TimerKey(repository, joinPoint.getSignature().getName()),
+                this::register);
+
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            timed.call().record(elapsed, TimeUnit.NANOSECONDS);
+            if (timed.lockWait() != null) {
+                timed.lockWait().record(elapsed, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    private Timers register(TimerKey key) {
+        Timer call = Timer.builder("wallet.repository")
+                .description("Spring Data repository call latency")
+                .tag("repository", key.repository())
+                .tag("method", key.method())
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        Timer lockWait = null;
+        if (key.method().endsWith(LOCKING_SUFFIX)) {
+            lockWait = Timer.builder("wallet.lock.wait")
+                    .description("Time spent acquiring pessimistic row locks")
+                    .tag("repository", key.repository())
+                    .tag("method", key.method())
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+        return new Timers(call, lockWait);
+    }
+
+    private static String repositoryName(Object proxy) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+            if (type.getPackageName().startsWith("com.example.test.repo")) {
+                return type.getSimpleName();
+            }
+        }
+        return proxy.getClass().getSimpleName();
+    }
+
+    private record TimerKey(String repository, String method) {
+    }
+
+    private record Timers(Timer call, Timer lockWait) {
+    }
+}
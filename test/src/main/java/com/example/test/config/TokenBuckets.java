@@ -0,0 +1,60 @@
+package com.example.test.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets keyed by string, {@code ratePerSecond} tokens per second up to {@code burst}.
+ *
+ * Each bucket is a single {@link AtomicLong} holding its theoretical arrival time (GCRA): the
+ * time at which the bucket would be full again. Taking a token pushes it one emission interval
+ * later with a CAS, and a request is refused if that would put it more than a full burst ahead
+ * of now. No locks, no refill thread, and one long per key.
+ *
+ * A bucket untouched for a burst's worth of intervals is full, which is exactly what a missing
+ * bucket means, so buckets expire after that long idle; {@code maxKeys} bounds memory when
+ * more keys than that are active at once.
+ */
+class TokenBuckets {
+
+    private final long emissionIntervalNanos;
+    private final long burstNanos;
+    private final Cache<String, AtomicLong> buckets;
+
+    TokenBuckets(double ratePerSecond, int burst, long maxKeys) {
+        this.emissionIntervalNanos = Math.max(1, (long) (1_000_000_000L / ratePerSecond));
+        this.burstNanos = emissionIntervalNanos * Math.max(1, burst);
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(Duration.ofNanos(burstNanos))
+                .build();
+    }
+
+    /** Takes a token for {@code key}; returns 0 if one was available, else nanoseconds until one is. */
+    long tryAcquire(String key) {
+        return tryAcquire(key, System.nanoTime());
+    }
+
+    long tryAcquire(String key, long now) {
+        AtomicLong bucket = buckets.get(key, k -> new AtomicLong(now));
+        while (true) {
+            long arrival = bucket.get();
+            long next = Math.max(arrival, now) + emissionIntervalNanos;
+            long ahead = next - now - burstNanos;
+            if (ahead > 0) {
+                return ahead;
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    long size() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
@@ -1,17 +1,39 @@
 package com.example.test.controller;
 
 import com.example.test.dto.*;
-import com.example.test.model.Account;
 import com.example.test.model.User;
-import com.example.test.repo.AccountRepo;
-
+import com.example.test.service.AsyncTransferService;
+import com.example.test.service.BalanceCache;
+import com.example.test.service.BalanceShards;
+import com.example.test.service.BalanceSnapshotService;
+import com.example.test.service.FxRateTable;
+import com.example.test.service.IdempotencyService;
+import com.example.test.service.InProcessEventSink;
+import com.example.test.service.ReconciliationService;
 import com.example.test.service.ServiceCall;
+import com.example.test.service.StandingOrderService;
+import com.example.test.service.StatementService;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -23,54 +45,316 @@ import java.util.Map;
 public class WalletController {
 
     private final ServiceCall serviceCall;
-    private final AccountRepo accountRepo;
+    private final BalanceCache balanceCache;
+    private final BalanceShards balanceShards;
+    private final BalanceSnapshotService balanceSnapshotService;
+    private final IdempotencyService idempotencyService;
+    private final AsyncTransferService asyncTransferService;
+    private final StatementService statementService;
+    private final ReconciliationService reconciliationService;
+    private final InProcessEventSink inProcessEventSink;
+    private final FxRateTable fxRateTable;
+    private final StandingOrderService standingOrderService;
+    private final ObjectMapper objectMapper;
+
+    @Value("${wallet.bulk-onboarding.chunk-size:1000}")
+    private int bulkChunkSize;
+
+    @Value("${wallet.sharding.shard-count:8}")
+    private int defaultShardCount;
+
+    @Value("${wallet.outbox.sse-timeout:30m}")
+    private Duration sseTimeout;
 
     @PostMapping("/users")
     public ResponseEntity<ApiResponse<UserResponseDTO>> createUser(@RequestBody User user) {
         log.info("Received create user request for email: {}", user.getEmail());
 
-        serviceCall.createUserAndAccount(user);
-        UserResponseDTO responseDTO = new UserResponseDTO();
-        responseDTO.setId(user.getId());
-        responseDTO.setEmail(user.getEmail());
-
-        if (user.getAccount() != null) {
-            AccountResponseDTO accountDTO = new AccountResponseDTO();
-            accountDTO.setId(user.getAccount().getId());
-            accountDTO.setAccountNumber(user.getAccount().getAccountNumber());
-            accountDTO.setBalance(user.getAccount().getWalletBalance() != null ?
-                    user.getAccount().getWalletBalance().getAmount() : null);
-            responseDTO.setAccount(accountDTO);
-        }
+        UserResponseDTO responseDTO = serviceCall.createUserAndAccount(user);
         return ResponseEntity.status(HttpStatus.CREATED)
                 .body(ApiResponse.success("User and account created successfully", responseDTO));
     }
 
+    /** The user with their account and balance, read with a single query. */
+    @GetMapping("/users/{id}")
+    public ResponseEntity<ApiResponse<UserResponseDTO>> getUser(@PathVariable Long id) {
+        return ResponseEntity.ok(ApiResponse.success("User retrieved successfully", serviceCall.getUser(id)));
+    }
+
+    /**
+     * Accepts a JSON array (or newline-delimited objects) of users and reads it incrementally,
+     * creating each chunk in its own transaction so memory stays flat for very large imports.
+     */
+    @PostMapping(value = "/users/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<ApiResponse<BulkUserResultDTO>> createUsersBulk(HttpServletRequest request) throws IOException {
+        log.info("Received bulk user onboarding request");
+
+        BulkUserResultDTO total = new BulkUserResultDTO();
+        try (MappingIterator<User> users = objectMapper.readerFor(User.class).readValues(request.getInputStream())) {
+            List<User> chunk = new ArrayList<>(bulkChunkSize);
+            while (users.hasNextValue()) {
+                chunk.add(users.nextValue());
+                if (chunk.size() == bulkChunkSize) {
+                    total.merge(serviceCall.createUsersAndAccounts(chunk));
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                total.merge(serviceCall.createUsersAndAccounts(chunk));
+            }
+        }
+
+        log.info("Bulk onboarding finished: {} received, {} created", total.getReceived(), total.getCreated());
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success("Bulk onboarding completed", total));
+    }
+
     @PostMapping("/transfer")
-    public ResponseEntity<ApiResponse<Void>> transfer(@RequestBody DoTransDto request) {
+    public ResponseEntity<ApiResponse<BalanceResponseDTO>> transfer(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody DoTransDto request) {
         log.info("Received transfer request from {} to {} for amount: {}",
                 request.getFromAccount(), request.getToAccount(), request.getAmount());
 
-        serviceCall.doIntraTransfer(request);
+        if (idempotencyKey != null) {
+            return idempotencyService.execute("transfer", idempotencyKey, request, () -> doTransfer(request));
+        }
+        return doTransfer(request);
+    }
+
+    /** Responds with the source account's balance after the transfer. */
+    private ResponseEntity<ApiResponse<BalanceResponseDTO>> doTransfer(DoTransDto request) {
+        BalanceResponseDTO sourceBalance = serviceCall.doIntraTransfer(request);
+
+        return ResponseEntity.ok(ApiResponse.success("Transfer completed successfully", sourceBalance));
+    }
+
+    /** Transfer with currency conversion at the current rate; returns the rate and amounts applied. */
+    @PostMapping("/transfers/fx")
+    public ResponseEntity<ApiResponse<FxTransferResultDTO>> transferFx(@RequestBody FxTransferDto request) {
+        log.info("Received FX transfer request from {} to {} for amount: {} {} -> {}",
+                request.getFromAccount(), request.getToAccount(), request.getAmount(),
+                request.getSourceCurrency(), request.getTargetCurrency());
+
+        FxTransferResultDTO result = serviceCall.doFxTransfer(request);
+        return ResponseEntity.ok(ApiResponse.success("FX transfer completed successfully", result));
+    }
+
+    /** Reserves funds on an account for a later capture to {@code toAccount}. */
+    @PostMapping("/holds")
+    public ResponseEntity<ApiResponse<HoldDTO>> authorizeHold(@RequestBody HoldRequestDto request) {
+        log.info("Received hold request on {} for amount: {}", request.getAccountNumber(), request.getAmount());
+
+        HoldDTO hold = serviceCall.authorizeHold(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ApiResponse.success("Hold authorized", hold));
+    }
+
+    @PostMapping("/holds/{reference}/capture")
+    public ResponseEntity<ApiResponse<HoldDTO>> captureHold(@PathVariable String reference,
+                                                            @RequestBody(required = false) CaptureHoldDto request) {
+        HoldDTO hold = serviceCall.captureHold(reference, request != null ? request.getAmount() : null);
+        return ResponseEntity.ok(ApiResponse.success("Hold captured", hold));
+    }
 
-        return ResponseEntity.ok(ApiResponse.success("Transfer completed successfully", null));
+    @PostMapping("/holds/{reference}/release")
+    public ResponseEntity<ApiResponse<HoldDTO>> releaseHold(@PathVariable String reference) {
+        return ResponseEntity.ok(ApiResponse.success("Hold released", serviceCall.releaseHold(reference)));
     }
 
+    /** Stores a one-off or recurring transfer that the wallet runs at its scheduled times. */
+    @PostMapping("/standing-orders")
+    public ResponseEntity<ApiResponse<StandingOrderDTO>> createStandingOrder(@RequestBody StandingOrderRequestDto request) {
+        log.info("Received standing order request from {} to {} for amount: {}, {}",
+                request.getFromAccount(), request.getToAccount(), request.getAmount(), request.getFrequency());
+
+        StandingOrderDTO order = standingOrderService.create(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(ApiResponse.success("Standing order created", order));
+    }
+
+    @GetMapping("/standing-orders/{reference}")
+    public ResponseEntity<ApiResponse<StandingOrderDTO>> getStandingOrder(@PathVariable String reference) {
+        return ResponseEntity.ok(ApiResponse.success("Standing order retrieved successfully",
+                standingOrderService.get(reference)));
+    }
+
+    @DeleteMapping("/standing-orders/{reference}")
+    public ResponseEntity<ApiResponse<StandingOrderDTO>> cancelStandingOrder(@PathVariable String reference) {
+        return ResponseEntity.ok(ApiResponse.success("Standing order cancelled", standingOrderService.cancel(reference)));
+    }
+
+    @GetMapping("/fx/rates")
+    public ResponseEntity<ApiResponse<FxRatesDTO>> getFxRates() {
+        return ResponseEntity.ok(ApiResponse.success("FX rates retrieved successfully", fxRateTable.rates()));
+    }
+
+    /** Replaces the given rates (per one unit of the base currency); other rates are kept. */
+    @PutMapping("/fx/rates")
+    public ResponseEntity<ApiResponse<FxRatesDTO>> updateFxRates(@RequestBody Map<String, BigDecimal> rates) {
+        return ResponseEntity.ok(ApiResponse.success("FX rates updated successfully", fxRateTable.update(rates)));
+    }
+
+    @PostMapping("/transfers/batch")
+    public ResponseEntity<ApiResponse<BatchTransferResponseDTO>> transferBatch(@RequestBody BatchTransferDto request) {
+        List<DoTransDto> transfers = request.getTransfers() != null ? request.getTransfers() : List.of();
+        log.info("Received batch transfer request with {} items", transfers.size());
+
+        List<BatchTransferItemResult> items = serviceCall.doIntraTransferBatch(transfers);
+        int succeeded = (int) items.stream()
+                .filter(item -> item.getStatus() == BatchTransferItemResult.Status.SUCCESS)
+                .count();
+
+        BatchTransferResponseDTO responseDTO =
+                new BatchTransferResponseDTO(items.size(), succeeded, items.size() - succeeded, items);
+        return ResponseEntity.ok(ApiResponse.success("Batch transfer processed", responseDTO));
+    }
+
+    /**
+     * Queues a transfer and returns its reference immediately; poll {@code GET /transfers/{reference}}
+     * for the outcome.
+     */
+    @PostMapping("/transfers/async")
+    public ResponseEntity<ApiResponse<AsyncTransferStatusDTO>> transferAsync(@RequestBody DoTransDto request) {
+        log.info("Received async transfer request from {} to {} for amount: {}",
+                request.getFromAccount(), request.getToAccount(), request.getAmount());
+
+        AsyncTransferStatusDTO status = asyncTransferService.submit(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(ApiResponse.success("Transfer queued", status));
+    }
+
+    @GetMapping("/transfers/{reference}")
+    public ResponseEntity<ApiResponse<AsyncTransferStatusDTO>> getTransfer(@PathVariable String reference) {
+        return ResponseEntity.ok(ApiResponse.success("Transfer status retrieved successfully",
+                asyncTransferService.status(reference)));
+    }
 
     @PostMapping("/fund")
-    public ResponseEntity<ApiResponse<Map<String, Object>>> fundAccount(@RequestBody FundAccountDto request) {
+    public ResponseEntity<ApiResponse<Map<String, Object>>> fundAccount(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody FundAccountDto request) {
         log.info("Received fund request for account: {} with amount: {}",
                 request.getAccountNumber(), request.getAmount());
 
-        serviceCall.fundAccount(request);
-        Account account = accountRepo.findByAccountNumber(request.getAccountNumber())
-                .orElseThrow(() -> new RuntimeException("Account not found"));
+        if (idempotencyKey != null) {
+            return idempotencyService.execute("fund", idempotencyKey, request, () -> doFund(request));
+        }
+        return doFund(request);
+    }
+
+    private ResponseEntity<ApiResponse<Map<String, Object>>> doFund(FundAccountDto request) {
+        BalanceResponseDTO balance = serviceCall.fundAccount(request);
 
         Map<String, Object> data = new HashMap<>();
-        data.put("accountNumber", account.getAccountNumber());
-        data.put("newBalance", account.getWalletBalance().getAmount());
+        data.put("accountNumber", request.getAccountNumber());
+        data.put("newBalance", balance.getBalance());
         data.put("fundedAmount", request.getAmount());
 
         return ResponseEntity.ok(ApiResponse.success("Account funded successfully", data));
     }
-}
\ No newline at end of file
+
+    /**
+     * Current balance, or with {@code at} the balance at that time, read from the nearest
+     * daily snapshot plus the ledger entries since.
+     */
+    @GetMapping("/accounts/{accountNumber}/balance")
+    public ResponseEntity<ApiResponse<BalanceResponseDTO>> getBalance(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+        BigDecimal balance = at != null ? balanceSnapshotService.balanceAt(accountNumber, at) : balanceCache.get(accountNumber);
+        BalanceResponseDTO responseDTO = new BalanceResponseDTO(accountNumber, balance);
+        return ResponseEntity.ok(ApiResponse.success("Balance retrieved successfully", responseDTO));
+    }
+
+    /** Balance, the part of it reserved by open holds, and the rest that can be spent. */
+    @GetMapping("/accounts/{accountNumber}/available-balance")
+    public ResponseEntity<ApiResponse<AvailableBalanceDTO>> getAvailableBalance(@PathVariable String accountNumber) {
+        return ResponseEntity.ok(ApiResponse.success("Available balance retrieved successfully",
+                serviceCall.availableBalance(accountNumber)));
+    }
+
+    /** Balance in every currency the account holds, base currency first. */
+    @GetMapping("/accounts/{accountNumber}/balances")
+    public ResponseEntity<ApiResponse<AccountBalancesDTO>> getBalances(@PathVariable String accountNumber) {
+        return ResponseEntity.ok(ApiResponse.success("Balances retrieved successfully",
+                serviceCall.balancesByCurrency(accountNumber)));
+    }
+
+    /**
+     * Newest-first ledger entries of an account. Follow {@code nextCursor} with {@code before}
+     * to page back through the history.
+     */
+    @GetMapping("/accounts/{accountNumber}/transactions")
+    public ResponseEntity<ApiResponse<TransactionHistoryDTO>> getTransactions(
+            @PathVariable String accountNumber,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "50") int limit) {
+        TransactionHistoryDTO history = statementService.history(accountNumber, before, limit);
+        return ResponseEntity.ok(ApiResponse.success("Transactions retrieved successfully", history));
+    }
+
+    /**
+     * Full statement of an account as CSV or newline-delimited JSON, streamed from a database
+     * cursor straight into the response.
+     */
+    @GetMapping("/accounts/{accountNumber}/statement")
+    public ResponseEntity<StreamingResponseBody> getStatement(
+            @PathVariable String accountNumber,
+            @RequestParam(defaultValue = "CSV") StatementService.Format format) {
+        statementService.requireAccount(accountNumber);
+        StreamingResponseBody body = out -> statementService.export(accountNumber, format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.contentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"statement-" + accountNumber + "." + format.extension() + "\"")
+                .body(body);
+    }
+
+    /**
+     * Opts a hot account into balance sharding: its credits are spread over {@code count}
+     * sub-balances instead of all updating the same wallet row.
+     */
+    @PostMapping("/accounts/{accountNumber}/shards")
+    public ResponseEntity<ApiResponse<BalanceResponseDTO>> shardAccount(@PathVariable String accountNumber,
+                                                                        @RequestParam(required = false) Integer count) {
+        int shards = balanceShards.enable(accountNumber, count != null ? count : defaultShardCount);
+        BalanceResponseDTO responseDTO = new BalanceResponseDTO(accountNumber, balanceCache.get(accountNumber));
+        return ResponseEntity.ok(ApiResponse.success("Account balance split into " + shards + " shards", responseDTO));
+    }
+
+    /** Starts a ledger vs stored balance reconciliation; poll GET /reconciliation for the report. */
+    @PostMapping("/reconciliation")
+    public ResponseEntity<ApiResponse<ReconciliationReportDTO>> startReconciliation() {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success("Reconciliation started", reconciliationService.start()));
+    }
+
+    @GetMapping("/reconciliation")
+    public ResponseEntity<ApiResponse<ReconciliationReportDTO>> getReconciliation() {
+        ReconciliationReportDTO report = reconciliationService.lastReport();
+        return ResponseEntity.ok(ApiResponse.success(
+                report != null ? "Reconciliation report retrieved successfully" : "No reconciliation has run yet", report));
+    }
+
+    /**
+     * Server-sent stream of balance change events committed from now on, as relayed from the
+     * outbox. Delivery is at least once; the SSE id is the event id. A client that falls
+     * wallet.outbox.subscriber-buffer events behind is disconnected.
+     */
+    @GetMapping(path = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents() {
+        SseEmitter emitter = new SseEmitter(sseTimeout.toMillis());
+        Runnable unsubscribe = inProcessEventSink.subscribe(event -> {
+            try {
+                emitter.send(SseEmitter.event()
+                        .id(String.valueOf(event.getEventId()))
+                        .name(event.getType())
+                        .data(event, MediaType.APPLICATION_JSON));
+            } catch (IOException ex) {
+                throw new UncheckedIOException("Event stream closed", ex);
+            }
+        }, emitter::complete);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(ex -> unsubscribe.run());
+        return emitter;
+    }
+}
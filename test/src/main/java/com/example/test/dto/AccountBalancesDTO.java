@@ -0,0 +1,18 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AccountBalancesDTO {
+    private String accountNumber;
+    private String baseCurrency;
+    /** Balance per currency, base currency included. */
+    private Map<String, BigDecimal> balances;
+}
@@ -0,0 +1,9 @@
+package com.example.test.dto;
+
+/**
+ * Projection of an account number to the id of its wallet balance row.
+ */
+public interface AccountWalletRef {
+    String getAccountNumber();
+    Long getWalletBalanceId();
+}
@@ -0,0 +1,19 @@
+package com.example.test.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Unlocked read of an account's wallet balance row, including the version an optimistic
+ * update must still match.
+ */
+public interface AccountWalletSnapshot {
+    String getAccountNumber();
+    Long getWalletBalanceId();
+    BigDecimal getAmount();
+    BigDecimal getHeldAmount();
+    Long getVersion();
+
+    default BigDecimal getAvailable() {
+        return getAmount().subtract(getHeldAmount());
+    }
+}
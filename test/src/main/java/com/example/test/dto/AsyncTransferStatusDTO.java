@@ -0,0 +1,27 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AsyncTransferStatusDTO {
+
+    public enum Status { QUEUED, SUCCESS, FAILED }
+
+    private String reference;
+    private Status status;
+    private String fromAccount;
+    private String toAccount;
+    private BigDecimal amount;
+    /** Ledger reference of the settled transfer, once it succeeded. */
+    private String transactionReference;
+    private String message;
+    private LocalDateTime submittedAt;
+    private LocalDateTime completedAt;
+}
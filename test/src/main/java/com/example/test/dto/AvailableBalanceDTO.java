@@ -0,0 +1,18 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/** Ledger balance, the part of it reserved by open holds, and what is left to spend. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailableBalanceDTO {
+    private String accountNumber;
+    private BigDecimal balance;
+    private BigDecimal heldAmount;
+    private BigDecimal availableBalance;
+}
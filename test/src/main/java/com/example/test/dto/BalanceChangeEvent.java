@@ -0,0 +1,24 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/** One account's balance moving by {@code amount}; a transfer produces a debit and a credit event. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceChangeEvent {
+    /** Outbox id; increases with commit order per account. */
+    private Long eventId;
+    /** TRANSFER_DEBIT, TRANSFER_CREDIT or FUNDING_CREDIT */
+    private String type;
+    private String accountNumber;
+    private String reference;
+    private BigDecimal amount;
+    private String counterpartyAccount;
+    private LocalDateTime occurredAt;
+}
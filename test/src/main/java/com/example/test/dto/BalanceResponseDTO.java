@@ -0,0 +1,15 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BalanceResponseDTO {
+    private String accountNumber;
+    private BigDecimal balance;
+}
@@ -0,0 +1,33 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferItemResult {
+
+    public enum Status { SUCCESS, FAILED }
+
+    private int index;
+    private String fromAccount;
+    private String toAccount;
+    private BigDecimal amount;
+    private Status status;
+    private String reference;
+    private String message;
+
+    public static BatchTransferItemResult success(int index, DoTransDto transfer, String reference) {
+        return new BatchTransferItemResult(index, transfer.getFromAccount(), transfer.getToAccount(),
+                transfer.getAmount(), Status.SUCCESS, reference, null);
+    }
+
+    public static BatchTransferItemResult failed(int index, DoTransDto transfer, String message) {
+        return new BatchTransferItemResult(index, transfer.getFromAccount(), transfer.getToAccount(),
+                transfer.getAmount(), Status.FAILED, null, message);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchTransferResponseDTO {
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BatchTransferItemResult> items;
+}
@@ -0,0 +1,36 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkUserResultDTO {
+
+    /** Upper bound on the duplicate emails echoed back; the counts are always complete. */
+    public static final int MAX_REPORTED_DUPLICATES = 100;
+
+    private int received;
+    private int created;
+    private int duplicates;
+    private int invalid;
+    private List<String> duplicateEmails = new ArrayList<>();
+
+    public void merge(BulkUserResultDTO other) {
+        received += other.received;
+        created += other.created;
+        duplicates += other.duplicates;
+        invalid += other.invalid;
+        for (String email : other.duplicateEmails) {
+            if (duplicateEmails.size() >= MAX_REPORTED_DUPLICATES) {
+                break;
+            }
+            duplicateEmails.add(email);
+        }
+    }
+}
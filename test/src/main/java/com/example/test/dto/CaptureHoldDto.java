@@ -0,0 +1,15 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CaptureHoldDto {
+    /** At most the held amount; the whole hold when absent. The rest is released. */
+    private BigDecimal amount;
+}
@@ -0,0 +1,20 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Map;
+
+/** Current rate table: units of each currency per one unit of the base currency. */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FxRatesDTO {
+    private String baseCurrency;
+    private long version;
+    private Instant updatedAt;
+    private Map<String, BigDecimal> rates;
+}
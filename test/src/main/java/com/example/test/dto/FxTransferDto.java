@@ -0,0 +1,18 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+/** Moves {@code amount} of {@code sourceCurrency} out of one account and credits it converted to {@code targetCurrency}. */
+@Data@AllArgsConstructor@NoArgsConstructor@ToString
+public class FxTransferDto {
+    private String fromAccount;
+    private String toAccount;
+    private BigDecimal amount;
+    private String sourceCurrency;
+    private String targetCurrency;
+}
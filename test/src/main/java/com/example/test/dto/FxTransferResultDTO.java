@@ -0,0 +1,20 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class FxTransferResultDTO {
+    private String reference;
+    private String sourceCurrency;
+    private BigDecimal sourceAmount;
+    private String targetCurrency;
+    private BigDecimal targetAmount;
+    private BigDecimal rate;
+    private long rateVersion;
+}
@@ -0,0 +1,27 @@
+package com.example.test.dto;
+
+import com.example.test.model.Hold;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class HoldDTO {
+    private String reference;
+    private String accountNumber;
+    private String toAccount;
+    private BigDecimal amount;
+    private BigDecimal capturedAmount;
+    private Hold.Status status;
+    private LocalDateTime expiresAt;
+
+    public static HoldDTO from(Hold hold) {
+        return new HoldDTO(hold.getReference(), hold.getAccountNumber(), hold.getToAccount(), hold.getAmount(),
+                hold.getCapturedAmount(), hold.getStatus(), hold.getExpiresAt());
+    }
+}
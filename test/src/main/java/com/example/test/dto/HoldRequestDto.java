@@ -0,0 +1,18 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+
+@Data@AllArgsConstructor@NoArgsConstructor@ToString
+public class HoldRequestDto {
+    private String accountNumber;
+    /** Account the held funds go to on capture. */
+    private String toAccount;
+    private BigDecimal amount;
+    /** Optional; defaults to wallet.holds.default-ttl. */
+    private Long ttlSeconds;
+}
@@ -0,0 +1,27 @@
+package com.example.test.dto;
+
+import com.example.test.model.LedgerEntry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LedgerEntryDTO {
+    private Long id;
+    private String reference;
+    private LedgerEntry.EntryType type;
+    private LedgerEntry.Direction direction;
+    private BigDecimal amount;
+    private String counterpartyAccount;
+    private LocalDateTime createdAt;
+
+    public static LedgerEntryDTO from(LedgerEntry entry) {
+        return new LedgerEntryDTO(entry.getId(), entry.getReference(), entry.getType(), entry.getDirection(),
+                entry.getAmount(), entry.getCounterpartyAccount(), entry.getCreatedAt());
+    }
+}
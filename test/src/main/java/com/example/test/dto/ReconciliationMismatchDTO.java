@@ -0,0 +1,20 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationMismatchDTO {
+    private String accountNumber;
+    /** Wallet row plus balance shards. */
+    private BigDecimal storedBalance;
+    /** Latest balance snapshot plus the ledger entries after it. */
+    private BigDecimal ledgerBalance;
+    /** storedBalance - ledgerBalance */
+    private BigDecimal difference;
+}
@@ -0,0 +1,25 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ReconciliationReportDTO {
+
+    public enum Status { RUNNING, COMPLETED, FAILED }
+
+    private Status status;
+    private LocalDateTime startedAt;
+    private LocalDateTime completedAt;
+    private long accountsChecked;
+    private long mismatchCount;
+    /** The first wallet.reconciliation.max-reported mismatches. */
+    private List<ReconciliationMismatchDTO> mismatches;
+    private String message;
+}
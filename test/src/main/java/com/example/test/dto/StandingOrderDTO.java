@@ -0,0 +1,35 @@
+package com.example.test.dto;
+
+import com.example.test.model.StandingOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StandingOrderDTO {
+    private String reference;
+    private String fromAccount;
+    private String toAccount;
+    private BigDecimal amount;
+    private StandingOrder.Frequency frequency;
+    private StandingOrder.Status status;
+    private LocalDateTime scheduledAt;
+    private LocalDateTime nextRunAt;
+    private LocalDateTime endAt;
+    private LocalDateTime lastRunAt;
+    private String lastReference;
+    private String lastError;
+    private int failureCount;
+
+    public static StandingOrderDTO from(StandingOrder order) {
+        return new StandingOrderDTO(order.getReference(), order.getFromAccount(), order.getToAccount(),
+                order.getAmount(), order.getFrequency(), order.getStatus(), order.getScheduledAt(),
+                order.getNextRunAt(), order.getEndAt(), order.getLastRunAt(), order.getLastReference(),
+                order.getLastError(), order.getFailureCount());
+    }
+}
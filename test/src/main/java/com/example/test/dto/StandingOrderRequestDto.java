@@ -0,0 +1,22 @@
+package com.example.test.dto;
+
+import com.example.test.model.StandingOrder;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data@AllArgsConstructor@NoArgsConstructor@ToString
+public class StandingOrderRequestDto {
+    private String fromAccount;
+    private String toAccount;
+    private BigDecimal amount;
+    private StandingOrder.Frequency frequency;
+    /** First occurrence; now when absent. */
+    private LocalDateTime firstRunAt;
+    /** Optional last possible occurrence. */
+    private LocalDateTime endAt;
+}
@@ -0,0 +1,20 @@
+package com.example.test.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of an account's ledger, newest first. Pass {@code nextCursor} as {@code before}
+ * to get the next page; it is null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TransactionHistoryDTO {
+    private String accountNumber;
+    private List<LedgerEntryDTO> entries;
+    private Long nextCursor;
+}
@@ -0,0 +1,21 @@
+package com.example.test.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * A user with their account and balance, read in one query. The account columns are null
+ * for a user without an account.
+ */
+public interface UserAccountView {
+    Long getId();
+    String getEmail();
+    Long getAccountId();
+    String getAccountNumber();
+    BigDecimal getBalance();
+
+    default UserResponseDTO toResponse() {
+        AccountResponseDTO account = getAccountId() == null ? null
+                : new AccountResponseDTO(getAccountId(), getAccountNumber(), getBalance());
+        return new UserResponseDTO(getId(), getEmail(), account);
+    }
+}
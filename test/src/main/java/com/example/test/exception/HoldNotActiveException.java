@@ -0,0 +1,9 @@
+package com.example.test.exception;
+
+import com.example.test.model.Hold;
+
+public class HoldNotActiveException extends RuntimeException {
+    public HoldNotActiveException(String reference, Hold.Status status) {
+        super("Hold " + reference + " is " + status);
+    }
+}
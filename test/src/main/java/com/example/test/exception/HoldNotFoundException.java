@@ -0,0 +1,7 @@
+package com.example.test.exception;
+
+public class HoldNotFoundException extends RuntimeException {
+    public HoldNotFoundException(String reference) {
+        super("Hold not found: " + reference);
+    }
+}
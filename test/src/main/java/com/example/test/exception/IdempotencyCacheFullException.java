@@ -0,0 +1,7 @@
+package com.example.test.exception;
+
+public class IdempotencyCacheFullException extends RuntimeException {
+    public IdempotencyCacheFullException() {
+        super("Too many idempotent requests in progress, please retry later");
+    }
+}
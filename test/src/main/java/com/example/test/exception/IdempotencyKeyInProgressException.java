@@ -0,0 +1,7 @@
+package com.example.test.exception;
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+    public IdempotencyKeyInProgressException(String idempotencyKey) {
+        super("A request with Idempotency-Key " + idempotencyKey + " is already being processed");
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.test.exception;
+
+public class InvalidShardCountException extends RuntimeException {
+    public InvalidShardCountException(int maxShards) {
+        super("Shard count must be between 1 and " + maxShards);
+    }
+}
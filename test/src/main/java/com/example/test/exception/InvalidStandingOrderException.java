@@ -0,0 +1,7 @@
+package com.example.test.exception;
+
+public class InvalidStandingOrderException extends RuntimeException {
+    public InvalidStandingOrderException(String message) {
+        super(message);
+    }
+}
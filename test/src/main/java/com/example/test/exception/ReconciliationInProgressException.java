@@ -0,0 +1,7 @@
+package com.example.test.exception;
+
+public class ReconciliationInProgressException extends RuntimeException {
+    public ReconciliationInProgressException() {
+        super("A reconciliation run is already in progress");
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.test.exception;
+
+public class StandingOrderNotFoundException extends RuntimeException {
+    public StandingOrderNotFoundException(String reference) {
+        super("Standing order not found: " + reference);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.test.exception;
+
+public class TransferNotFoundException extends RuntimeException {
+    public TransferNotFoundException(String reference) {
+        super("Transfer not found: " + reference);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.test.exception;
+
+public class TransferQueueFullException extends RuntimeException {
+    public TransferQueueFullException() {
+        super("Transfer queue is full, please retry later");
+    }
+}
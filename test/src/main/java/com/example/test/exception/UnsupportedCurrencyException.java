@@ -0,0 +1,7 @@
+package com.example.test.exception;
+
+public class UnsupportedCurrencyException extends RuntimeException {
+    public UnsupportedCurrencyException(String currency) {
+        super("Unsupported currency: " + currency);
+    }
+}
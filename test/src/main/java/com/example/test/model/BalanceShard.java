@@ -0,0 +1,35 @@
+package com.example.test.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Sub-balance of a hot account. A sharded account's balance is its wallet_balance row plus
+ * the sum of its shards; credits land on one shard so they do not all queue on the wallet row.
+ */
+@Entity@Data@AllArgsConstructor@NoArgsConstructor
+@Table(name = "balance_shard", uniqueConstraints =
+        @UniqueConstraint(name = "uk_balance_shard", columnNames = {"account_number", "shard_index"}))
+public class BalanceShard implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_shard_seq")
+    @SequenceGenerator(name = "balance_shard_seq", sequenceName = "balance_shard_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    private String accountNumber;
+    @Column(nullable = false)
+    private int shardIndex;
+    @Column(nullable = false)
+    private BigDecimal amount = BigDecimal.ZERO;
+
+    public BalanceShard(String accountNumber, int shardIndex) {
+        this.accountNumber = accountNumber;
+        this.shardIndex = shardIndex;
+    }
+}
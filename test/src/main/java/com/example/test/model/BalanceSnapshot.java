@@ -0,0 +1,36 @@
+package com.example.test.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Balance of an account at {@code asOf}, derived from the ledger. A snapshot run only writes
+ * rows for accounts that moved money since the previous run, so an account's balance at any
+ * time is its latest snapshot at or before that time plus the ledger entries after it.
+ */
+@Entity@Data@AllArgsConstructor@NoArgsConstructor
+@Immutable
+@Table(name = "balance_snapshot", uniqueConstraints =
+        @UniqueConstraint(name = "uk_balance_snapshot", columnNames = {"account_number", "as_of"}),
+        indexes = @Index(name = "idx_balance_snapshot_as_of", columnList = "as_of"))
+public class BalanceSnapshot implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "balance_snapshot_seq")
+    @SequenceGenerator(name = "balance_snapshot_seq", sequenceName = "balance_snapshot_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    private String accountNumber;
+    @Column(nullable = false)
+    private LocalDateTime asOf;
+    @Column(nullable = false)
+    private BigDecimal balance;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,43 @@
+package com.example.test.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Balance of an account in a currency other than the base currency; the base-currency balance
+ * stays on the account's wallet_balance row. Only changed by FX transfers, which hold the
+ * account's wallet row lock while doing so. Amounts never have more decimals than the
+ * currency's minor unit.
+ */
+@Entity@Data@AllArgsConstructor@NoArgsConstructor
+@Table(name = "currency_balance", uniqueConstraints =
+        @UniqueConstraint(name = "uk_currency_balance", columnNames = {"account_number", "currency"}))
+public class CurrencyBalance implements Serializable {
+
+    /** Column scale wide enough for the minor unit of every ISO 4217 currency. */
+    public static final int SCALE = 4;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "currency_balance_seq")
+    @SequenceGenerator(name = "currency_balance_seq", sequenceName = "currency_balance_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false)
+    private String accountNumber;
+    /** ISO 4217 code. */
+    @Column(nullable = false, length = 3)
+    private String currency;
+    @Column(nullable = false, precision = 38, scale = SCALE)
+    private BigDecimal amount = BigDecimal.ZERO;
+    @Version
+    private Long version;
+
+    public CurrencyBalance(String accountNumber, String currency) {
+        this.accountNumber = accountNumber;
+        this.currency = currency;
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.test.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Record of a currency-converting transfer and the rate it used. Base-currency legs are also
+ * written to the ledger; legs in other currencies are only recorded here.
+ */
+@Entity@Data@AllArgsConstructor@NoArgsConstructor
+@Immutable
+@Table(name = "fx_transfer", indexes = {
+        @Index(name = "idx_fx_transfer_from", columnList = "from_account"),
+        @Index(name = "idx_fx_transfer_to", columnList = "to_account")
+})
+public class FxTransfer implements Serializable {
+
+    /** Decimal places of a stored rate; quoted rates are rounded to it before use. */
+    public static final int RATE_SCALE = 16;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fx_transfer_seq")
+    @SequenceGenerator(name = "fx_transfer_seq", sequenceName = "fx_transfer_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false, unique = true)
+    private String reference;
+    @Column(nullable = false)
+    private String fromAccount;
+    @Column(nullable = false)
+    private String toAccount;
+    @Column(nullable = false, length = 3)
+    private String sourceCurrency;
+    @Column(nullable = false, precision = 38, scale = CurrencyBalance.SCALE)
+    private BigDecimal sourceAmount;
+    @Column(nullable = false, length = 3)
+    private String targetCurrency;
+    @Column(nullable = false, precision = 38, scale = CurrencyBalance.SCALE)
+    private BigDecimal targetAmount;
+    /** Units of target currency per unit of source currency. */
+    @Column(nullable = false, precision = 38, scale = RATE_SCALE)
+    private BigDecimal rate;
+    /** Version of the rate table the rate was read from. */
+    private long rateVersion;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,46 @@
+package com.example.test.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Funds reserved on an account's wallet row for a later transfer to {@code toAccount}. While
+ * AUTHORIZED the amount counts in the wallet's held amount; capture, release and expiry each
+ * move it out of AUTHORIZED exactly once.
+ */
+@Entity@Data@AllArgsConstructor@NoArgsConstructor
+@Table(name = "wallet_hold", indexes = @Index(name = "idx_wallet_hold_status_expires", columnList = "status, expires_at"))
+public class Hold implements Serializable {
+
+    public enum Status { AUTHORIZED, CAPTURED, RELEASED, EXPIRED }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_hold_seq")
+    @SequenceGenerator(name = "wallet_hold_seq", sequenceName = "wallet_hold_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false, unique = true)
+    private String reference;
+    @Column(nullable = false)
+    private String accountNumber;
+    @Column(nullable = false)
+    private Long walletBalanceId;
+    @Column(nullable = false)
+    private String toAccount;
+    @Column(nullable = false, precision = 38, scale = Money.SCALE)
+    private BigDecimal amount;
+    @Column(precision = 38, scale = Money.SCALE)
+    private BigDecimal capturedAmount;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+    private LocalDateTime createdAt;
+    @Column(nullable = false)
+    private LocalDateTime expiresAt;
+    private LocalDateTime closedAt;
+}
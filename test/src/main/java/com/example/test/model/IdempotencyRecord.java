@@ -0,0 +1,24 @@
+package com.example.test.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Stored result of a completed idempotent request, written before its response is returned.
+ */
+@Entity@Data@AllArgsConstructor@NoArgsConstructor
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_created", columnList = "created_at"))
+public class IdempotencyRecord implements Serializable {
+    @Id
+    private String idempotencyKey;
+    private String requestFingerprint;
+    private int statusCode;
+    @Lob
+    private String responseBody;
+    private LocalDateTime createdAt;
+}
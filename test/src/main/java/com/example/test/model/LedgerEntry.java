@@ -0,0 +1,62 @@
+package com.example.test.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One side of a money movement. A transfer produces a DEBIT and a CREDIT entry sharing
+ * the same reference; a funding produces a single CREDIT. Entries are never updated.
+ */
+@Entity@Data@AllArgsConstructor@NoArgsConstructor
+@Immutable
+@Table(name = "ledger_entry", indexes = {
+        @Index(name = "idx_ledger_account", columnList = "account_number, id"),
+        @Index(name = "idx_ledger_account_time", columnList = "account_number, created_at"),
+        @Index(name = "idx_ledger_reference", columnList = "reference")
+})
+public class LedgerEntry implements Serializable {
+
+    public enum EntryType { TRANSFER, FUNDING }
+
+    public enum Direction { DEBIT, CREDIT }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    @Column(nullable = false)
+    private String reference;
+    @Column(nullable = false)
+    private String accountNumber;
+    private String counterpartyAccount;
+    @Enumerated(EnumType.STRING)
+    private EntryType type;
+    @Enumerated(EnumType.STRING)
+    private Direction direction;
+    private BigDecimal amount;
+    private LocalDateTime createdAt;
+
+    public static LedgerEntry debit(String reference, String accountNumber, String counterparty,
+                                    BigDecimal amount, LocalDateTime createdAt) {
+        return new LedgerEntry(null, reference, accountNumber, counterparty, EntryType.TRANSFER,
+                Direction.DEBIT, amount, createdAt);
+    }
+
+    public static LedgerEntry credit(String reference, String accountNumber, String counterparty,
+                                     BigDecimal amount, LocalDateTime createdAt) {
+        return new LedgerEntry(null, reference, accountNumber, counterparty, EntryType.TRANSFER,
+                Direction.CREDIT, amount, createdAt);
+    }
+
+    public static LedgerEntry funding(String reference, String accountNumber,
+                                      BigDecimal amount, LocalDateTime createdAt) {
+        return new LedgerEntry(null, reference, accountNumber, null, EntryType.FUNDING,
+                Direction.CREDIT, amount, createdAt);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.test.model;
+
+import com.example.test.exception.InvalidAmountException;
+
+import java.math.BigDecimal;
+
+/**
+ * Amounts as a long count of minor units (cents) at a fixed scale of {@value #SCALE}, for
+ * code that does balance arithmetic on the hot path without allocating a BigDecimal per
+ * operation. Convert once where an amount enters or leaves the service; the database
+ * columns keep the same scale, so the two representations are exact copies of each other.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Converts an amount to minor units. Rejects amounts with more than {@value #SCALE}
+     * significant decimal places instead of rounding them, and amounts outside the long range.
+     */
+    public static long toMinor(BigDecimal amount) {
+        try {
+            return amount.movePointRight(SCALE).longValueExact();
+        } catch (ArithmeticException ex) {
+            if (amount.stripTrailingZeros().scale() > SCALE) {
+                throw new InvalidAmountException("Amount must have at most " + SCALE + " decimal places");
+            }
+            throw new InvalidAmountException("Amount is out of range");
+        }
+    }
+
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static long add(long a, long b) {
+        long sum = a + b;
+        // Overflow iff both operands have the sign opposite to the result
+        if (((a ^ sum) & (b ^ sum)) < 0) {
+            throw new InvalidAmountException("Amount is out of range");
+        }
+        return sum;
+    }
+}
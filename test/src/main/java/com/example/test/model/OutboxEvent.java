@@ -0,0 +1,34 @@
+package com.example.test.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * A balance change waiting to be relayed to downstream consumers. Rows are inserted in the
+ * transaction that records the change, on the in-memory engine path as well, so an event
+ * exists if and only if that transaction committed. Rows are deleted once every sink has
+ * accepted them.
+ */
+@Entity@Data@AllArgsConstructor@NoArgsConstructor
+@Immutable
+@Table(name = "outbox_event")
+public class OutboxEvent implements Serializable {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    /** Account whose balance changed. */
+    @Column(nullable = false)
+    private String aggregateId;
+    @Column(nullable = false)
+    private String eventType;
+    @Column(nullable = false, length = 4000)
+    private String payload;
+    private LocalDateTime createdAt;
+}
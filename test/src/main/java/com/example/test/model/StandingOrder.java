@@ -0,0 +1,68 @@
+package com.example.test.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A transfer the wallet runs on its own at {@code scheduledAt}, once or on a recurring
+ * schedule. {@code nextRunAt} is {@code scheduledAt} plus a fixed per-order offset, so orders
+ * scheduled for the same instant are spread out instead of all coming due at once.
+ */
+@Entity@Data@AllArgsConstructor@NoArgsConstructor
+@Table(name = "standing_order", indexes = @Index(name = "idx_standing_order_due", columnList = "status, next_run_at"))
+public class StandingOrder implements Serializable {
+
+    public enum Status { ACTIVE, COMPLETED, CANCELLED }
+
+    public enum Frequency {
+        ONCE, DAILY, WEEKLY, MONTHLY;
+
+        /** Occurrence after {@code at}, or null for a one-off order. */
+        public LocalDateTime next(LocalDateTime at) {
+            return switch (this) {
+                case ONCE -> null;
+                case DAILY -> at.plusDays(1);
+                case WEEKLY -> at.plusWeeks(1);
+                case MONTHLY -> at.plusMonths(1);
+            };
+        }
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "standing_order_seq")
+    @SequenceGenerator(name = "standing_order_seq", sequenceName = "standing_order_seq", allocationSize = 50)
+    private Long id;
+    @Column(nullable = false, unique = true)
+    private String reference;
+    @Column(nullable = false)
+    private String fromAccount;
+    @Column(nullable = false)
+    private String toAccount;
+    @Column(nullable = false, precision = 38, scale = Money.SCALE)
+    private BigDecimal amount;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Frequency frequency;
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status;
+    /** Nominal time of the next occurrence. */
+    private LocalDateTime scheduledAt;
+    /** When the next occurrence actually runs. */
+    private LocalDateTime nextRunAt;
+    /** No occurrence is scheduled after this time; open-ended when null. */
+    private LocalDateTime endAt;
+    private LocalDateTime lastRunAt;
+    /** Transaction reference of the last successful run. */
+    private String lastReference;
+    /** Failure message of the last run; null when it succeeded. */
+    private String lastError;
+    private int failureCount;
+    private LocalDateTime createdAt;
+}
@@ -12,9 +12,14 @@ import java.math.BigDecimal;
 public class WalletBalance implements Serializable {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "wallet_balance_seq")
+    @SequenceGenerator(name = "wallet_balance_seq", sequenceName = "wallet_balance_seq", allocationSize = 50)
     private Long id;
+    @Column(precision = 38, scale = Money.SCALE)
     private BigDecimal amount =BigDecimal.ZERO;
-    @OneToOne(mappedBy = "walletBalance")
-    private Account account;
+    /** Reserved by open holds; the available balance is {@code amount - heldAmount}. */
+    @Column(nullable = false, precision = 38, scale = Money.SCALE)
+    private BigDecimal heldAmount = BigDecimal.ZERO;
+    @Version
+    private Long version;
 }
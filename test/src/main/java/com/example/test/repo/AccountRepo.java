@@ -1,21 +1,43 @@
 package com.example.test.repo;
 
+import com.example.test.dto.AccountWalletRef;
+import com.example.test.dto.AccountWalletSnapshot;
 import com.example.test.model.Account;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface AccountRepo extends JpaRepository<Account, Long> {
 
+    @EntityGraph(attributePaths = "walletBalance")
     Optional<Account> findByAccountNumber(String accountNumber);
 
+    /** Locks the account row and loads its wallet in the same statement. */
     @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
+    @Query("SELECT a FROM Account a JOIN FETCH a.walletBalance WHERE a.accountNumber = :accountNumber")
     Optional<Account> findByAccountNumberWithLock(@Param("accountNumber") String accountNumber);
 
+    @Query("SELECT a.accountNumber AS accountNumber, a.walletBalance.id AS walletBalanceId " +
+            "FROM Account a WHERE a.accountNumber IN :accountNumbers")
+    List<AccountWalletRef> findWalletRefs(@Param("accountNumbers") Collection<String> accountNumbers);
+
+    /** Wallet row plus the account's balance shards, if it has any. */
+    @Query("SELECT w.amount + COALESCE((SELECT SUM(s.amount) FROM BalanceShard s " +
+            "WHERE s.accountNumber = a.accountNumber), 0) " +
+            "FROM Account a JOIN a.walletBalance w WHERE a.accountNumber = :accountNumber")
+    Optional<BigDecimal> findBalanceByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("SELECT a.accountNumber AS accountNumber, w.id AS walletBalanceId, w.amount AS amount, " +
+            "w.heldAmount AS heldAmount, w.version AS version FROM Account a JOIN a.walletBalance w WHERE a.accountNumber IN :accountNumbers")
+    List<AccountWalletSnapshot> findWalletSnapshots(@Param("accountNumbers") Collection<String> accountNumbers);
+
     boolean existsByAccountNumber(String accountNumber);
 }
@@ -0,0 +1,31 @@
+package com.example.test.repo;
+
+import com.example.test.model.BalanceShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+public interface BalanceShardRepo extends JpaRepository<BalanceShard, Long> {
+
+    List<BalanceShard> findByAccountNumberOrderByShardIndex(String accountNumber);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BalanceShard s WHERE s.accountNumber = :accountNumber ORDER BY s.shardIndex")
+    List<BalanceShard> findByAccountNumberWithLock(@Param("accountNumber") String accountNumber);
+
+    @Modifying
+    @Query("UPDATE BalanceShard s SET s.amount = s.amount + :amount " +
+            "WHERE s.accountNumber = :accountNumber AND s.shardIndex = :shardIndex")
+    int addToShard(@Param("accountNumber") String accountNumber,
+                   @Param("shardIndex") int shardIndex,
+                   @Param("amount") BigDecimal amount);
+
+    @Query("SELECT s.accountNumber, COUNT(s) FROM BalanceShard s GROUP BY s.accountNumber")
+    List<Object[]> countShardsByAccount();
+}
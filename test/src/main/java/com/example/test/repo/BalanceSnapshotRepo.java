@@ -0,0 +1,45 @@
+package com.example.test.repo;
+
+import com.example.test.model.BalanceSnapshot;
+import com.example.test.model.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface BalanceSnapshotRepo extends JpaRepository<BalanceSnapshot, Long> {
+
+    Optional<BalanceSnapshot> findFirstByAccountNumberAndAsOfLessThanEqualOrderByAsOfDesc(String accountNumber,
+                                                                                        LocalDateTime asOf);
+
+    /** Latest snapshot at or before {@code asOf} of each of the given accounts that has one. */
+    @Query("SELECT s FROM BalanceSnapshot s WHERE s.accountNumber IN :accountNumbers AND s.asOf = " +
+            "(SELECT MAX(p.asOf) FROM BalanceSnapshot p WHERE p.accountNumber = s.accountNumber AND p.asOf <= :asOf)")
+    List<BalanceSnapshot> findLatestAtOrBefore(@Param("accountNumbers") Collection<String> accountNumbers,
+                                               @Param("asOf") LocalDateTime asOf);
+
+    @Query("SELECT MAX(s.asOf) FROM BalanceSnapshot s WHERE s.asOf < :asOf")
+    Optional<LocalDateTime> findPreviousRun(@Param("asOf") LocalDateTime asOf);
+
+    boolean existsByAsOf(LocalDateTime asOf);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM BalanceSnapshot s WHERE s.asOf = :asOf")
+    int deleteByAsOf(@Param("asOf") LocalDateTime asOf);
+
+    /** Net ledger movement of an account in {@code (after, upTo]}; seeks on idx_ledger_account_time. */
+    @Query("SELECT COALESCE(SUM(CASE WHEN l.direction = :credit THEN l.amount ELSE -l.amount END), 0) " +
+            "FROM LedgerEntry l WHERE l.accountNumber = :accountNumber AND l.createdAt > :after AND l.createdAt <= :upTo")
+    BigDecimal sumLedgerBetween(@Param("accountNumber") String accountNumber,
+                                @Param("after") LocalDateTime after,
+                                @Param("upTo") LocalDateTime upTo,
+                                @Param("credit") LedgerEntry.Direction credit);
+}
@@ -0,0 +1,14 @@
+package com.example.test.repo;
+
+import com.example.test.model.CurrencyBalance;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CurrencyBalanceRepo extends JpaRepository<CurrencyBalance, Long> {
+
+    Optional<CurrencyBalance> findByAccountNumberAndCurrency(String accountNumber, String currency);
+
+    List<CurrencyBalance> findByAccountNumberOrderByCurrency(String accountNumber);
+}
@@ -0,0 +1,7 @@
+package com.example.test.repo;
+
+import com.example.test.model.FxTransfer;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface FxTransferRepo extends JpaRepository<FxTransfer, Long> {
+}
@@ -0,0 +1,32 @@
+package com.example.test.repo;
+
+import com.example.test.model.Hold;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+public interface HoldRepo extends JpaRepository<Hold, Long> {
+
+    Optional<Hold> findByReference(String reference);
+
+    /**
+     * Moves an AUTHORIZED hold to {@code status}; returns 0 if it was already captured,
+     * released or expired, so only one of those transitions can win.
+     */
+    @Modifying
+    @Query("UPDATE Hold h SET h.status = :status, h.capturedAmount = :capturedAmount, h.closedAt = :closedAt " +
+            "WHERE h.id = :id AND h.status = com.example.test.model.Hold.Status.AUTHORIZED")
+    int close(@Param("id") Long id,
+              @Param("status") Hold.Status status,
+              @Param("capturedAmount") BigDecimal capturedAmount,
+              @Param("closedAt") LocalDateTime closedAt);
+
+    @Query("SELECT h.id, h.expiresAt FROM Hold h WHERE h.status = com.example.test.model.Hold.Status.AUTHORIZED")
+    List<Object[]> findAuthorizedExpiries();
+}
@@ -0,0 +1,19 @@
+package com.example.test.repo;
+
+import com.example.test.model.LedgerEntry;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface LedgerEntryRepo extends JpaRepository<LedgerEntry, Long> {
+
+    List<LedgerEntry> findByReferenceOrderByIdAsc(String reference);
+
+    List<LedgerEntry> findByAccountNumberOrderByIdAsc(String accountNumber);
+
+    // Keyset pages: both seek on idx_ledger_account (account_number, id), so any page costs the same
+    List<LedgerEntry> findByAccountNumberOrderByIdDesc(String accountNumber, Limit limit);
+
+    List<LedgerEntry> findByAccountNumberAndIdLessThanOrderByIdDesc(String accountNumber, Long before, Limit limit);
+}
@@ -0,0 +1,27 @@
+package com.example.test.repo;
+
+import com.example.test.model.StandingOrder;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface StandingOrderRepo extends JpaRepository<StandingOrder, Long> {
+
+    Optional<StandingOrder> findByReference(String reference);
+
+    @Query("SELECT o FROM StandingOrder o WHERE o.status = com.example.test.model.StandingOrder.Status.ACTIVE " +
+            "AND o.nextRunAt <= :now ORDER BY o.nextRunAt")
+    List<StandingOrder> findDue(@Param("now") LocalDateTime now, Pageable page);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o FROM StandingOrder o WHERE o.id IN :ids ORDER BY o.id")
+    List<StandingOrder> findAllByIdInWithLock(@Param("ids") Collection<Long> ids);
+}
@@ -1,12 +1,26 @@
 package com.example.test.repo;
 
+import com.example.test.dto.UserAccountView;
 import com.example.test.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepo extends JpaRepository<User,Long> {
     Optional<User> findByEmail(String email);
 
+    @Query("SELECT u.email FROM User u WHERE u.email IN :emails")
+    List<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    /** The user, their account and its balance including any balance shards, in one select. */
+    @Query("SELECT u.id AS id, u.email AS email, a.id AS accountId, a.accountNumber AS accountNumber, " +
+            "w.amount + COALESCE((SELECT SUM(s.amount) FROM BalanceShard s " +
+            "WHERE s.accountNumber = a.accountNumber), 0) AS balance " +
+            "FROM User u LEFT JOIN u.account a LEFT JOIN a.walletBalance w WHERE u.id = :id")
+    Optional<UserAccountView> findAccountView(@Param("id") Long id);
 
 }
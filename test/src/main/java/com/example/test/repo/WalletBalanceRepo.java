@@ -1,7 +1,44 @@
 package com.example.test.repo;
 
 import com.example.test.model.WalletBalance;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 
 public interface WalletBalanceRepo extends JpaRepository<WalletBalance,Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT w FROM WalletBalance w WHERE w.id IN :ids ORDER BY w.id")
+    List<WalletBalance> findAllByIdInWithLock(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Adds {@code delta} to the balance if the row is still at {@code version} and the result
+     * does not go below the held amount. Returns 0 when either condition fails.
+     */
+    @Modifying
+    @Query("UPDATE WalletBalance w SET w.amount = w.amount + :delta, w.version = w.version + 1 " +
+            "WHERE w.id = :id AND w.version = :version AND w.amount - w.heldAmount + :delta >= 0")
+    int applyDeltaIfVersion(@Param("id") Long id, @Param("version") Long version, @Param("delta") BigDecimal delta);
+
+    @Modifying
+    @Query("UPDATE WalletBalance w SET w.amount = w.amount + :delta, w.version = w.version + 1 WHERE w.id = :id")
+    int applyDelta(@Param("id") Long id, @Param("delta") BigDecimal delta);
+
+    /** Holds {@code amount} if that much is still available; returns 0 otherwise. */
+    @Modifying
+    @Query("UPDATE WalletBalance w SET w.heldAmount = w.heldAmount + :amount, w.version = w.version + 1 " +
+            "WHERE w.id = :id AND w.amount - w.heldAmount >= :amount")
+    int holdIfAvailable(@Param("id") Long id, @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("UPDATE WalletBalance w SET w.heldAmount = w.heldAmount - :amount, w.version = w.version + 1 " +
+            "WHERE w.id = :id")
+    int releaseHeld(@Param("id") Long id, @Param("amount") BigDecimal amount);
 }
@@ -1,43 +1,128 @@
 package com.example.test.service;
 
-import com.example.test.repo.AccountRepo;
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
 
-import java.time.LocalDate;
-import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * Allocates unique 10-digit account numbers without querying existing accounts.
+ * Format: 9-digit serial + Luhn check digit.
+ *
+ * Serials are reserved from the account_number_seq database sequence in blocks of
+ * {@code wallet.account-number.block-size}; each sequence value is the start of a block
+ * owned by this instance, so numbers never collide across nodes or restarts. Within a
+ * block numbers are handed out with a single atomic increment; only the thread that
+ * exhausts a block goes to the database for the next one.
+ */
 @Component
-@RequiredArgsConstructor
+@Slf4j
 public class AccountNumberGenerator {
 
-    private final AccountRepo accountRepo;
-    private static final Random RANDOM = new Random();
+    static final String SEQUENCE_NAME = "account_number_seq";
+    private static final long FIRST_SERIAL = 100_000_000L;
+    private static final long MAX_SERIAL = 999_999_999L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String nextBlockSql;
+    private final int blockSize;
+    private final ReentrantLock refillLock = new ReentrantLock();
+    private volatile Block block = new Block(0, 0);
+
+    @Autowired
+    public AccountNumberGenerator(JdbcTemplate jdbcTemplate,
+                                  EntityManagerFactory entityManagerFactory,
+                                  @Value("${wallet.account-number.block-size:1000}") int blockSize) {
+        this(jdbcTemplate, entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().getSequenceSupport()
+                .getSequenceNextValString(SEQUENCE_NAME), blockSize);
+    }
+
+    AccountNumberGenerator(JdbcTemplate jdbcTemplate, String nextBlockSql, int blockSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.nextBlockSql = nextBlockSql;
+        this.blockSize = blockSize;
+    }
+
+    @PostConstruct
+    void createSequence() {
+        // The increment is fixed when the sequence is created; changing block-size later
+        // requires altering the sequence to match
+        jdbcTemplate.execute("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE_NAME
+                + " START WITH " + FIRST_SERIAL + " INCREMENT BY " + blockSize);
+    }
 
-    /**
-     * Generates a unique 10-digit account number.
-     * Format: YYMMDD + 4 random digits
-     */
     public String generate() {
-        String accountNumber;
-        int attempts = 0;
-        do {
-            accountNumber = buildAccountNumber();
-            attempts++;
-            if (attempts > 10) {
-                throw new RuntimeException("Unable to generate unique account number after 10 attempts");
+        while (true) {
+            Block current = block;
+            long serial = current.next.getAndIncrement();
+            if (serial < current.end) {
+                return format(serial);
             }
-        } while (accountRepo.existsByAccountNumber(accountNumber));
-        return accountNumber;
+            refill(current);
+        }
     }
 
-    private String buildAccountNumber() {
-        LocalDate today = LocalDate.now();
-        String datePart = String.format("%02d%02d%02d",
-                today.getYear() % 100,
-                today.getMonthValue(),
-                today.getDayOfMonth());
-        int randomPart = RANDOM.nextInt(9000) + 1000;
-        return datePart + randomPart;
+    private void refill(Block exhausted) {
+        refillLock.lock();
+        try {
+            if (block != exhausted) {
+                return;
+            }
+            Long start = jdbcTemplate.queryForObject(nextBlockSql, Long.class);
+            if (start == null || start + blockSize - 1 > MAX_SERIAL) {
+                throw new IllegalStateException("Account number space exhausted");
+            }
+            block = new Block(start, start + blockSize);
+            log.debug("Reserved account number block [{}, {})", start, start + blockSize);
+        } finally {
+            refillLock.unlock();
+        }
+    }
+
+    static String format(long serial) {
+        String body = Long.toString(serial);
+        return body + luhnCheckDigit(body);
+    }
+
+    public static boolean isValid(String accountNumber) {
+        if (accountNumber == null || accountNumber.length() != 10 || !accountNumber.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        return luhnCheckDigit(accountNumber.substring(0, 9)) == accountNumber.charAt(9) - '0';
+    }
+
+    private static int luhnCheckDigit(String digits) {
+        int sum = 0;
+        boolean doubleIt = true;
+        for (int i = digits.length() - 1; i >= 0; i--) {
+            int digit = digits.charAt(i) - '0';
+            if (doubleIt) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubleIt = !doubleIt;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,194 @@
+package com.example.test.service;
+
+import com.example.test.dto.AsyncTransferStatusDTO;
+import com.example.test.dto.BatchTransferItemResult;
+import com.example.test.dto.DoTransDto;
+import com.example.test.exception.InvalidAmountException;
+import com.example.test.exception.SameAccountTransferException;
+import com.example.test.exception.TransferNotFoundException;
+import com.example.test.exception.TransferQueueFullException;
+import com.example.test.model.Money;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts transfers without waiting for them to settle. Each transfer is queued on the
+ * partition of its source account, so transfers from one account are applied in submission
+ * order; every partition has one worker that drains up to {@code wallet.async-transfer.max-batch}
+ * queued transfers and settles them with a single {@link ServiceCall#doIntraTransferBatch} call.
+ *
+ * Results are kept in a bounded, expiring status map for polling. Queued transfers live only
+ * in memory: transfers still queued when the process dies are lost, although shutdown drains
+ * the queues first.
+ */
+@Component
+@Slf4j
+public class AsyncTransferService {
+
+    private final ServiceCall serviceCall;
+    private final int maxBatch;
+    private final List<BlockingQueue<QueuedTransfer>> partitions;
+    private final List<Thread> workers = new ArrayList<>();
+    private final Cache<String, AsyncTransferStatusDTO> statuses;
+    private volatile boolean running;
+
+    public AsyncTransferService(ServiceCall serviceCall,
+                                MeterRegistry meterRegistry,
+                                @Value("${wallet.async-transfer.workers:4}") int workerCount,
+                                @Value("${wallet.async-transfer.queue-capacity:10000}") int queueCapacity,
+                                @Value("${wallet.async-transfer.max-batch:100}") int maxBatch,
+                                @Value("${wallet.async-transfer.status-max-entries:100000}") long statusMaxEntries,
+                                @Value("${wallet.async-transfer.status-ttl:1h}") Duration statusTtl) {
+        this.serviceCall = serviceCall;
+        this.maxBatch = maxBatch;
+        this.partitions = new ArrayList<>(workerCount);
+        for (int i = 0; i < workerCount; i++) {
+            partitions.add(new LinkedBlockingQueue<>(Math.max(1, queueCapacity / workerCount)));
+        }
+        this.statuses = Caffeine.newBuilder()
+                .maximumSize(statusMaxEntries)
+                .expireAfterWrite(statusTtl)
+                .build();
+        Gauge.builder("wallet.async-transfer.queued", this, AsyncTransferService::queued)
+                .description("Transfers accepted but not yet settled")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        running = true;
+        for (int i = 0; i < partitions.size(); i++) {
+            BlockingQueue<QueuedTransfer> partition = partitions.get(i);
+            Thread worker = new Thread(() -> runWorker(partition), "async-transfer-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    public AsyncTransferStatusDTO submit(DoTransDto transfer) {
+        if (transfer.getAmount() == null || transfer.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
+            throw new InvalidAmountException("Transfer amount must be greater than zero");
+        }
+        // Fail over-precise amounts now rather than once they reach a worker
+        Money.toMinor(transfer.getAmount());
+        if (transfer.getFromAccount() != null && transfer.getFromAccount().equals(transfer.getToAccount())) {
+            throw new SameAccountTransferException();
+        }
+
+        String reference = "ATX" + UUID.randomUUID().toString().replace("-", "").toUpperCase();
+        AsyncTransferStatusDTO queued = new AsyncTransferStatusDTO(reference, AsyncTransferStatusDTO.Status.QUEUED,
+                transfer.getFromAccount(), transfer.getToAccount(), transfer.getAmount(), null, null,
+                LocalDateTime.now(), null);
+        statuses.put(reference, queued);
+        if (!partitionOf(transfer.getFromAccount()).offer(new QueuedTransfer(reference, transfer, queued.getSubmittedAt()))) {
+            statuses.invalidate(reference);
+            throw new TransferQueueFullException();
+        }
+        return queued;
+    }
+
+    public AsyncTransferStatusDTO status(String reference) {
+        AsyncTransferStatusDTO status = statuses.getIfPresent(reference);
+        if (status == null) {
+            throw new TransferNotFoundException(reference);
+        }
+        return status;
+    }
+
+    /** Number of transfers accepted but not yet settled. */
+    public int queued() {
+        int queued = 0;
+        for (BlockingQueue<QueuedTransfer> partition : partitions) {
+            queued += partition.size();
+        }
+        return queued;
+    }
+
+    private BlockingQueue<QueuedTransfer> partitionOf(String accountNumber) {
+        int hash = accountNumber == null ? 0 : accountNumber.hashCode();
+        return partitions.get(Math.floorMod(hash ^ (hash >>> 16), partitions.size()));
+    }
+
+    private void runWorker(BlockingQueue<QueuedTransfer> partition) {
+        List<QueuedTransfer> batch = new ArrayList<>(maxBatch);
+        while (running || !partition.isEmpty()) {
+            try {
+                QueuedTransfer first = partition.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                partition.drainTo(batch, maxBatch - 1);
+                settle(batch);
+                batch.clear();
+            } catch (InterruptedException ex) {
+                running = false;
+            }
+        }
+    }
+
+    private void settle(List<QueuedTransfer> batch) {
+        List<DoTransDto> transfers = new ArrayList<>(batch.size());
+        for (QueuedTransfer queued : batch) {
+            transfers.add(queued.transfer());
+        }
+
+        List<BatchTransferItemResult> results;
+        try {
+            results = serviceCall.doIntraTransferBatch(transfers);
+        } catch (RuntimeException ex) {
+            log.error("Failed to settle {} queued transfers", batch.size(), ex);
+            for (QueuedTransfer queued : batch) {
+                complete(queued, AsyncTransferStatusDTO.Status.FAILED, null,
+                        "Transfer could not be processed: " + ex.getMessage());
+            }
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            BatchTransferItemResult result = results.get(i);
+            if (result.getStatus() == BatchTransferItemResult.Status.SUCCESS) {
+                complete(batch.get(i), AsyncTransferStatusDTO.Status.SUCCESS, result.getReference(), null);
+            } else {
+                complete(batch.get(i), AsyncTransferStatusDTO.Status.FAILED, null, result.getMessage());
+            }
+        }
+    }
+
+    private void complete(QueuedTransfer queued, AsyncTransferStatusDTO.Status status,
+                          String transactionReference, String message) {
+        DoTransDto transfer = queued.transfer();
+        statuses.put(queued.reference(), new AsyncTransferStatusDTO(queued.reference(), status,
+                transfer.getFromAccount(), transfer.getToAccount(), transfer.getAmount(),
+                transactionReference, message, queued.submittedAt(), LocalDateTime.now()));
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    private record QueuedTransfer(String reference, DoTransDto transfer, LocalDateTime submittedAt) {
+    }
+}
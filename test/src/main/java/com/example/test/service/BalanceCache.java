@@ -0,0 +1,68 @@
+package com.example.test.service;
+
+import com.example.test.exception.AccountNotFoundException;
+import com.example.test.model.Money;
+import com.example.test.repo.AccountRepo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Read-through cache of account balances keyed by account number.
+ *
+ * Mutations invalidate entries rather than writing the new value, because after-commit
+ * callbacks of two transfers on the same account can run out of commit order and a late put
+ * would leave a stale balance behind. Hit and miss counts are
+ * published as the {@code cache.gets} metric with {@code cache=balances}.
+ */
+@Component
+public class BalanceCache {
+
+    private final AccountRepo accountRepo;
+    private final ObjectProvider<InMemoryBalanceEngine> balanceEngine;
+    private final Cache<String, BigDecimal> cache;
+
+    public BalanceCache(AccountRepo accountRepo,
+                        ObjectProvider<InMemoryBalanceEngine> balanceEngine,
+                        MeterRegistry meterRegistry,
+                        @Value("${wallet.balance-cache.max-size:100000}") long maxSize,
+                        @Value("${wallet.balance-cache.ttl:5m}") Duration ttl) {
+        this.accountRepo = accountRepo;
+        this.balanceEngine = balanceEngine;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "balances");
+    }
+
+    public BigDecimal get(String accountNumber) {
+        return cache.get(accountNumber, this::load);
+    }
+
+    public void invalidate(String accountNumber) {
+        cache.invalidate(accountNumber);
+    }
+
+    public void invalidateAll(Collection<String> accountNumbers) {
+        cache.invalidateAll(accountNumbers);
+    }
+
+    private BigDecimal load(String accountNumber) {
+        InMemoryBalanceEngine engine = balanceEngine.getIfAvailable();
+        if (engine != null) {
+            return Money.toDecimal(engine.balanceOf(accountNumber));
+        }
+        return accountRepo.findBalanceByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+    }
+}
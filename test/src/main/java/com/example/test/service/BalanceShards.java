@@ -0,0 +1,184 @@
+package com.example.test.service;
+
+import com.example.test.exception.AccountNotFoundException;
+import com.example.test.exception.InvalidShardCountException;
+import com.example.test.model.BalanceShard;
+import com.example.test.repo.AccountRepo;
+import com.example.test.repo.BalanceShardRepo;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Spreads the balance of opted-in hot accounts over several balance_shard rows. Credits add
+ * to one randomly chosen shard with a single UPDATE, so concurrent credits to the same account
+ * mostly touch different rows instead of queueing on its wallet_balance row. Debits are taken
+ * from the wallet row first and then from the shards in turn; reads add everything up.
+ *
+ * Lock order is wallet row before shard rows, shards in ascending index order. The
+ * rebalancer periodically evens out each account's shards so a debit rarely has to visit
+ * more than one of them.
+ *
+ * Not used while the in-memory balance engine is enabled; collapse shards before turning it on.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class BalanceShards {
+
+    private final BalanceShardRepo balanceShardRepo;
+    private final AccountRepo accountRepo;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${wallet.sharding.max-shards:64}")
+    private int maxShards;
+
+    private final Map<String, Integer> shardCounts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> debitCursors = new ConcurrentHashMap<>();
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void loadShardedAccounts() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Object[] row : balanceShardRepo.countShardsByAccount()) {
+            shardCounts.put((String) row[0], ((Number) row[1]).intValue());
+        }
+        if (!shardCounts.isEmpty()) {
+            log.info("Loaded {} sharded accounts", shardCounts.size());
+        }
+    }
+
+    /**
+     * Splits an account's future credits over {@code shardCount} shards. Growing the shard
+     * count of an already sharded account adds empty shards; it never removes any.
+     */
+    @Transactional
+    public int enable(String accountNumber, int shardCount) {
+        if (shardCount < 1 || shardCount > maxShards) {
+            throw new InvalidShardCountException(maxShards);
+        }
+        if (!accountRepo.existsByAccountNumber(accountNumber)) {
+            throw new AccountNotFoundException(accountNumber);
+        }
+        List<BalanceShard> existing = balanceShardRepo.findByAccountNumberWithLock(accountNumber);
+        List<BalanceShard> added = new ArrayList<>();
+        for (int index = existing.size(); index < shardCount; index++) {
+            added.add(new BalanceShard(accountNumber, index));
+        }
+        balanceShardRepo.saveAll(added);
+
+        int count = Math.max(existing.size(), shardCount);
+        // Only route credits to the new shards once their rows are visible to other transactions
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                shardCounts.put(accountNumber, count);
+            }
+        });
+        log.info("Account {} sharded into {} sub-balances", accountNumber, count);
+        return count;
+    }
+
+    public boolean isSharded(String accountNumber) {
+        return shardCounts.containsKey(accountNumber);
+    }
+
+    /**
+     * Adds {@code amount} to a random shard of the account, in the caller's transaction.
+     * Returns false if the account is not sharded and the caller must credit the wallet row.
+     */
+    public boolean credit(String accountNumber, BigDecimal amount) {
+        Integer count = shardCounts.get(accountNumber);
+        if (count == null) {
+            return false;
+        }
+        int updated = balanceShardRepo.addToShard(accountNumber, ThreadLocalRandom.current().nextInt(count), amount);
+        if (updated != 1) {
+            throw new IllegalStateException("Missing balance shard for account " + accountNumber);
+        }
+        return true;
+    }
+
+    /**
+     * Removes up to {@code needed} from the account's shards, starting at the shard after the
+     * one the previous debit started from, and returns how much was taken. Pass {@code null}
+     * to empty every shard. The caller must already hold the wallet row lock and must add the
+     * result to the wallet row in the same transaction.
+     */
+    public BigDecimal take(String accountNumber, BigDecimal needed) {
+        List<BalanceShard> shards = balanceShardRepo.findByAccountNumberWithLock(accountNumber);
+        if (shards.isEmpty()) {
+            return BigDecimal.ZERO;
+        }
+        int start = Math.floorMod(debitCursors.computeIfAbsent(accountNumber, key -> new AtomicInteger())
+                .getAndIncrement(), shards.size());
+
+        BigDecimal taken = BigDecimal.ZERO;
+        for (int i = 0; i < shards.size(); i++) {
+            if (needed != null && taken.compareTo(needed) >= 0) {
+                break;
+            }
+            BalanceShard shard = shards.get((start + i) % shards.size());
+            BigDecimal portion = needed == null ? shard.getAmount() : shard.getAmount().min(needed.subtract(taken));
+            if (portion.signum() > 0) {
+                shard.setAmount(shard.getAmount().subtract(portion));
+                taken = taken.add(portion);
+            }
+        }
+        balanceShardRepo.saveAll(shards);
+        return taken;
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.sharding.rebalance-interval-ms:5000}")
+    public void rebalance() {
+        for (String accountNumber : shardCounts.keySet()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> rebalance(accountNumber));
+            } catch (DataAccessException ex) {
+                // Contended right now; the next run will get it
+                log.debug("Skipped rebalancing shards of {}: {}", accountNumber, ex.getMessage());
+            }
+        }
+    }
+
+    void rebalance(String accountNumber) {
+        List<BalanceShard> shards = balanceShardRepo.findByAccountNumberWithLock(accountNumber);
+        if (shards.size() < 2) {
+            return;
+        }
+        BigDecimal total = shards.stream().map(BalanceShard::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        BigDecimal count = BigDecimal.valueOf(shards.size());
+        BigDecimal share = total.divide(count, total.scale(), RoundingMode.DOWN);
+        BigDecimal remainder = total.subtract(share.multiply(count));
+
+        boolean changed = false;
+        for (BalanceShard shard : shards) {
+            BigDecimal target = shard.getShardIndex() == 0 ? share.add(remainder) : share;
+            if (shard.getAmount().compareTo(target) != 0) {
+                shard.setAmount(target);
+                changed = true;
+            }
+        }
+        if (changed) {
+            balanceShardRepo.saveAll(shards);
+        }
+    }
+}
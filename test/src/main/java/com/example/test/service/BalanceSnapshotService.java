@@ -0,0 +1,218 @@
+package com.example.test.service;
+
+import com.example.test.exception.AccountNotFoundException;
+import com.example.test.model.BalanceSnapshot;
+import com.example.test.model.LedgerEntry;
+import com.example.test.repo.AccountRepo;
+import com.example.test.repo.BalanceSnapshotRepo;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Daily balance checkpoints, so a balance-as-of query reads one snapshot and the ledger
+ * entries after it instead of the account's whole history.
+ *
+ * A run at {@code asOf} splits the account table into id ranges of {@code chunk-size} and
+ * snapshots them in parallel, each chunk in its own transaction with one grouped ledger scan.
+ * Only accounts that moved money since the previous run get a row: their previous snapshot
+ * plus the net movement in between. An account's latest snapshot at or before any time is
+ * therefore always correct for that time.
+ *
+ * A ledger entry's created_at is stamped when its transaction runs, not when it commits, so a
+ * transaction still open at {@code asOf} can later add entries dated before it. {@code asOf}
+ * must therefore lie at least {@code lag}, longer than any transaction runs, in the past.
+ * Runs are meant to be scheduled on a single node; a run that finds rows for its
+ * {@code asOf} already present does nothing.
+ */
+@Component
+@Slf4j
+public class BalanceSnapshotService {
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int LOOKUP_BATCH = 1000;
+
+    private static final String CHUNK_DELTAS_SQL = "SELECT l.account_number, " +
+            "SUM(CASE WHEN l.direction = 'CREDIT' THEN l.amount ELSE -l.amount END) " +
+            "FROM account a JOIN ledger_entry l ON l.account_number = a.account_number " +
+            "WHERE a.id >= ? AND a.id < ? AND l.created_at > ? AND l.created_at <= ? " +
+            "GROUP BY l.account_number";
+
+    private final BalanceSnapshotRepo balanceSnapshotRepo;
+    private final AccountRepo accountRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Timer runTimer;
+    private final int chunkSize;
+    private final int parallelism;
+    private final Duration lag;
+
+    private ExecutorService executor;
+    private ExecutorService runner;
+
+    public BalanceSnapshotService(BalanceSnapshotRepo balanceSnapshotRepo,
+                                  AccountRepo accountRepo,
+                                  JdbcTemplate jdbcTemplate,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${wallet.snapshot.chunk-size:10000}") int chunkSize,
+                                  @Value("${wallet.snapshot.parallelism:4}") int parallelism,
+                                  @Value("${wallet.snapshot.lag:5m}") Duration lag) {
+        this.balanceSnapshotRepo = balanceSnapshotRepo;
+        this.accountRepo = accountRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.runTimer = Timer.builder("wallet.snapshot.run").register(meterRegistry);
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+        this.lag = lag;
+    }
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "balance-snapshot-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        runner = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "balance-snapshot-runner");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        runner.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    /**
+     * Hands the run to the snapshot runner thread and returns, so waiting for the chunks never
+     * holds up the shared scheduler thread (outbox relay, hold expiry, engine eviction).
+     */
+    @Scheduled(cron = "${wallet.snapshot.cron:0 5 0 * * *}")
+    public void snapshotStartOfDay() {
+        LocalDateTime asOf = LocalDate.now().atStartOfDay();
+        runner.submit(() -> {
+            try {
+                snapshot(asOf);
+            } catch (RuntimeException ex) {
+                log.error("Balance snapshot at {} failed", asOf, ex);
+            }
+        });
+    }
+
+    /** Takes the snapshot at {@code asOf} and returns the number of rows written. */
+    public int snapshot(LocalDateTime asOf) {
+        if (asOf.isAfter(LocalDateTime.now().minus(lag))) {
+            throw new IllegalArgumentException("Snapshot time " + asOf + " is less than " + lag + " ago");
+        }
+        if (balanceSnapshotRepo.existsByAsOf(asOf)) {
+            log.info("Balance snapshot at {} already taken", asOf);
+            return 0;
+        }
+        LocalDateTime previous = balanceSnapshotRepo.findPreviousRun(asOf).orElse(null);
+        Map<String, Object> idRange = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM account");
+        if (idRange.get("lo") == null) {
+            return 0;
+        }
+        long lo = ((Number) idRange.get("lo")).longValue();
+        long hi = ((Number) idRange.get("hi")).longValue();
+
+        long started = System.nanoTime();
+        List<Future<Integer>> chunks = new ArrayList<>();
+        for (long from = lo; from <= hi; from += chunkSize) {
+            long chunkFrom = from;
+            long chunkTo = Math.min(from + chunkSize, hi + 1);
+            chunks.add(executor.submit(() ->
+                    transactionTemplate.execute(status -> snapshotChunk(chunkFrom, chunkTo, previous, asOf))));
+        }
+
+        int written = 0;
+        try {
+            for (Future<Integer> chunk : chunks) {
+                written += chunk.get();
+            }
+        } catch (InterruptedException | ExecutionException ex) {
+            chunks.forEach(chunk -> chunk.cancel(true));
+            // A partial run would hide the missing accounts' movements from the next one
+            balanceSnapshotRepo.deleteByAsOf(asOf);
+            if (ex instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("Balance snapshot at " + asOf + " failed", ex.getCause());
+        }
+        long elapsed = System.nanoTime() - started;
+        runTimer.record(Duration.ofNanos(elapsed));
+        log.info("Balance snapshot at {}: {} accounts in {} chunks, {} ms", asOf, written, chunks.size(),
+                elapsed / 1_000_000);
+        return written;
+    }
+
+    int snapshotChunk(long fromId, long toId, LocalDateTime previous, LocalDateTime asOf) {
+        Map<String, BigDecimal> deltas = new HashMap<>();
+        jdbcTemplate.query(CHUNK_DELTAS_SQL, rs -> {
+            deltas.put(rs.getString(1), rs.getBigDecimal(2));
+        }, fromId, toId, Timestamp.valueOf(previous != null ? previous : BEGINNING), Timestamp.valueOf(asOf));
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, BigDecimal> balances = new HashMap<>(deltas);
+        if (previous != null) {
+            List<String> accountNumbers = new ArrayList<>(deltas.keySet());
+            for (int i = 0; i < accountNumbers.size(); i += LOOKUP_BATCH) {
+                List<String> batch = accountNumbers.subList(i, Math.min(i + LOOKUP_BATCH, accountNumbers.size()));
+                for (BalanceSnapshot last : balanceSnapshotRepo.findLatestAtOrBefore(batch, previous)) {
+                    balances.merge(last.getAccountNumber(), last.getBalance(), BigDecimal::add);
+                }
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BalanceSnapshot> snapshots = new ArrayList<>(balances.size());
+        balances.forEach((accountNumber, balance) ->
+                snapshots.add(new BalanceSnapshot(null, accountNumber, asOf, balance, now)));
+        balanceSnapshotRepo.saveAll(snapshots);
+        return snapshots.size();
+    }
+
+    /** Balance of the account at {@code at}: its latest snapshot at or before then plus the ledger after it. */
+    public BigDecimal balanceAt(String accountNumber, LocalDateTime at) {
+        if (!accountRepo.existsByAccountNumber(accountNumber)) {
+            throw new AccountNotFoundException(accountNumber);
+        }
+        BalanceSnapshot snapshot = balanceSnapshotRepo
+                .findFirstByAccountNumberAndAsOfLessThanEqualOrderByAsOfDesc(accountNumber, at)
+                .orElse(null);
+        BigDecimal base = snapshot != null ? snapshot.getBalance() : BigDecimal.ZERO;
+        LocalDateTime after = snapshot != null ? snapshot.getAsOf() : BEGINNING;
+        return base.add(balanceSnapshotRepo.sumLedgerBetween(accountNumber, after, at, LedgerEntry.Direction.CREDIT));
+    }
+}
@@ -1,124 +1,1027 @@
-package com.example.test.service;
-
-import com.example.test.dto.DoTransDto;
-import com.example.test.dto.FundAccountDto;
-import com.example.test.exception.*;
-import com.example.test.model.Account;
-import com.example.test.model.User;
-import com.example.test.model.WalletBalance;
-import com.example.test.repo.AccountRepo;
-import com.example.test.repo.UserRepo;
-import com.example.test.repo.WalletBalanceRepo;
-import jakarta.transaction.Transactional;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.stereotype.Service;
-
-import java.math.BigDecimal;
-import java.util.UUID;
-
-@Service
-@Slf4j
-public class DoService implements ServiceCall {
-
-    @Autowired
-    private UserRepo userRepo;
-
-    @Autowired
-    private AccountRepo accountRepo;
-
-    @Autowired
-    private WalletBalanceRepo walletBalanceRepo;
-
-    @Override
-    @Transactional
-    public void createUserAndAccount(User user) {
-        log.info("Creating user and account for email: {}", user.getEmail());
-
-        if (userRepo.findByEmail(user.getEmail()).isPresent()) {
-            throw new DuplicateEmailException(user.getEmail());
-        }
-
-        User savedUser = userRepo.save(user);
-
-        WalletBalance walletBalance = new WalletBalance();
-        walletBalance.setAmount(BigDecimal.ZERO);
-        WalletBalance savedWalletBalance = walletBalanceRepo.save(walletBalance);
-
-        Account account = new Account();
-        account.setAccountNumber(generateAccountNumber());
-        account.setUser(savedUser);
-        account.setWalletBalance(savedWalletBalance);
-
-        Account savedAccount = accountRepo.save(account);
-        savedUser.setAccount(savedAccount);
-        userRepo.save(savedUser);
-
-        log.info("User and account created successfully. Account number: {}", savedAccount.getAccountNumber());
-    }
-
-    @Override
-    @Transactional
-    public void doIntraTransfer(DoTransDto request) {
-        log.info("Processing intra transfer from account: {} to account: {}, amount: {}",
-                request.getFromAccount(), request.getToAccount(), request.getAmount());
-
-        // Validate amount
-        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new InvalidAmountException("Transfer amount must be greater than zero");
-        }
-
-        Account fromAccount = accountRepo.findByAccountNumberWithLock(request.getFromAccount())
-                .orElseThrow(() -> new AccountNotFoundException(request.getFromAccount()));
-
-        Account toAccount = accountRepo.findByAccountNumber(request.getToAccount())
-                .orElseThrow(() -> new AccountNotFoundException(request.getToAccount()));
-
-        if (fromAccount.getAccountNumber().equals(toAccount.getAccountNumber())) {
-            throw new SameAccountTransferException();
-        }
-
-        WalletBalance fromWallet = fromAccount.getWalletBalance();
-        WalletBalance toWallet = toAccount.getWalletBalance();
-
-        if (fromWallet.getAmount().compareTo(request.getAmount()) < 0) {
-            throw new InsufficientBalanceException(fromWallet.getAmount(), request.getAmount());
-        }
-
-        fromWallet.setAmount(fromWallet.getAmount().subtract(request.getAmount()));
-        toWallet.setAmount(toWallet.getAmount().add(request.getAmount()));
-
-        walletBalanceRepo.save(fromWallet);
-        walletBalanceRepo.save(toWallet);
-
-        log.info("Transfer completed successfully. Transaction reference: {}", generateTransactionReference());
-    }
-
-    @Override
-    @Transactional
-    public void fundAccount(FundAccountDto request) {
-        log.info("Funding account: {} with amount: {}", request.getAccountNumber(), request.getAmount());
-
-        if (request.getAmount() == null || request.getAmount().compareTo(BigDecimal.ZERO) <= 0) {
-            throw new InvalidAmountException("Funding amount must be greater than zero");
-        }
-
-        Account account = accountRepo.findByAccountNumberWithLock(request.getAccountNumber())
-                .orElseThrow(() -> new AccountNotFoundException(request.getAccountNumber()));
-
-        WalletBalance walletBalance = account.getWalletBalance();
-        walletBalance.setAmount(walletBalance.getAmount().add(request.getAmount()));
-        walletBalanceRepo.save(walletBalance);
-
-        log.info("Account {} funded successfully. New balance: {}",
-                request.getAccountNumber(), walletBalance.getAmount());
-    }
-
-    private String generateAccountNumber() {
-        return "ACCT" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
-    }
-
-    private String generateTransactionReference() {
-        return "TXN" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6).toUpperCase();
-    }
+package com.example.test.service;
+
+import com.example.test.dto.AccountResponseDTO;
+import com.example.test.dto.AccountWalletRef;
+import com.example.test.dto.AccountBalancesDTO;
+import com.example.test.dto.AccountWalletSnapshot;
+import com.example.test.dto.AvailableBalanceDTO;
+import com.example.test.dto.BalanceResponseDTO;
+import com.example.test.dto.BatchTransferItemResult;
+import com.example.test.dto.BulkUserResultDTO;
+import com.example.test.dto.DoTransDto;
+import com.example.test.dto.FundAccountDto;
+import com.example.test.dto.FxTransferDto;
+import com.example.test.dto.FxTransferResultDTO;
+import com.example.test.dto.HoldDTO;
+import com.example.test.dto.HoldRequestDto;
+import com.example.test.dto.UserAccountView;
+import com.example.test.dto.UserResponseDTO;
+import com.example.test.exception.*;
+import com.example.test.model.Account;
+import com.example.test.model.CurrencyBalance;
+import com.example.test.model.FxTransfer;
+import com.example.test.model.Hold;
+import com.example.test.model.LedgerEntry;
+import com.example.test.model.Money;
+import com.example.test.model.User;
+import com.example.test.model.WalletBalance;
+import com.example.test.repo.AccountRepo;
+import com.example.test.repo.CurrencyBalanceRepo;
+import com.example.test.repo.FxTransferRepo;
+import com.example.test.repo.HoldRepo;
+import com.example.test.repo.UserRepo;
+import com.example.test.repo.WalletBalanceRepo;
+import io.micrometer.core.annotation.Timed;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@Slf4j
+public class DoService implements ServiceCall {
+
+    private static final int BATCH_QUERY_CHUNK = 1000;
+    private static final int OPTIMISTIC_DEBIT_ATTEMPTS = 5;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private WalletBalanceRepo walletBalanceRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LedgerWriter ledgerWriter;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private AccountNumberGenerator accountNumberGenerator;
+
+    @Autowired
+    private BalanceShards balanceShards;
+
+    @Autowired
+    private EmailIndex emailIndex;
+
+    @Autowired
+    private OutboxWriter outboxWriter;
+
+    @Autowired
+    private FxRateTable fxRateTable;
+
+    @Autowired
+    private CurrencyBalanceRepo currencyBalanceRepo;
+
+    @Autowired
+    private FxTransferRepo fxTransferRepo;
+
+    @Autowired
+    private HoldRepo holdRepo;
+
+    @Autowired
+    private HoldExpiryWheel holdExpiryWheel;
+
+    @Value("${wallet.holds.default-ttl:7d}")
+    private Duration defaultHoldTtl;
+
+    @Value("${wallet.holds.max-ttl:30d}")
+    private Duration maxHoldTtl;
+
+    @Autowired(required = false)
+    private InMemoryBalanceEngine balanceEngine;
+
+    @Value("${wallet.transfer.mode:PESSIMISTIC}")
+    private TransferMode transferMode = TransferMode.PESSIMISTIC;
+
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "createUserAndAccount"}, histogram = true)
+    public UserResponseDTO createUserAndAccount(User user) {
+        log.info("Creating user and account for email: {}", user.getEmail());
+
+        // The unique index decides; the email index only spares new emails the lookup
+        if (emailIndex.mightContain(user.getEmail()) && userRepo.findByEmail(user.getEmail()).isPresent()) {
+            throw new DuplicateEmailException(user.getEmail());
+        }
+
+        User savedUser = userRepo.save(user);
+        try {
+            userRepo.flush();
+        } catch (DataIntegrityViolationException ex) {
+            if (isDuplicateEmail(ex)) {
+                throw new DuplicateEmailException(user.getEmail());
+            }
+            throw ex;
+        }
+        emailIndex.add(user.getEmail());
+
+        WalletBalance walletBalance = new WalletBalance();
+        walletBalance.setAmount(BigDecimal.ZERO);
+        WalletBalance savedWalletBalance = walletBalanceRepo.save(walletBalance);
+
+        Account account = new Account();
+        account.setAccountNumber(accountNumberGenerator.generate());
+        account.setUser(savedUser);
+        account.setWalletBalance(savedWalletBalance);
+
+        Account savedAccount = accountRepo.save(account);
+        savedUser.setAccount(savedAccount);
+        userRepo.save(savedUser);
+
+        log.info("User and account created successfully. Account number: {}", savedAccount.getAccountNumber());
+        return new UserResponseDTO(savedUser.getId(), savedUser.getEmail(), new AccountResponseDTO(
+                savedAccount.getId(), savedAccount.getAccountNumber(), savedWalletBalance.getAmount()));
+    }
+
+    /** The user with their account and balance, from a single projection query. */
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "getUser"}, histogram = true)
+    public UserResponseDTO getUser(Long id) {
+        UserResponseDTO user = userRepo.findAccountView(id)
+                .map(UserAccountView::toResponse)
+                .orElseThrow(() -> new UserNotFoundException(id));
+        if (balanceEngine != null && user.getAccount() != null) {
+            // What the engine lets the account spend, as the balance endpoint reports
+            user.getAccount().setBalance(balanceCache.get(user.getAccount().getAccountNumber()));
+        }
+        return user;
+    }
+
+    /**
+     * Creates users with their wallet and account in one transaction. Existing emails are
+     * found with a single IN query, and the new rows are written as JDBC batches: ids come
+     * from pooled sequences, so Hibernate can group the inserts per table at flush time.
+     * Callers are expected to pass bounded chunks.
+     */
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "createUsersAndAccounts"}, histogram = true)
+    public BulkUserResultDTO createUsersAndAccounts(List<User> users) {
+        BulkUserResultDTO result = new BulkUserResultDTO();
+        result.setReceived(users.size());
+
+        Set<String> emails = new LinkedHashSet<>();
+        for (User user : users) {
+            String email = user.getEmail();
+            if (email == null || email.isBlank()) {
+                result.setInvalid(result.getInvalid() + 1);
+            } else if (!emails.add(email)) {
+                result.setDuplicates(result.getDuplicates() + 1);
+                result.getDuplicateEmails().add(email);
+            }
+        }
+
+        if (!emails.isEmpty()) {
+            for (String existing : userRepo.findExistingEmails(emails)) {
+                emails.remove(existing);
+                result.setDuplicates(result.getDuplicates() + 1);
+                result.getDuplicateEmails().add(existing);
+            }
+        }
+
+        List<User> newUsers = new ArrayList<>(emails.size());
+        for (String email : emails) {
+            User user = new User();
+            user.setEmail(email);
+
+            WalletBalance walletBalance = new WalletBalance();
+            walletBalance.setAmount(BigDecimal.ZERO);
+
+            Account account = new Account();
+            account.setAccountNumber(accountNumberGenerator.generate());
+            account.setUser(user);
+            account.setWalletBalance(walletBalance);
+            user.setAccount(account);
+            newUsers.add(user);
+        }
+        // User cascades to Account, which cascades to WalletBalance
+        userRepo.saveAll(newUsers);
+        try {
+            userRepo.flush();
+        } catch (DataIntegrityViolationException ex) {
+            // Another node registered one of these emails since the lookup
+            String duplicate = isDuplicateEmail(ex) ? mentionedEmail(ex, emails) : null;
+            if (duplicate != null) {
+                throw new DuplicateEmailException(duplicate);
+            }
+            throw ex;
+        }
+        emails.forEach(emailIndex::add);
+
+        result.setCreated(newUsers.size());
+        if (result.getDuplicateEmails().size() > BulkUserResultDTO.MAX_REPORTED_DUPLICATES) {
+            result.setDuplicateEmails(new ArrayList<>(
+                    result.getDuplicateEmails().subList(0, BulkUserResultDTO.MAX_REPORTED_DUPLICATES)));
+        }
+        log.info("Bulk onboarding chunk: {} received, {} created, {} duplicates, {} invalid",
+                result.getReceived(), result.getCreated(), result.getDuplicates(), result.getInvalid());
+        return result;
+    }
+
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "doIntraTransfer"}, histogram = true)
+    @RetryOnLockConflict
+    public BalanceResponseDTO doIntraTransfer(DoTransDto request) {
+        log.info("Processing intra transfer from account: {} to account: {}, amount: {}",
+                request.getFromAccount(), request.getToAccount(), request.getAmount());
+
+        // Validate amount
+        long amount = validateAmount(request.getAmount(), "Transfer amount must be greater than zero");
+
+        BigDecimal sourceBalance;
+        if (balanceEngine != null) {
+            sourceBalance = Money.toDecimal(
+                    balanceEngine.debit(request.getFromAccount(), request.getToAccount(), amount));
+            settleInMemory(List.of(request));
+        } else if (transferMode == TransferMode.ORDERED) {
+            sourceBalance = transferWithOrderedLocks(request);
+        } else if (transferMode == TransferMode.OPTIMISTIC) {
+            sourceBalance = transferOptimistic(request);
+        } else {
+            sourceBalance = transferWithSourceLock(request);
+        }
+
+        String reference = generateTransactionReference();
+        recordLedger(transferEntries(reference, request, LocalDateTime.now()));
+        evictBalances(List.of(request.getFromAccount(), request.getToAccount()));
+        log.info("Transfer completed successfully. Transaction reference: {}", reference);
+        return new BalanceResponseDTO(request.getFromAccount(), sourceBalance);
+    }
+
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "fundAccount"}, histogram = true)
+    @RetryOnLockConflict
+    public BalanceResponseDTO fundAccount(FundAccountDto request) {
+        log.info("Funding account: {} with amount: {}", request.getAccountNumber(), request.getAmount());
+
+        long amount = validateAmount(request.getAmount(), "Funding amount must be greater than zero");
+
+        String reference = generateTransactionReference();
+        List<LedgerEntry> entries = List.of(LedgerEntry.funding(reference, request.getAccountNumber(),
+                request.getAmount(), LocalDateTime.now()));
+
+        if (balanceEngine != null) {
+            // Checks the account and the range now; the in-memory credit waits for the commit
+            balanceEngine.reserveCredit(request.getAccountNumber(), amount);
+            BalanceResponseDTO result = new BalanceResponseDTO(request.getAccountNumber(), null);
+            writeThenSettle(() -> balanceEngine.writeDeltas(Map.of(request.getAccountNumber(), amount)),
+                    committed -> {
+                        long balance = balanceEngine.settleCredit(request.getAccountNumber(), amount, committed);
+                        if (committed) {
+                            result.setBalance(Money.toDecimal(balance));
+                        }
+                    });
+            recordLedger(entries);
+            evictBalances(List.of(request.getAccountNumber()));
+            log.info("Account {} funded successfully in the balance engine", request.getAccountNumber());
+            return result;
+        }
+
+        if (balanceShards.credit(request.getAccountNumber(), request.getAmount())) {
+            recordLedger(entries);
+            evictBalances(List.of(request.getAccountNumber()));
+            log.info("Account {} funded successfully through a balance shard", request.getAccountNumber());
+            return new BalanceResponseDTO(request.getAccountNumber(), shardedBalance(request.getAccountNumber()));
+        }
+
+        Account account = accountRepo.findByAccountNumberWithLock(request.getAccountNumber())
+                .orElseThrow(() -> new AccountNotFoundException(request.getAccountNumber()));
+
+        WalletBalance walletBalance = account.getWalletBalance();
+        walletBalance.setAmount(walletBalance.getAmount().add(request.getAmount()));
+        walletBalanceRepo.save(walletBalance);
+        recordLedger(entries);
+        evictBalances(List.of(request.getAccountNumber()));
+
+        log.info("Account {} funded successfully. New balance: {}",
+                request.getAccountNumber(), walletBalance.getAmount());
+        return new BalanceResponseDTO(request.getAccountNumber(), walletBalance.getAmount());
+    }
+
+    /**
+     * Debits {@code amount} in the source currency and credits it, converted at the current
+     * table rate, in the target currency. Both accounts' wallet rows are locked in ascending
+     * id order, which also serialises changes to their other currency balances. Base-currency
+     * legs go to the wallet row and the ledger; other currencies use currency_balance rows.
+     * The amount may have at most as many decimals as the source currency's minor unit.
+     */
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "doFxTransfer"}, histogram = true)
+    @RetryOnLockConflict
+    public FxTransferResultDTO doFxTransfer(FxTransferDto request) {
+        log.info("Processing FX transfer from account: {} to account: {}, amount: {} {} -> {}",
+                request.getFromAccount(), request.getToAccount(), request.getAmount(),
+                request.getSourceCurrency(), request.getTargetCurrency());
+
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            throw new InvalidAmountException("Transfer amount must be greater than zero");
+        }
+        FxRateTable.Quote quote = fxRateTable.quote(request.getSourceCurrency(), request.getTargetCurrency());
+        int sourceDigits = FxRateTable.minorDigits(quote.sourceCurrency());
+        if (request.getAmount().stripTrailingZeros().scale() > sourceDigits) {
+            throw new InvalidAmountException("Amount must have at most " + sourceDigits + " decimal places in "
+                    + quote.sourceCurrency());
+        }
+        BigDecimal targetAmount = quote.convert(request.getAmount());
+        if (targetAmount.signum() <= 0) {
+            throw new InvalidAmountException("Converted amount must be greater than zero");
+        }
+        String from = request.getFromAccount();
+        String to = request.getToAccount();
+        if (from.equals(to) && quote.sourceCurrency().equals(quote.targetCurrency())) {
+            throw new SameAccountTransferException();
+        }
+        String base = fxRateTable.baseCurrency();
+        boolean baseDebit = quote.sourceCurrency().equals(base);
+        boolean baseCredit = quote.targetCurrency().equals(base);
+        if (balanceEngine != null && (baseDebit || baseCredit)) {
+            throw new IllegalStateException("Base-currency FX legs are not supported with the in-memory balance engine");
+        }
+
+        Map<String, WalletBalance> wallets = lockWallets(from, to);
+        String reference = generateTransactionReference();
+        LocalDateTime now = LocalDateTime.now();
+        List<LedgerEntry> entries = new ArrayList<>(2);
+        if (baseDebit) {
+            debit(from, wallets.get(from), request.getAmount());
+            entries.add(LedgerEntry.debit(reference, from, to, request.getAmount(), now));
+        } else {
+            debitCurrency(from, quote.sourceCurrency(), request.getAmount());
+        }
+        if (baseCredit) {
+            credit(to, wallets.get(to), targetAmount);
+            entries.add(LedgerEntry.credit(reference, to, from, targetAmount, now));
+        } else {
+            creditCurrency(to, quote.targetCurrency(), targetAmount);
+        }
+
+        fxTransferRepo.save(new FxTransfer(null, reference, from, to, quote.sourceCurrency(), request.getAmount(),
+                quote.targetCurrency(), targetAmount, quote.rate(), quote.version(), now));
+        recordLedger(entries);
+        evictBalances(List.of(from, to));
+        log.info("FX transfer completed successfully. Transaction reference: {}", reference);
+        return new FxTransferResultDTO(reference, quote.sourceCurrency(), request.getAmount(),
+                quote.targetCurrency(), targetAmount, quote.rate(), quote.version());
+    }
+
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "balancesByCurrency"}, histogram = true)
+    public AccountBalancesDTO balancesByCurrency(String accountNumber) {
+        Map<String, BigDecimal> balances = new LinkedHashMap<>();
+        balances.put(fxRateTable.baseCurrency(), balanceCache.get(accountNumber));
+        for (CurrencyBalance balance : currencyBalanceRepo.findByAccountNumberOrderByCurrency(accountNumber)) {
+            balances.put(balance.getCurrency(),
+                    balance.getAmount().setScale(FxRateTable.minorDigits(balance.getCurrency())));
+        }
+        return new AccountBalancesDTO(accountNumber, fxRateTable.baseCurrency(), balances);
+    }
+
+    /**
+     * Reserves funds for a later transfer. The reservation is one conditional update of the
+     * wallet row's held amount, with no read or lock beforehand, so authorizations stay short
+     * and only capture takes account locks. A sharded account is the exception: its wallet row
+     * is locked and topped up from the shards first.
+     */
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "authorizeHold"}, histogram = true)
+    public HoldDTO authorizeHold(HoldRequestDto request) {
+        log.info("Authorizing hold on account: {} for amount: {}", request.getAccountNumber(), request.getAmount());
+
+        validateAmount(request.getAmount(), "Hold amount must be greater than zero");
+        if (balanceEngine != null) {
+            throw new IllegalStateException("Holds are not supported with the in-memory balance engine");
+        }
+        Duration ttl = request.getTtlSeconds() != null ? Duration.ofSeconds(request.getTtlSeconds()) : defaultHoldTtl;
+        if (ttl.isNegative() || ttl.isZero() || ttl.compareTo(maxHoldTtl) > 0) {
+            throw new InvalidAmountException("Hold ttlSeconds must be between 1 and " + maxHoldTtl.toSeconds());
+        }
+        Map<String, Long> walletIds = accountRepo
+                .findWalletRefs(List.of(request.getAccountNumber(), request.getToAccount())).stream()
+                .collect(Collectors.toMap(AccountWalletRef::getAccountNumber, AccountWalletRef::getWalletBalanceId));
+        Long walletId = walletIds.get(request.getAccountNumber());
+        if (walletId == null) {
+            throw new AccountNotFoundException(request.getAccountNumber());
+        }
+        if (!walletIds.containsKey(request.getToAccount())) {
+            throw new AccountNotFoundException(request.getToAccount());
+        }
+        if (request.getAccountNumber().equals(request.getToAccount())) {
+            throw new SameAccountTransferException();
+        }
+
+        if (balanceShards.isSharded(request.getAccountNumber())) {
+            collectShards(request.getAccountNumber(), walletId, request.getAmount());
+        }
+        if (walletBalanceRepo.holdIfAvailable(walletId, request.getAmount()) == 0) {
+            BigDecimal available = accountRepo.findWalletSnapshots(List.of(request.getAccountNumber())).stream()
+                    .map(AccountWalletSnapshot::getAvailable)
+                    .findFirst()
+                    .orElse(BigDecimal.ZERO);
+            throw new InsufficientBalanceException(available, request.getAmount());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        Hold hold = holdRepo.save(new Hold(null, "HLD" + generateTransactionReference().substring(3),
+                request.getAccountNumber(), walletId, request.getToAccount(), request.getAmount(), null,
+                Hold.Status.AUTHORIZED, now, now.plus(ttl), null));
+        afterCommit(() -> holdExpiryWheel.schedule(hold.getId(), hold.getExpiresAt()));
+
+        log.info("Hold {} authorized until {}", hold.getReference(), hold.getExpiresAt());
+        return HoldDTO.from(hold);
+    }
+
+    /**
+     * Settles a hold: moves {@code amount} (the whole hold when null) to the hold's target
+     * account and releases the rest. Both wallet rows are locked in ascending id order.
+     */
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "captureHold"}, histogram = true)
+    @RetryOnLockConflict
+    public HoldDTO captureHold(String reference, BigDecimal amount) {
+        Hold hold = holdRepo.findByReference(reference).orElseThrow(() -> new HoldNotFoundException(reference));
+        BigDecimal captured = amount != null ? amount : hold.getAmount();
+        validateAmount(captured, "Capture amount must be greater than zero");
+        if (captured.compareTo(hold.getAmount()) > 0) {
+            throw new InvalidAmountException("Capture amount must not exceed the held amount " + hold.getAmount());
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (hold.getStatus() == Hold.Status.AUTHORIZED && !now.isBefore(hold.getExpiresAt())) {
+            throw new HoldNotActiveException(reference, Hold.Status.EXPIRED);
+        }
+        closeHold(hold, Hold.Status.CAPTURED, captured, now);
+
+        String from = hold.getAccountNumber();
+        String to = hold.getToAccount();
+        Map<String, WalletBalance> wallets = lockWallets(from, to);
+        WalletBalance source = wallets.get(from);
+        source.setHeldAmount(source.getHeldAmount().subtract(hold.getAmount()));
+        debit(from, source, captured);
+        credit(to, wallets.get(to), captured);
+        recordLedger(List.of(
+                LedgerEntry.debit(hold.getReference(), from, to, captured, now),
+                LedgerEntry.credit(hold.getReference(), to, from, captured, now)));
+        evictBalances(List.of(from, to));
+
+        log.info("Hold {} captured: {} of {}", reference, captured, hold.getAmount());
+        // The row was closed by a bulk update; setting the stale managed hold would flush it back
+        HoldDTO result = HoldDTO.from(hold);
+        result.setStatus(Hold.Status.CAPTURED);
+        result.setCapturedAmount(captured);
+        return result;
+    }
+
+    /** Returns the held funds to the account's available balance. */
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "releaseHold"}, histogram = true)
+    public HoldDTO releaseHold(String reference) {
+        Hold hold = holdRepo.findByReference(reference).orElseThrow(() -> new HoldNotFoundException(reference));
+        closeHold(hold, Hold.Status.RELEASED, null, LocalDateTime.now());
+        walletBalanceRepo.releaseHeld(hold.getWalletBalanceId(), hold.getAmount());
+
+        log.info("Hold {} released", reference);
+        HoldDTO result = HoldDTO.from(hold);
+        result.setStatus(Hold.Status.RELEASED);
+        return result;
+    }
+
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "availableBalance"}, histogram = true)
+    public AvailableBalanceDTO availableBalance(String accountNumber) {
+        AccountWalletSnapshot wallet = accountRepo.findWalletSnapshots(List.of(accountNumber)).stream()
+                .findFirst()
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        BigDecimal balance = balanceCache.get(accountNumber);
+        return new AvailableBalanceDTO(accountNumber, balance, wallet.getHeldAmount(),
+                balance.subtract(wallet.getHeldAmount()));
+    }
+
+    /**
+     * Settles a list of transfers in one transaction. Every wallet involved is locked once,
+     * in ascending id order, the items are applied in request order against in-memory
+     * balances, and only the net result per wallet is written back with a JDBC batch update.
+     * An item that fails validation is reported as FAILED and does not affect the others.
+     */
+    @Override
+    @Transactional
+    @Timed(value = "wallet.service", extraTags = {"operation", "doIntraTransferBatch"}, histogram = true)
+    @RetryOnLockConflict
+    public List<BatchTransferItemResult> doIntraTransferBatch(List<DoTransDto> transfers) {
+        return settleTransferBatch(transfers);
+    }
+
+    /**
+     * {@link #doIntraTransferBatch} without the lock retries, for callers that run it inside
+     * their own transaction and retry that instead: a retry within the joined transaction would
+     * run in one already marked rollback-only.
+     */
+    @Override
+    @Transactional(Transactional.TxType.MANDATORY)
+    @Timed(value = "wallet.service", extraTags = {"operation", "settleTransferBatch"}, histogram = true)
+    public List<BatchTransferItemResult> settleTransferBatch(List<DoTransDto> transfers) {
+        log.info("Processing batch of {} intra transfers", transfers.size());
+
+        if (balanceEngine != null) {
+            return transferBatchInMemory(transfers);
+        }
+
+        Set<String> accountNumbers = new HashSet<>();
+        for (DoTransDto transfer : transfers) {
+            accountNumbers.add(transfer.getFromAccount());
+            accountNumbers.add(transfer.getToAccount());
+        }
+        accountNumbers.remove(null);
+
+        Map<String, Long> walletIds = new HashMap<>();
+        for (List<String> chunk : chunks(new ArrayList<>(accountNumbers))) {
+            for (AccountWalletRef ref : accountRepo.findWalletRefs(chunk)) {
+                walletIds.put(ref.getAccountNumber(), ref.getWalletBalanceId());
+            }
+        }
+
+        // Chunks of an ascending id list are locked in ascending order as well
+        Map<Long, BigDecimal> opening = new HashMap<>();
+        Map<Long, BigDecimal> held = new HashMap<>();
+        for (List<Long> chunk : chunks(new ArrayList<>(new TreeSet<>(walletIds.values())))) {
+            for (WalletBalance wallet : walletBalanceRepo.findAllByIdInWithLock(chunk)) {
+                opening.put(wallet.getId(), wallet.getAmount());
+                held.put(wallet.getId(), wallet.getHeldAmount());
+            }
+        }
+
+        Map<Long, BigDecimal> balances = new HashMap<>(opening);
+        // Sharded sources can spend their shards too; fold them into the wallet row up front
+        Set<String> sources = new HashSet<>();
+        for (DoTransDto transfer : transfers) {
+            sources.add(transfer.getFromAccount());
+        }
+        for (String accountNumber : sources) {
+            Long walletId = walletIds.get(accountNumber);
+            if (walletId != null && balanceShards.isSharded(accountNumber)) {
+                balances.merge(walletId, balanceShards.take(accountNumber, null), BigDecimal::add);
+            }
+        }
+        List<BatchTransferItemResult> results = new ArrayList<>(transfers.size());
+        List<LedgerEntry> entries = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (int i = 0; i < transfers.size(); i++) {
+            DoTransDto transfer = transfers.get(i);
+            try {
+                validateAmount(transfer.getAmount(), "Transfer amount must be greater than zero");
+                Long fromWalletId = walletIds.get(transfer.getFromAccount());
+                if (fromWalletId == null) {
+                    throw new AccountNotFoundException(transfer.getFromAccount());
+                }
+                Long toWalletId = walletIds.get(transfer.getToAccount());
+                if (toWalletId == null) {
+                    throw new AccountNotFoundException(transfer.getToAccount());
+                }
+                if (fromWalletId.equals(toWalletId)) {
+                    throw new SameAccountTransferException();
+                }
+                BigDecimal balance = balances.get(fromWalletId);
+                BigDecimal available = balance.subtract(held.get(fromWalletId));
+                if (available.compareTo(transfer.getAmount()) < 0) {
+                    throw new InsufficientBalanceException(available, transfer.getAmount());
+                }
+                balances.put(fromWalletId, balance.subtract(transfer.getAmount()));
+                balances.merge(toWalletId, transfer.getAmount(), BigDecimal::add);
+                String reference = generateTransactionReference();
+                entries.addAll(transferEntries(reference, transfer, now));
+                results.add(BatchTransferItemResult.success(i, transfer, reference));
+            } catch (AccountNotFoundException | InvalidAmountException | SameAccountTransferException
+                     | InsufficientBalanceException ex) {
+                results.add(BatchTransferItemResult.failed(i, transfer, ex.getMessage()));
+            }
+        }
+
+        List<Object[]> updates = new ArrayList<>();
+        balances.forEach((walletId, amount) -> {
+            if (amount.compareTo(opening.get(walletId)) != 0) {
+                updates.add(new Object[]{amount, walletId});
+            }
+        });
+        if (!updates.isEmpty()) {
+            jdbcTemplate.batchUpdate("UPDATE wallet_balance SET amount = ?, version = version + 1 WHERE id = ?", updates);
+        }
+        recordLedger(entries);
+        evictBalances(accountsOf(entries));
+
+        log.info("Batch settled: {} items, {} wallets updated", transfers.size(), updates.size());
+        return results;
+    }
+
+    private List<BatchTransferItemResult> transferBatchInMemory(List<DoTransDto> transfers) {
+        List<BatchTransferItemResult> results = new ArrayList<>(transfers.size());
+        List<DoTransDto> debited = new ArrayList<>();
+        List<LedgerEntry> entries = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            for (int i = 0; i < transfers.size(); i++) {
+                DoTransDto transfer = transfers.get(i);
+                try {
+                    long amount = validateAmount(transfer.getAmount(), "Transfer amount must be greater than zero");
+                    balanceEngine.debit(transfer.getFromAccount(), transfer.getToAccount(), amount);
+                    debited.add(transfer);
+                    String reference = generateTransactionReference();
+                    entries.addAll(transferEntries(reference, transfer, now));
+                    results.add(BatchTransferItemResult.success(i, transfer, reference));
+                } catch (AccountNotFoundException | InvalidAmountException | SameAccountTransferException
+                         | InsufficientBalanceException ex) {
+                    results.add(BatchTransferItemResult.failed(i, transfer, ex.getMessage()));
+                }
+            }
+        } finally {
+            settleInMemory(debited);
+        }
+        recordLedger(entries);
+        evictBalances(accountsOf(entries));
+        return results;
+    }
+
+    /**
+     * Completes transfers whose sources the balance engine has already debited. Their net
+     * change per account is written to the wallet rows in this transaction; in memory the
+     * destinations are credited once it commits, or the sources refunded if it rolls back,
+     * so a rolled-back or retried transfer never moves money.
+     */
+    private void settleInMemory(List<DoTransDto> debited) {
+        if (debited.isEmpty()) {
+            return;
+        }
+        Map<String, Long> deltas = new HashMap<>();
+        for (DoTransDto transfer : debited) {
+            long amount = Money.toMinor(transfer.getAmount());
+            deltas.merge(transfer.getFromAccount(), -amount, Long::sum);
+            deltas.merge(transfer.getToAccount(), amount, Long::sum);
+        }
+        writeThenSettle(() -> balanceEngine.writeDeltas(deltas), committed -> {
+            for (DoTransDto transfer : debited) {
+                balanceEngine.settle(transfer.getFromAccount(), transfer.getToAccount(),
+                        Money.toMinor(transfer.getAmount()), committed);
+            }
+        });
+    }
+
+    /**
+     * Runs {@code write} now and {@code settle} once the surrounding transaction completes,
+     * with whether it committed. Without a transaction, {@code settle} follows the write
+     * directly, with false if the write failed.
+     */
+    private static void writeThenSettle(Runnable write, Consumer<Boolean> settle) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            try {
+                write.run();
+            } catch (RuntimeException ex) {
+                settle.accept(false);
+                throw ex;
+            }
+            settle.accept(true);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                settle.accept(status == STATUS_COMMITTED);
+            }
+        });
+        write.run();
+    }
+
+    private static List<LedgerEntry> transferEntries(String reference, DoTransDto transfer, LocalDateTime at) {
+        return List.of(
+                LedgerEntry.debit(reference, transfer.getFromAccount(), transfer.getToAccount(), transfer.getAmount(), at),
+                LedgerEntry.credit(reference, transfer.getToAccount(), transfer.getFromAccount(), transfer.getAmount(), at));
+    }
+
+    /**
+     * Writes the ledger entries and their change events inside the surrounding transaction,
+     * so they commit with the balance change and rolled-back movements reach neither.
+     */
+    private void recordLedger(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        ledgerWriter.append(entries);
+        outboxWriter.append(entries);
+    }
+
+    /**
+     * Evicts cached balances now and again after commit: a reader that reloads the old value
+     * while this transaction is still open would otherwise keep it cached until the TTL.
+     */
+    private void evictBalances(Collection<String> accountNumbers) {
+        if (!accountNumbers.isEmpty()) {
+            balanceCache.invalidateAll(accountNumbers);
+            afterCommit(() -> balanceCache.invalidateAll(accountNumbers));
+        }
+    }
+
+    private static Set<String> accountsOf(List<LedgerEntry> entries) {
+        return entries.stream().map(LedgerEntry::getAccountNumber).collect(Collectors.toSet());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static boolean isDuplicateEmail(DataIntegrityViolationException ex) {
+        String message = ex.getMostSpecificCause().getMessage();
+        return message != null && message.toLowerCase(Locale.ROOT).contains(User.EMAIL_CONSTRAINT);
+    }
+
+    private static String mentionedEmail(DataIntegrityViolationException ex, Collection<String> emails) {
+        String message = ex.getMostSpecificCause().getMessage();
+        return emails.stream().filter(message::contains).findFirst().orElse(null);
+    }
+
+    /** Rejects missing, non-positive and over-precise amounts; returns the amount in minor units. */
+    private long validateAmount(BigDecimal amount, String message) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new InvalidAmountException(message);
+        }
+        return Money.toMinor(amount);
+    }
+
+    private static <T> List<List<T>> chunks(List<T> values) {
+        List<List<T>> chunks = new ArrayList<>();
+        for (int i = 0; i < values.size(); i += BATCH_QUERY_CHUNK) {
+            chunks.add(values.subList(i, Math.min(values.size(), i + BATCH_QUERY_CHUNK)));
+        }
+        return chunks;
+    }
+
+    private BigDecimal transferWithSourceLock(DoTransDto request) {
+        Account fromAccount = accountRepo.findByAccountNumberWithLock(request.getFromAccount())
+                .orElseThrow(() -> new AccountNotFoundException(request.getFromAccount()));
+
+        Account toAccount = accountRepo.findByAccountNumber(request.getToAccount())
+                .orElseThrow(() -> new AccountNotFoundException(request.getToAccount()));
+
+        if (fromAccount.getAccountNumber().equals(toAccount.getAccountNumber())) {
+            throw new SameAccountTransferException();
+        }
+
+        debit(fromAccount.getAccountNumber(), fromAccount.getWalletBalance(), request.getAmount());
+        credit(toAccount.getAccountNumber(), toAccount.getWalletBalance(), request.getAmount());
+        return balanceAfter(fromAccount.getAccountNumber(), fromAccount.getWalletBalance());
+    }
+
+    /**
+     * Resolves both wallet ids without loading the balances, then locks both rows in one
+     * query ordered by id. Every transfer acquires its locks in the same global order, so
+     * concurrent A->B and B->A transfers wait on each other instead of deadlocking.
+     */
+    private BigDecimal transferWithOrderedLocks(DoTransDto request) {
+        Map<String, Long> walletIds = accountRepo
+                .findWalletRefs(List.of(request.getFromAccount(), request.getToAccount())).stream()
+                .collect(Collectors.toMap(AccountWalletRef::getAccountNumber, AccountWalletRef::getWalletBalanceId));
+
+        Long fromWalletId = walletIds.get(request.getFromAccount());
+        if (fromWalletId == null) {
+            throw new AccountNotFoundException(request.getFromAccount());
+        }
+        Long toWalletId = walletIds.get(request.getToAccount());
+        if (toWalletId == null) {
+            throw new AccountNotFoundException(request.getToAccount());
+        }
+        if (fromWalletId.equals(toWalletId)) {
+            throw new SameAccountTransferException();
+        }
+
+        // A sharded destination is credited through a shard, so its wallet row is not locked
+        List<Long> walletsToLock = balanceShards.isSharded(request.getToAccount())
+                ? List.of(fromWalletId) : List.of(fromWalletId, toWalletId);
+        Map<Long, WalletBalance> locked = walletBalanceRepo.findAllByIdInWithLock(walletsToLock)
+                .stream()
+                .collect(Collectors.toMap(WalletBalance::getId, Function.identity()));
+
+        debit(request.getFromAccount(), locked.get(fromWalletId), request.getAmount());
+        credit(request.getToAccount(), locked.get(toWalletId), request.getAmount());
+        return balanceAfter(request.getFromAccount(), locked.get(fromWalletId));
+    }
+
+    /**
+     * Reads both wallets without locks, then debits the source only if its row still has the
+     * version that was read, and credits the destination with a plain delta update. Both
+     * updates run in ascending wallet id order so the row locks they take cannot deadlock.
+     * A concurrent change to the source fails the transfer with an optimistic locking failure,
+     * which is retried. Spending a sharded source's shards needs its row locked, so such
+     * transfers fall back to ordered locking. A sharded destination is credited through a
+     * shard row, and the other paths lock shard rows only after wallet rows, so then the
+     * source is always debited first.
+     */
+    private BigDecimal transferOptimistic(DoTransDto request) {
+        if (balanceShards.isSharded(request.getFromAccount())) {
+            return transferWithOrderedLocks(request);
+        }
+
+        Map<String, AccountWalletSnapshot> wallets = accountRepo
+                .findWalletSnapshots(List.of(request.getFromAccount(), request.getToAccount())).stream()
+                .collect(Collectors.toMap(AccountWalletSnapshot::getAccountNumber, Function.identity()));
+
+        AccountWalletSnapshot fromWallet = wallets.get(request.getFromAccount());
+        if (fromWallet == null) {
+            throw new AccountNotFoundException(request.getFromAccount());
+        }
+        AccountWalletSnapshot toWallet = wallets.get(request.getToAccount());
+        if (toWallet == null) {
+            throw new AccountNotFoundException(request.getToAccount());
+        }
+        if (fromWallet.getWalletBalanceId().equals(toWallet.getWalletBalanceId())) {
+            throw new SameAccountTransferException();
+        }
+        if (fromWallet.getAvailable().compareTo(request.getAmount()) < 0) {
+            throw new InsufficientBalanceException(fromWallet.getAvailable(), request.getAmount());
+        }
+
+        boolean debitFirst = balanceShards.isSharded(request.getToAccount())
+                || fromWallet.getWalletBalanceId() < toWallet.getWalletBalanceId();
+        BigDecimal sourceBalance = null;
+        if (debitFirst) {
+            sourceBalance = debitIfUnchanged(fromWallet, request.getAmount());
+        }
+        if (!balanceShards.credit(request.getToAccount(), request.getAmount())) {
+            walletBalanceRepo.applyDelta(toWallet.getWalletBalanceId(), request.getAmount());
+        }
+        if (!debitFirst) {
+            sourceBalance = debitIfUnchanged(fromWallet, request.getAmount());
+        }
+        return sourceBalance;
+    }
+
+    /**
+     * Version-checked debit. A conflict re-reads the wallet row and tries again in the same
+     * transaction, so an already applied credit is not rolled back for every lost race; only
+     * a row that keeps changing escalates to a retry of the whole transfer. Returns the new
+     * balance, known exactly because the version still matched.
+     */
+    private BigDecimal debitIfUnchanged(AccountWalletSnapshot wallet, BigDecimal amount) {
+        for (int attempt = 1; ; attempt++) {
+            int updated = walletBalanceRepo.applyDeltaIfVersion(wallet.getWalletBalanceId(), wallet.getVersion(),
+                    amount.negate());
+            if (updated == 1) {
+                return wallet.getAmount().subtract(amount);
+            }
+            if (attempt == OPTIMISTIC_DEBIT_ATTEMPTS) {
+                throw new ObjectOptimisticLockingFailureException(WalletBalance.class, wallet.getWalletBalanceId());
+            }
+            String accountNumber = wallet.getAccountNumber();
+            wallet = accountRepo.findWalletSnapshots(List.of(accountNumber)).stream()
+                    .filter(snapshot -> snapshot.getAccountNumber().equals(accountNumber))
+                    .findFirst()
+                    .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+            if (wallet.getAvailable().compareTo(amount) < 0) {
+                throw new InsufficientBalanceException(wallet.getAvailable(), amount);
+            }
+        }
+    }
+
+    /**
+     * Debits a wallet row the caller has locked, leaving its held amount untouched. For a
+     * sharded account, a shortfall on the wallet row is first covered from the account's shards.
+     */
+    private void debit(String accountNumber, WalletBalance wallet, BigDecimal amount) {
+        BigDecimal available = wallet.getAmount().subtract(wallet.getHeldAmount());
+        if (available.compareTo(amount) < 0 && balanceShards.isSharded(accountNumber)) {
+            BigDecimal shortfall = amount.subtract(available);
+            wallet.setAmount(wallet.getAmount().add(balanceShards.take(accountNumber, shortfall)));
+            available = wallet.getAmount().subtract(wallet.getHeldAmount());
+        }
+        if (available.compareTo(amount) < 0) {
+            throw new InsufficientBalanceException(available, amount);
+        }
+
+        wallet.setAmount(wallet.getAmount().subtract(amount));
+        walletBalanceRepo.save(wallet);
+    }
+
+    /**
+     * Holds reserve against the wallet row, so before holding on a sharded account the row is
+     * locked and topped up from the shards with whatever it lacks for {@code needed}.
+     */
+    private void collectShards(String accountNumber, Long walletId, BigDecimal needed) {
+        WalletBalance wallet = walletBalanceRepo.findAllByIdInWithLock(List.of(walletId)).get(0);
+        BigDecimal shortfall = needed.subtract(wallet.getAmount().subtract(wallet.getHeldAmount()));
+        if (shortfall.signum() > 0) {
+            wallet.setAmount(wallet.getAmount().add(balanceShards.take(accountNumber, shortfall)));
+            walletBalanceRepo.saveAndFlush(wallet);
+        }
+    }
+
+    /** A sharded account's balance is spread over its shards; any other is the wallet row. */
+    private BigDecimal balanceAfter(String accountNumber, WalletBalance wallet) {
+        return balanceShards.isSharded(accountNumber) ? shardedBalance(accountNumber) : wallet.getAmount();
+    }
+
+    private BigDecimal shardedBalance(String accountNumber) {
+        return accountRepo.findBalanceByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+    }
+
+    private void credit(String accountNumber, WalletBalance wallet, BigDecimal amount) {
+        if (balanceShards.credit(accountNumber, amount)) {
+            return;
+        }
+        wallet.setAmount(wallet.getAmount().add(amount));
+        walletBalanceRepo.save(wallet);
+    }
+
+    /** Moves an authorized hold to {@code status}, or reports the state that beat us to it. */
+    private void closeHold(Hold hold, Hold.Status status, BigDecimal capturedAmount, LocalDateTime at) {
+        if (holdRepo.close(hold.getId(), status, capturedAmount, at) == 0) {
+            Hold.Status current = holdRepo.findById(hold.getId()).map(Hold::getStatus).orElse(hold.getStatus());
+            throw new HoldNotActiveException(hold.getReference(), current);
+        }
+    }
+
+    /** Locks the wallet rows of both accounts (one row if they are the same) in ascending id order. */
+    private Map<String, WalletBalance> lockWallets(String from, String to) {
+        Map<String, Long> walletIds = accountRepo.findWalletRefs(List.of(from, to)).stream()
+                .collect(Collectors.toMap(AccountWalletRef::getAccountNumber, AccountWalletRef::getWalletBalanceId));
+        for (String accountNumber : List.of(from, to)) {
+            if (!walletIds.containsKey(accountNumber)) {
+                throw new AccountNotFoundException(accountNumber);
+            }
+        }
+        Map<Long, WalletBalance> locked = walletBalanceRepo.findAllByIdInWithLock(new TreeSet<>(walletIds.values()))
+                .stream()
+                .collect(Collectors.toMap(WalletBalance::getId, Function.identity()));
+        Map<String, WalletBalance> wallets = new HashMap<>();
+        walletIds.forEach((accountNumber, walletId) -> wallets.put(accountNumber, locked.get(walletId)));
+        return wallets;
+    }
+
+    /** Debits a non-base currency balance; the caller holds the account's wallet row lock. */
+    private void debitCurrency(String accountNumber, String currency, BigDecimal amount) {
+        CurrencyBalance balance = currencyBalanceRepo.findByAccountNumberAndCurrency(accountNumber, currency)
+                .orElse(null);
+        BigDecimal available = balance != null ? balance.getAmount() : BigDecimal.ZERO;
+        if (available.compareTo(amount) < 0) {
+            throw new InsufficientBalanceException(available, amount);
+        }
+        balance.setAmount(available.subtract(amount));
+        currencyBalanceRepo.save(balance);
+    }
+
+    /** Credits a non-base currency balance, opening it on first use; the caller holds the wallet row lock. */
+    private void creditCurrency(String accountNumber, String currency, BigDecimal amount) {
+        CurrencyBalance balance = currencyBalanceRepo.findByAccountNumberAndCurrency(accountNumber, currency)
+                .orElseGet(() -> new CurrencyBalance(accountNumber, currency));
+        balance.setAmount(balance.getAmount().add(amount));
+        currencyBalanceRepo.save(balance);
+    }
+
+    private String generateTransactionReference() {
+        return "TXN" + System.currentTimeMillis() + UUID.randomUUID().toString().substring(0, 6).toUpperCase();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.example.test.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over every registered email, loaded from the users table at startup and
+ * updated as users are created. {@link #mightContain} never misses an email this node has
+ * seen, so a "no" lets signup skip the database probe; a "maybe" is wrong about
+ * {@code false-positive-rate} of the time and costs one indexed lookup.
+ *
+ * The filter is an optimisation only: users created by other nodes are not in it, and the
+ * unique index on users.email is what actually rejects duplicates. Sized for
+ * {@code expected-emails}; beyond that the false-positive rate climbs until the next restart.
+ */
+@Component
+@Slf4j
+public class EmailIndex {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AtomicLongArray words;
+    private final long bitCount;
+    private final int hashCount;
+
+    public EmailIndex(JdbcTemplate jdbcTemplate,
+                      @Value("${wallet.email-index.expected-emails:1000000}") long expectedEmails,
+                      @Value("${wallet.email-index.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        long n = Math.max(1, expectedEmails);
+        long bits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(1, (bits + 63) / 64));
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = wordCount * 64L;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    @PostConstruct
+    void load() {
+        JdbcTemplate cursor = new JdbcTemplate(jdbcTemplate.getDataSource());
+        cursor.setFetchSize(10_000);
+        long[] loaded = new long[1];
+        cursor.query("SELECT email FROM users WHERE email IS NOT NULL", rs -> {
+            add(rs.getString(1));
+            loaded[0]++;
+        });
+        log.info("Email index loaded with {} emails ({} KiB, {} hashes)", loaded[0], bitCount / 8 / 1024, hashCount);
+    }
+
+    public void add(String email) {
+        if (email == null) {
+            return;
+        }
+        long h1 = hash(email);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            long mask = 1L << bit;
+            int word = (int) (bit >>> 6);
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+    }
+
+    /**
+     * False means no user with this email has been created through this node. Always false for
+     * a null email, which never clashes: the unique index allows any number of nulls.
+     */
+    public boolean mightContain(String email) {
+        if (email == null) {
+            return false;
+        }
+        long h1 = hash(email);
+        long h2 = mix(h1) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(h1 + i * h2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long hash(String value) {
+        // FNV-1a over the UTF-16 chars, then a murmur3 finaliser to spread the bits
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.test.service;
+
+import com.example.test.dto.BalanceChangeEvent;
+
+import java.util.List;
+
+/**
+ * Destination of relayed balance change events. Every sink bean receives every batch, in
+ * outbox id order. Delivery is at least once: if any sink throws, the batch stays in the
+ * outbox and all sinks see it again on the next relay run, so consumers should dedupe on
+ * {@link BalanceChangeEvent#getEventId()}.
+ */
+public interface EventSink {
+
+    void publish(List<BalanceChangeEvent> events) throws Exception;
+}
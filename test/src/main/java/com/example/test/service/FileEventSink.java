@@ -0,0 +1,45 @@
+package com.example.test.service;
+
+import com.example.test.dto.BalanceChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/** Appends relayed events as NDJSON, one line per event, to {@code wallet.outbox.file-sink.path}. */
+@Component
+@ConditionalOnProperty(name = "wallet.outbox.file-sink.path")
+public class FileEventSink implements EventSink {
+
+    private final Path path;
+    private final ObjectWriter writer;
+
+    public FileEventSink(ObjectMapper objectMapper, @Value("${wallet.outbox.file-sink.path}") Path path) {
+        this.path = path;
+        this.writer = objectMapper.writer();
+    }
+
+    @Override
+    public synchronized void publish(List<BalanceChangeEvent> events) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (BalanceChangeEvent event : events) {
+                out.write(writer.writeValueAsString(event));
+                out.write('\n');
+            }
+        }
+    }
+}
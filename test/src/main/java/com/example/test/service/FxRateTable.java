@@ -0,0 +1,178 @@
+package com.example.test.service;
+
+import com.example.test.dto.FxRatesDTO;
+import com.example.test.exception.InvalidAmountException;
+import com.example.test.exception.UnsupportedCurrencyException;
+import com.example.test.model.FxTransfer;
+import com.example.test.model.Money;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.Currency;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * In-memory FX rates, quoted as units of each currency per one unit of the base currency.
+ *
+ * The table is an immutable snapshot behind a volatile field: an update copies the rates,
+ * precomputes every cross rate and publishes the new snapshot in one write, so a quote on
+ * the transfer path is a volatile read plus two map lookups and never sees a half-applied
+ * update. Updates are serialised among themselves only.
+ *
+ * Cross rates are rounded half-even to {@link FxTransfer#RATE_SCALE} places when the snapshot
+ * is built, so the rate a transfer records is exactly the one it converted with. Converted
+ * amounts are rounded to the target currency's minor unit (none for JPY, three for KWD).
+ */
+@Component
+public class FxRateTable {
+
+    private final String baseCurrency;
+    private volatile Snapshot snapshot;
+
+    public FxRateTable(@Value("${wallet.fx.base-currency:USD}") String baseCurrency,
+                       @Value("${wallet.fx.rates:}") String initialRates) {
+        this.baseCurrency = currencyCode(baseCurrency);
+        if (minorDigits(this.baseCurrency) > Money.SCALE) {
+            throw new IllegalArgumentException("Base currency " + this.baseCurrency + " has more than "
+                    + Money.SCALE + " decimal places, which wallet balances cannot hold");
+        }
+        this.snapshot = Snapshot.of(this.baseCurrency, parse(initialRates), 1);
+    }
+
+    public String baseCurrency() {
+        return baseCurrency;
+    }
+
+    /**
+     * Rate for converting {@code sourceCurrency} into {@code targetCurrency}, from the current
+     * snapshot.
+     */
+    public Quote quote(String sourceCurrency, String targetCurrency) {
+        Snapshot current = snapshot;
+        String source = normalise(sourceCurrency);
+        Map<String, BigDecimal> fromSource = current.crossRates.get(source);
+        if (fromSource == null) {
+            throw new UnsupportedCurrencyException(sourceCurrency);
+        }
+        String target = normalise(targetCurrency);
+        BigDecimal rate = fromSource.get(target);
+        if (rate == null) {
+            throw new UnsupportedCurrencyException(targetCurrency);
+        }
+        return new Quote(source, target, rate, current.version);
+    }
+
+    /**
+     * Sets the given rates, keeping the ones not mentioned, and publishes them as a new
+     * snapshot. Returns the published table.
+     */
+    public synchronized FxRatesDTO update(Map<String, BigDecimal> rates) {
+        Map<String, BigDecimal> merged = new HashMap<>(snapshot.rates);
+        rates.forEach((currency, rate) -> merged.put(currencyCode(currency), rate));
+        Snapshot next = Snapshot.of(baseCurrency, merged, snapshot.version + 1);
+        snapshot = next;
+        return next.toDto();
+    }
+
+    public FxRatesDTO rates() {
+        return snapshot.toDto();
+    }
+
+    /** Decimal places of a currency's minor unit, for a code this table has accepted. */
+    public static int minorDigits(String currencyCode) {
+        return Currency.getInstance(currencyCode).getDefaultFractionDigits();
+    }
+
+    private static Map<String, BigDecimal> parse(String rates) {
+        Map<String, BigDecimal> parsed = new HashMap<>();
+        for (String pair : rates.split(",")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            String[] parts = pair.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected CURRENCY:rate in wallet.fx.rates, got " + pair);
+            }
+            parsed.put(currencyCode(parts[0]), new BigDecimal(parts[1].trim()));
+        }
+        return parsed;
+    }
+
+    private static String normalise(String currency) {
+        return currency == null ? "" : currency.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String currencyCode(String currency) {
+        String code = normalise(currency);
+        Currency instance;
+        try {
+            instance = Currency.getInstance(code);
+        } catch (IllegalArgumentException ex) {
+            throw new UnsupportedCurrencyException(currency);
+        }
+        // Pseudo-currencies such as XAU have no minor unit to round to
+        if (instance.getDefaultFractionDigits() < 0) {
+            throw new UnsupportedCurrencyException(currency);
+        }
+        return instance.getCurrencyCode();
+    }
+
+    /** Conversion rate from one currency into another, and the table version it came from. */
+    public record Quote(String sourceCurrency, String targetCurrency, BigDecimal rate, long version) {
+
+        /** {@code amount} in the target currency, rounded half-even to its minor unit. */
+        public BigDecimal convert(BigDecimal amount) {
+            return amount.multiply(rate).setScale(minorDigits(targetCurrency), RoundingMode.HALF_EVEN);
+        }
+    }
+
+    private static final class Snapshot {
+        final long version;
+        final Instant updatedAt;
+        final String baseCurrency;
+        final Map<String, BigDecimal> rates;
+        final Map<String, Map<String, BigDecimal>> crossRates;
+
+        private Snapshot(long version, String baseCurrency, Map<String, BigDecimal> rates,
+                         Map<String, Map<String, BigDecimal>> crossRates) {
+            this.version = version;
+            this.updatedAt = Instant.now();
+            this.baseCurrency = baseCurrency;
+            this.rates = rates;
+            this.crossRates = crossRates;
+        }
+
+        static Snapshot of(String baseCurrency, Map<String, BigDecimal> rates, long version) {
+            Map<String, BigDecimal> perBase = new HashMap<>(rates);
+            BigDecimal baseRate = perBase.putIfAbsent(baseCurrency, BigDecimal.ONE);
+            if (baseRate != null && baseRate.compareTo(BigDecimal.ONE) != 0) {
+                throw new InvalidAmountException("FX rate of the base currency " + baseCurrency + " must be 1");
+            }
+            perBase.forEach((currency, rate) -> {
+                if (rate == null || rate.signum() <= 0) {
+                    throw new InvalidAmountException("FX rate for " + currency + " must be greater than zero");
+                }
+            });
+
+            Map<String, Map<String, BigDecimal>> cross = new HashMap<>();
+            perBase.forEach((source, sourceRate) -> {
+                Map<String, BigDecimal> fromSource = new HashMap<>();
+                perBase.forEach((target, targetRate) -> fromSource.put(target,
+                        source.equals(target) ? BigDecimal.ONE.setScale(FxTransfer.RATE_SCALE)
+                                : targetRate.divide(sourceRate, FxTransfer.RATE_SCALE, RoundingMode.HALF_EVEN)));
+                cross.put(source, Map.copyOf(fromSource));
+            });
+            return new Snapshot(version, baseCurrency, Map.copyOf(perBase), Map.copyOf(cross));
+        }
+
+        FxRatesDTO toDto() {
+            return new FxRatesDTO(baseCurrency, version, updatedAt, new TreeMap<>(rates));
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.test.service;
+
+import com.example.test.repo.HoldRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Expires holds on a hashed timing wheel instead of scanning wallet_hold for due rows.
+ *
+ * Each authorized hold is put in the slot of its deadline tick ({@code wallet.holds.tick-ms});
+ * a hold further out than one revolution shares a slot with nearer ones and is skipped until
+ * its tick comes round. Every tick drains only the slots that have come due and expires their
+ * holds in one batch: the status flips and the per-wallet held amounts drop by id, never by
+ * range scan. Holds released or captured in the meantime are skipped by the status check.
+ *
+ * The wheel lives in memory and is refilled from the open holds on startup. Capture already
+ * refuses a hold past its expiry, so a late tick only delays freeing the held funds.
+ */
+@Component
+@Slf4j
+public class HoldExpiryWheel {
+
+    private static final int EXPIRE_CHUNK = 1000;
+
+    private final HoldRepo holdRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final long tickMillis;
+    private final List<Queue<long[]>> slots;
+    private final Counter expired;
+    private volatile long lastTick;
+
+    public HoldExpiryWheel(HoldRepo holdRepo,
+                           JdbcTemplate jdbcTemplate,
+                           TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry,
+                           @Value("${wallet.holds.tick-ms:1000}") long tickMillis,
+                           @Value("${wallet.holds.wheel-size:3600}") int wheelSize) {
+        this.holdRepo = holdRepo;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ConcurrentLinkedQueue<>());
+        }
+        this.expired = Counter.builder("wallet.holds.expired")
+                .description("Holds released by the expiry wheel")
+                .register(meterRegistry);
+        this.lastTick = System.currentTimeMillis() / tickMillis;
+    }
+
+    @PostConstruct
+    void load() {
+        List<Object[]> open = holdRepo.findAuthorizedExpiries();
+        for (Object[] row : open) {
+            schedule((Long) row[0], (LocalDateTime) row[1]);
+        }
+        log.info("Hold expiry wheel loaded {} open holds", open.size());
+    }
+
+    public void schedule(long holdId, LocalDateTime expiresAt) {
+        long millis = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        // Round up so a hold never expires before its deadline; due ones go on the next tick
+        long deadline = Math.max(Math.floorDiv(millis + tickMillis - 1, tickMillis), lastTick + 1);
+        slots.get((int) Math.floorMod(deadline, (long) slots.size())).add(new long[]{holdId, deadline});
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.holds.tick-ms:1000}")
+    public void tick() {
+        advance(System.currentTimeMillis());
+    }
+
+    /** Expires every hold due at {@code nowMillis}; returns how many were still open. */
+    int advance(long nowMillis) {
+        long now = nowMillis / tickMillis;
+        long from = lastTick + 1;
+        if (now < from) {
+            return 0;
+        }
+        lastTick = now;
+        // After a stall of more than one revolution every slot is due once
+        long first = Math.max(from, now - slots.size() + 1);
+        List<Long> due = new ArrayList<>();
+        for (long tick = first; tick <= now; tick++) {
+            Queue<long[]> slot = slots.get((int) Math.floorMod(tick, (long) slots.size()));
+            for (int pending = slot.size(); pending > 0; pending--) {
+                long[] entry = slot.poll();
+                if (entry == null) {
+                    break;
+                }
+                if (entry[1] <= now) {
+                    due.add(entry[0]);
+                } else {
+                    slot.add(entry);
+                }
+            }
+        }
+        int count = 0;
+        for (int i = 0; i < due.size(); i += EXPIRE_CHUNK) {
+            count += expire(due.subList(i, Math.min(due.size(), i + EXPIRE_CHUNK)));
+        }
+        if (count > 0) {
+            expired.increment(count);
+            log.info("Expired {} holds", count);
+        }
+        return count;
+    }
+
+    private int expire(List<Long> holdIds) {
+        Integer count = transactionTemplate.execute(status -> {
+            String in = String.join(",", holdIds.stream().map(String::valueOf).toList());
+            List<Map<String, Object>> open = jdbcTemplate.queryForList(
+                    "SELECT id, wallet_balance_id, amount FROM wallet_hold WHERE status = 'AUTHORIZED' AND id IN (" + in + ")");
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> closes = new ArrayList<>(open.size());
+            for (Map<String, Object> hold : open) {
+                closes.add(new Object[]{now, hold.get("id")});
+            }
+            // A capture or release may still win a hold between the read and this update
+            int[] updated = jdbcTemplate.batchUpdate("UPDATE wallet_hold SET status = 'EXPIRED', closed_at = ? " +
+                    "WHERE id = ? AND status = 'AUTHORIZED'", closes);
+            Map<Long, BigDecimal> heldByWallet = new TreeMap<>();
+            int closed = 0;
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 1) {
+                    Map<String, Object> hold = open.get(i);
+                    heldByWallet.merge(((Number) hold.get("wallet_balance_id")).longValue(),
+                            (BigDecimal) hold.get("amount"), BigDecimal::add);
+                    closed++;
+                }
+            }
+            // Ascending wallet id, the lock order every transfer uses
+            List<Object[]> releases = new ArrayList<>(heldByWallet.size());
+            heldByWallet.forEach((walletId, amount) -> releases.add(new Object[]{amount, walletId}));
+            if (!releases.isEmpty()) {
+                jdbcTemplate.batchUpdate("UPDATE wallet_balance SET held_amount = held_amount - ?, version = version + 1 " +
+                        "WHERE id = ?", releases);
+            }
+            return closed;
+        });
+        return count != null ? count : 0;
+    }
+}
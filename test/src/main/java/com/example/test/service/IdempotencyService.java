@@ -0,0 +1,333 @@
+package com.example.test.service;
+
+import com.example.test.dto.ApiResponse;
+import com.example.test.exception.IdempotencyCacheFullException;
+import com.example.test.exception.IdempotencyKeyInProgressException;
+import com.example.test.exception.IdempotencyKeyMismatchException;
+import com.example.test.model.IdempotencyRecord;
+import com.example.test.repo.IdempotencyRecordRepo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates retried requests that carry an {@code Idempotency-Key} header.
+ *
+ * A completed response is written to the idempotency_record table before it is returned,
+ * so a retry after a crash or routed to another node still finds it. A bounded LRU map with
+ * a TTL sits in front of the table and only spares the read: the table is consulted on a
+ * cache miss. If the write fails the response is returned anyway and the entry stays
+ * visible to lookups until a later request or the purge job writes it. Only successful
+ * responses are stored; a request that throws releases its key so the client can retry it.
+ *
+ * Requests still in progress count towards {@code max-entries} but cannot be evicted; when
+ * every slot is held by one, new keys are refused until a request completes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IdempotencyService {
+
+    public static final String REPLAY_HEADER = "Idempotent-Replayed";
+
+    private final IdempotencyRecordRepo idempotencyRecordRepo;
+    private final ObjectMapper objectMapper;
+
+    @Value("${wallet.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${wallet.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    // All guarded by lock; unwritten holds completed entries until their row is written
+    private final LinkedHashMap<String, StoredResponse> cache = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, StoredResponse> unwritten = new LinkedHashMap<>();
+    private boolean retrying;
+
+    public <T> ResponseEntity<ApiResponse<T>> execute(String scope, String idempotencyKey, Object request,
+                                                      Supplier<ResponseEntity<ApiResponse<T>>> action) {
+        String key = scope + ":" + idempotencyKey;
+        String fingerprint = fingerprint(request);
+
+        ResponseEntity<ApiResponse<T>> replay = lookup(key, idempotencyKey, fingerprint);
+        if (replay != null) {
+            log.info("Replaying stored response for Idempotency-Key {}", idempotencyKey);
+            return replay;
+        }
+
+        StoredResponse reserved = new StoredResponse(key, fingerprint);
+        lock.lock();
+        try {
+            StoredResponse existing = inMemory(key);
+            if (existing != null) {
+                return replayOrReject(existing, idempotencyKey, fingerprint);
+            }
+            if (!makeRoom()) {
+                throw new IdempotencyCacheFullException();
+            }
+            cache.put(key, reserved);
+        } finally {
+            lock.unlock();
+        }
+
+        ResponseEntity<ApiResponse<T>> response;
+        try {
+            response = action.get();
+        } catch (RuntimeException ex) {
+            lock.lock();
+            try {
+                cache.remove(key, reserved);
+            } finally {
+                lock.unlock();
+            }
+            throw ex;
+        }
+
+        lock.lock();
+        try {
+            reserved.status = response.getStatusCode().value();
+            reserved.response = response.getBody();
+            reserved.createdAt = LocalDateTime.now();
+            unwritten.put(key, reserved);
+        } finally {
+            lock.unlock();
+        }
+        write(reserved);
+        return response;
+    }
+
+    private <T> ResponseEntity<ApiResponse<T>> lookup(String key, String idempotencyKey, String fingerprint) {
+        lock.lock();
+        try {
+            StoredResponse entry = inMemory(key);
+            if (entry != null) {
+                return replayOrReject(entry, idempotencyKey, fingerprint);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        Optional<IdempotencyRecord> stored = idempotencyRecordRepo.findById(key)
+                .filter(record -> !isExpired(record.getCreatedAt()));
+        if (stored.isEmpty()) {
+            return null;
+        }
+        IdempotencyRecord record = stored.get();
+        if (!record.getRequestFingerprint().equals(fingerprint)) {
+            throw new IdempotencyKeyMismatchException(idempotencyKey);
+        }
+        return replay(record.getStatusCode(), deserialize(record.getResponseBody()));
+    }
+
+    /** The cached or not yet written entry for {@code key}, dropping it if expired; caller holds lock. */
+    private StoredResponse inMemory(String key) {
+        StoredResponse entry = cache.get(key);
+        if (entry == null) {
+            entry = unwritten.get(key);
+        }
+        if (entry != null && entry.response != null && isExpired(entry.createdAt)) {
+            cache.remove(key, entry);
+            unwritten.remove(key, entry);
+            return null;
+        }
+        return entry;
+    }
+
+    /**
+     * Evicts least recently used completed entries until a new key fits. Their rows are
+     * written, or they are still held in {@code unwritten}. Returns false if the cache is full
+     * of requests still in progress.
+     */
+    private boolean makeRoom() {
+        Iterator<StoredResponse> it = cache.values().iterator();
+        while (cache.size() >= maxEntries && it.hasNext()) {
+            if (it.next().response != null) {
+                it.remove();
+            }
+        }
+        return cache.size() < maxEntries;
+    }
+
+    private <T> ResponseEntity<ApiResponse<T>> replayOrReject(StoredResponse entry, String idempotencyKey, String fingerprint) {
+        if (!entry.fingerprint.equals(fingerprint)) {
+            throw new IdempotencyKeyMismatchException(idempotencyKey);
+        }
+        if (entry.response == null) {
+            throw new IdempotencyKeyInProgressException(idempotencyKey);
+        }
+        return replay(entry.status, entry.response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> ResponseEntity<ApiResponse<T>> replay(int status, ApiResponse<?> body) {
+        return ResponseEntity.status(HttpStatus.valueOf(status))
+                .header(REPLAY_HEADER, "true")
+                .body((ApiResponse<T>) body);
+    }
+
+    /**
+     * Writes a completed entry's row. Once the database takes writes again, entries whose
+     * own write failed earlier are retried as well.
+     */
+    private void write(StoredResponse entry) {
+        boolean written = persist(List.of(entry));
+        lock.lock();
+        try {
+            if (written) {
+                unwritten.remove(entry.key, entry);
+            } else {
+                entry.writeFailed = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (written) {
+            retryFailedWrites();
+        }
+    }
+
+    /**
+     * Writes entries whose own write failed, one retry at a time. Entries leave
+     * {@code unwritten} only once written, so a replay in the meantime still finds them.
+     */
+    private void retryFailedWrites() {
+        List<StoredResponse> toPersist;
+        lock.lock();
+        try {
+            if (retrying) {
+                return;
+            }
+            toPersist = unwritten.values().stream().filter(entry -> entry.writeFailed).toList();
+            if (toPersist.isEmpty()) {
+                return;
+            }
+            retrying = true;
+        } finally {
+            lock.unlock();
+        }
+        boolean persisted = false;
+        try {
+            persisted = persist(toPersist);
+        } finally {
+            lock.lock();
+            try {
+                if (persisted) {
+                    toPersist.forEach(entry -> unwritten.remove(entry.key, entry));
+                }
+                retrying = false;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private boolean persist(List<StoredResponse> entries) {
+        List<IdempotencyRecord> records = new ArrayList<>(entries.size());
+        for (StoredResponse entry : entries) {
+            if (!isExpired(entry.createdAt)) {
+                records.add(new IdempotencyRecord(entry.key, entry.fingerprint, entry.status,
+                        serialize(entry.response), entry.createdAt));
+            }
+        }
+        try {
+            idempotencyRecordRepo.saveAll(records);
+            return true;
+        } catch (RuntimeException ex) {
+            log.error("Failed to persist {} idempotency keys, keeping them in memory", records.size(), ex);
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${wallet.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        lock.lock();
+        try {
+            cache.values().removeIf(entry -> entry.response != null && isExpired(entry.createdAt));
+            unwritten.values().removeIf(entry -> isExpired(entry.createdAt));
+        } finally {
+            lock.unlock();
+        }
+        int purged = idempotencyRecordRepo.deleteCreatedBefore(LocalDateTime.now().minus(ttl));
+        if (purged > 0) {
+            log.info("Purged {} expired idempotency records", purged);
+        }
+        retryFailedWrites();
+    }
+
+    /**
+     * Makes a last attempt to write rows whose write failed. Every other completed key is
+     * already in the table; keys that still fail here are lost with the process.
+     */
+    @PreDestroy
+    void writeUnwritten() {
+        retryFailedWrites();
+    }
+
+    private boolean isExpired(LocalDateTime createdAt) {
+        return createdAt.plus(ttl).isBefore(LocalDateTime.now());
+    }
+
+    private String fingerprint(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(objectMapper.writeValueAsString(request).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Unable to fingerprint request", ex);
+        }
+    }
+
+    private String serialize(ApiResponse<?> body) {
+        try {
+            return objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to store idempotent response", ex);
+        }
+    }
+
+    private ApiResponse<?> deserialize(String body) {
+        try {
+            return objectMapper.readValue(body, ApiResponse.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to read stored idempotent response", ex);
+        }
+    }
+
+    private static final class StoredResponse {
+        private final String key;
+        private final String fingerprint;
+        // Null while the original request is still running; guarded by lock
+        private ApiResponse<?> response;
+        private int status;
+        private LocalDateTime createdAt;
+        private boolean writeFailed;
+
+        private StoredResponse(String key, String fingerprint) {
+            this.key = key;
+            this.fingerprint = fingerprint;
+        }
+    }
+}
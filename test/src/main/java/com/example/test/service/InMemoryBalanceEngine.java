@@ -0,0 +1,240 @@
+package com.example.test.service;
+
+import com.example.test.exception.AccountNotFoundException;
+import com.example.test.exception.InsufficientBalanceException;
+import com.example.test.exception.SameAccountTransferException;
+import com.example.test.model.Account;
+import com.example.test.model.Money;
+import com.example.test.repo.AccountRepo;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * Keeps hot wallet balances in memory so transfers and fundings check and reserve funds
+ * under striped in-process locks instead of reading wallet rows under database locks.
+ *
+ * The database stays the record of every balance: callers apply each movement to
+ * wallet_balance with {@link #writeDeltas} in the transaction that writes its ledger entries,
+ * so balance rows and ledger commit or roll back together and a restart reloads exact
+ * balances. Amounts and balances are {@link Money} minor units, so the in-memory check is
+ * plain long arithmetic.
+ *
+ * Enabled with {@code wallet.balance-engine.enabled=true}. While enabled, every balance
+ * mutation must go through this engine, and only one application node may run it.
+ *
+ * Transactional callers use {@link #debit} and {@link #settle} (or {@link #reserveCredit}
+ * and {@link #settleCredit} for fundings) so that nothing spendable appears before their
+ * transaction commits: the source is debited up front, and the destination is credited
+ * after commit, or the source refunded after a rollback. An account with a movement in
+ * flight stays loaded; any other is dropped once unused for
+ * {@code wallet.balance-engine.idle-eviction} and reloaded from its row on next use.
+ */
+@Component
+@ConditionalOnProperty(name = "wallet.balance-engine.enabled", havingValue = "true")
+@RequiredArgsConstructor
+@Slf4j
+public class InMemoryBalanceEngine {
+
+    private final AccountRepo accountRepo;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${wallet.balance-engine.lock-stripes:1024}")
+    private int lockStripes;
+
+    @Value("${wallet.balance-engine.idle-eviction:10m}")
+    private Duration idleEviction;
+
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private ReentrantLock[] locks;
+    private int stripeMask;
+
+    @PostConstruct
+    void initLocks() {
+        int size = Integer.highestOneBit(Math.max(1, lockStripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        stripeMask = size - 1;
+        log.info("In-memory balance engine enabled with {} lock stripes", size);
+    }
+
+    /**
+     * Takes {@code amount} from the source of a transfer to {@code toAccountNumber}, checking
+     * both accounts, and returns the new source balance. The caller must later
+     * {@link #settle} the transfer, whether its transaction commits or not.
+     */
+    public long debit(String fromAccountNumber, String toAccountNumber, long amount) {
+        slotFor(fromAccountNumber);
+        if (fromAccountNumber.equals(toAccountNumber)) {
+            throw new SameAccountTransferException();
+        }
+        reserveCredit(toAccountNumber, amount);
+        try {
+            return withSlot(fromAccountNumber, from -> {
+                if (from.amount < amount) {
+                    throw new InsufficientBalanceException(Money.toDecimal(from.amount), Money.toDecimal(amount));
+                }
+                from.amount -= amount;
+                from.inFlight++;
+                return from.amount;
+            });
+        } catch (RuntimeException ex) {
+            settleCredit(toAccountNumber, amount, false);
+            throw ex;
+        }
+    }
+
+    /** Completes a {@link #debit}: credits the destination if its transaction committed, else refunds the source. */
+    public void settle(String fromAccountNumber, String toAccountNumber, long amount, boolean committed) {
+        settleCredit(toAccountNumber, amount, committed);
+        withSlot(fromAccountNumber, from -> {
+            if (!committed) {
+                from.amount += amount;
+            }
+            from.inFlight--;
+            return from.amount;
+        });
+    }
+
+    /**
+     * Checks that {@code amount} can be credited to the account and keeps the account loaded
+     * until {@link #settleCredit} is called for it.
+     */
+    public void reserveCredit(String accountNumber, long amount) {
+        withSlot(accountNumber, slot -> {
+            slot.incoming = Money.add(slot.incoming, amount);
+            Money.add(slot.amount, slot.incoming);
+            slot.inFlight++;
+            return slot.amount;
+        });
+    }
+
+    /** Applies a reserved credit if its transaction committed and returns the balance. */
+    public long settleCredit(String accountNumber, long amount, boolean committed) {
+        return withSlot(accountNumber, slot -> {
+            slot.incoming -= amount;
+            if (committed) {
+                slot.amount += amount;
+            }
+            slot.inFlight--;
+            return slot.amount;
+        });
+    }
+
+    public long balanceOf(String accountNumber) {
+        return withSlot(accountNumber, slot -> slot.amount);
+    }
+
+    /**
+     * Adds each account's delta to its wallet_balance row in the caller's transaction. Rows
+     * are updated in ascending id order, so concurrent writers wait for each other instead of
+     * deadlocking. Deltas rather than the in-memory balances, which may include debits of
+     * transactions that have not committed yet. Every account must have a movement in flight.
+     */
+    public void writeDeltas(Map<String, Long> deltas) {
+        TreeMap<Long, Long> byWallet = new TreeMap<>();
+        deltas.forEach((accountNumber, delta) -> {
+            if (delta != 0) {
+                byWallet.merge(slots.get(accountNumber).walletBalanceId, delta, Long::sum);
+            }
+        });
+        if (byWallet.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(byWallet.size());
+        byWallet.forEach((walletBalanceId, delta) -> rows.add(new Object[]{Money.toDecimal(delta), walletBalanceId}));
+        jdbcTemplate.batchUpdate("UPDATE wallet_balance SET amount = amount + ?, version = version + 1 WHERE id = ?", rows);
+    }
+
+    /** Drops accounts that have nothing in flight and have not been used for the idle period. */
+    @Scheduled(fixedDelayString = "${wallet.balance-engine.eviction-interval-ms:60000}")
+    public void evictIdle() {
+        long cutoff = System.nanoTime() - idleEviction.toNanos();
+        int evicted = 0;
+        for (Slot slot : slots.values()) {
+            ReentrantLock lock = locks[stripeOf(slot.accountNumber)];
+            lock.lock();
+            try {
+                if (slot.inFlight == 0 && slot.lastUsed - cutoff < 0) {
+                    slot.evicted = true;
+                    slots.remove(slot.accountNumber, slot);
+                    evicted++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted {} idle balances, {} still loaded", evicted, slots.size());
+        }
+    }
+
+    /** Runs {@code action} on the account's loaded slot under its stripe lock. */
+    private long withSlot(String accountNumber, ToLongFunction<Slot> action) {
+        ReentrantLock lock = locks[stripeOf(accountNumber)];
+        while (true) {
+            Slot slot = slotFor(accountNumber);
+            lock.lock();
+            try {
+                // Evicted between the lookup and the lock: load it again
+                if (!slot.evicted) {
+                    slot.lastUsed = System.nanoTime();
+                    return action.applyAsLong(slot);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private Slot slotFor(String accountNumber) {
+        Slot slot = slots.get(accountNumber);
+        if (slot != null) {
+            return slot;
+        }
+        Account account = accountRepo.findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        Slot loaded = new Slot(accountNumber, account.getWalletBalance().getId(),
+                Money.toMinor(account.getWalletBalance().getAmount()));
+        Slot existing = slots.putIfAbsent(accountNumber, loaded);
+        return existing != null ? existing : loaded;
+    }
+
+    private int stripeOf(String accountNumber) {
+        int h = accountNumber.hashCode();
+        return (h ^ (h >>> 16)) & stripeMask;
+    }
+
+    private static final class Slot {
+        private final String accountNumber;
+        private final long walletBalanceId;
+        // All guarded by the stripe lock for accountNumber; amounts in minor units
+        private long amount;
+        private long incoming;
+        private int inFlight;
+        private long lastUsed = System.nanoTime();
+        private boolean evicted;
+
+        private Slot(String accountNumber, long walletBalanceId, long amount) {
+            this.accountNumber = accountNumber;
+            this.walletBalanceId = walletBalanceId;
+            this.amount = amount;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.test.service;
+
+import com.example.test.dto.BalanceChangeEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Hands relayed events to in-process subscribers, such as the GET /events SSE streams.
+ *
+ * The relay thread only appends to each subscriber's bounded queue; a virtual thread per
+ * subscriber drains it, so a slow client delays nobody but itself. A subscriber that falls
+ * more than wallet.outbox.subscriber-buffer events behind, or whose consumer throws, is
+ * dropped and its owner told through the {@code onDrop} callback.
+ */
+@Component
+@Slf4j
+public class InProcessEventSink implements EventSink {
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final int bufferSize;
+
+    public InProcessEventSink(@Value("${wallet.outbox.subscriber-buffer:1000}") int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+
+    /** Registers {@code consumer} for events relayed from now on; run the result to unsubscribe. */
+    public Runnable subscribe(Consumer<BalanceChangeEvent> consumer) {
+        return subscribe(consumer, () -> { });
+    }
+
+    /**
+     * Like {@link #subscribe(Consumer)}; {@code onDrop} runs once if the subscriber is dropped
+     * for falling behind or failing, but not when it unsubscribes.
+     */
+    public Runnable subscribe(Consumer<BalanceChangeEvent> consumer, Runnable onDrop) {
+        Subscriber subscriber = new Subscriber(consumer, onDrop);
+        subscribers.add(subscriber);
+        subscriber.thread.start();
+        return subscriber::close;
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void publish(List<BalanceChangeEvent> events) {
+        for (Subscriber subscriber : subscribers) {
+            for (BalanceChangeEvent event : events) {
+                if (!subscriber.queue.offer(event)) {
+                    log.debug("Dropped event subscriber more than {} events behind", bufferSize);
+                    subscriber.drop();
+                    break;
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        subscribers.forEach(Subscriber::close);
+    }
+
+    private final class Subscriber {
+        final Consumer<BalanceChangeEvent> consumer;
+        final Runnable onDrop;
+        final BlockingQueue<BalanceChangeEvent> queue = new ArrayBlockingQueue<>(bufferSize);
+        final Thread thread = Thread.ofVirtual().name("event-subscriber").unstarted(this::deliver);
+
+        Subscriber(Consumer<BalanceChangeEvent> consumer, Runnable onDrop) {
+            this.consumer = consumer;
+            this.onDrop = onDrop;
+        }
+
+        void deliver() {
+            try {
+                while (!Thread.currentThread().isInterrupted()) {
+                    consumer.accept(queue.take());
+                }
+            } catch (InterruptedException ex) {
+                // Unsubscribed or dropped
+            } catch (RuntimeException ex) {
+                log.debug("Dropped event subscriber: {}", ex.getMessage());
+                drop();
+            }
+        }
+
+        void close() {
+            subscribers.remove(this);
+            thread.interrupt();
+        }
+
+        void drop() {
+            if (subscribers.remove(this)) {
+                thread.interrupt();
+                onDrop.run();
+            }
+        }
+    }
+}
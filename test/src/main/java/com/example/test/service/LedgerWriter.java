@@ -0,0 +1,43 @@
+package com.example.test.service;
+
+import com.example.test.model.LedgerEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Writes ledger entries for the append-only ledger. Must be called inside the transaction
+ * that changes the balance: the JDBC batch joins it, so ledger and wallet_balance always
+ * commit or roll back together. All entries of one transaction, e.g. a whole batch
+ * transfer, go out as a single JDBC batch.
+ *
+ * Entries are not group-committed across requests: a shared flush would commit one request's
+ * entries apart from its balance change. LedgerWriteBenchmark shows the per-transaction insert
+ * adds well under a tenth to a transfer's latency; batching across transfers is what the batch
+ * and async transfer endpoints do, in one transaction.
+ */
+@Component
+@RequiredArgsConstructor
+public class LedgerWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO ledger_entry " +
+            "(reference, account_number, counterparty_account, type, direction, amount, created_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void append(List<LedgerEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setString(1, entry.getReference());
+            ps.setString(2, entry.getAccountNumber());
+            ps.setString(3, entry.getCounterpartyAccount());
+            ps.setString(4, entry.getType().name());
+            ps.setString(5, entry.getDirection().name());
+            ps.setBigDecimal(6, entry.getAmount());
+            ps.setTimestamp(7, Timestamp.valueOf(entry.getCreatedAt()));
+        });
+    }
+}
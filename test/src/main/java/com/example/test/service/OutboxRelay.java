@@ -0,0 +1,111 @@
+package com.example.test.service;
+
+import com.example.test.dto.BalanceChangeEvent;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Drains outbox_event to every {@link EventSink}, oldest first, in batches of
+ * {@code wallet.outbox.max-batch}, and deletes each batch once all sinks have accepted it.
+ * Downstream systems subscribe to the sinks instead of polling the wallet tables.
+ *
+ * Rows are deleted by id, never by range: a transaction that took a lower id but committed
+ * after a batch was read is picked up by the next run. A row whose payload cannot be read is
+ * logged in full and deleted with its batch, so it cannot hold up the rows behind it.
+ * Meant to run on a single node.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+
+    private static final String SELECT_SQL = "SELECT id, payload FROM outbox_event ORDER BY id LIMIT ?";
+    private static final String DELETE_SQL = "DELETE FROM outbox_event WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final List<EventSink> sinks;
+    private final int maxBatch;
+    private final Counter published;
+    private final Counter failures;
+    private final Counter unreadable;
+
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       ObjectMapper objectMapper,
+                       List<EventSink> sinks,
+                       MeterRegistry meterRegistry,
+                       @Value("${wallet.outbox.max-batch:500}") int maxBatch) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.sinks = sinks;
+        this.maxBatch = maxBatch;
+        this.published = Counter.builder("wallet.outbox.published")
+                .description("Balance change events relayed to the sinks")
+                .register(meterRegistry);
+        this.failures = Counter.builder("wallet.outbox.failures")
+                .description("Relay batches a sink rejected; they are retried on the next run")
+                .register(meterRegistry);
+        this.unreadable = Counter.builder("wallet.outbox.unreadable")
+                .description("Outbox rows dropped because their payload could not be read")
+                .register(meterRegistry);
+    }
+
+    /** Relays until the outbox is empty or a sink fails; returns the number of events relayed. */
+    @Scheduled(fixedDelayString = "${wallet.outbox.poll-interval-ms:200}")
+    public synchronized int relay() {
+        int relayed = 0;
+        while (true) {
+            List<Long> ids = new ArrayList<>(maxBatch);
+            List<BalanceChangeEvent> events = new ArrayList<>(maxBatch);
+            jdbcTemplate.query(SELECT_SQL, rs -> {
+                long id = rs.getLong(1);
+                ids.add(id);
+                BalanceChangeEvent event = fromJson(id, rs.getString(2));
+                if (event != null) {
+                    event.setEventId(id);
+                    events.add(event);
+                }
+            }, maxBatch);
+            if (ids.isEmpty()) {
+                return relayed;
+            }
+            try {
+                for (EventSink sink : sinks) {
+                    if (!events.isEmpty()) {
+                        sink.publish(events);
+                    }
+                }
+            } catch (Exception ex) {
+                failures.increment();
+                log.error("Failed to relay {} outbox events, will retry", events.size(), ex);
+                return relayed;
+            }
+            jdbcTemplate.batchUpdate(DELETE_SQL, ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+            published.increment(events.size());
+            relayed += events.size();
+            if (ids.size() < maxBatch) {
+                return relayed;
+            }
+        }
+    }
+
+    /** Returns null for a payload that cannot be read, after logging it. */
+    private BalanceChangeEvent fromJson(long id, String payload) {
+        try {
+            return objectMapper.readValue(payload, BalanceChangeEvent.class);
+        } catch (JsonProcessingException ex) {
+            unreadable.increment();
+            log.error("Dropping outbox event {} with unreadable payload: {}", id, payload, ex);
+            return null;
+        }
+    }
+}
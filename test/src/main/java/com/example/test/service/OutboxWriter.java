@@ -0,0 +1,51 @@
+package com.example.test.service;
+
+import com.example.test.dto.BalanceChangeEvent;
+import com.example.test.model.LedgerEntry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Writes the outbox rows of a balance change. Must be called inside the transaction that
+ * changes the balance: the JDBC batch joins it, so the events commit or roll back with it.
+ */
+@Component
+@RequiredArgsConstructor
+public class OutboxWriter {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO outbox_event (aggregate_id, event_type, payload, created_at) VALUES (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    public void append(List<LedgerEntry> entries) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            BalanceChangeEvent event = toEvent(entry);
+            ps.setString(1, event.getAccountNumber());
+            ps.setString(2, event.getType());
+            ps.setString(3, toJson(event));
+            ps.setTimestamp(4, Timestamp.valueOf(entry.getCreatedAt()));
+        });
+    }
+
+    static BalanceChangeEvent toEvent(LedgerEntry entry) {
+        return new BalanceChangeEvent(null, entry.getType().name() + "_" + entry.getDirection().name(),
+                entry.getAccountNumber(), entry.getReference(), entry.getAmount(), entry.getCounterpartyAccount(),
+                entry.getCreatedAt());
+    }
+
+    private String toJson(BalanceChangeEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot serialise balance change event", ex);
+        }
+    }
+}
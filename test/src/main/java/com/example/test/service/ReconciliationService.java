@@ -0,0 +1,234 @@
+package com.example.test.service;
+
+import com.example.test.dto.ReconciliationMismatchDTO;
+import com.example.test.dto.ReconciliationReportDTO;
+import com.example.test.exception.ReconciliationInProgressException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks every account's stored balance (wallet row plus balance shards) against its ledger
+ * balance (latest balance snapshot plus the ledger entries after it).
+ *
+ * The account table is split into id ranges of {@code chunk-size} that a fork-join pool scans
+ * in parallel. Each range is one read-only, cursor-streamed query; nothing is locked, so the
+ * run can go against the live database. Every balance change commits its wallet or shard rows
+ * together with its ledger entries, and a range's stored and ledger balances come from the
+ * same statement, so any difference found is a real one.
+ */
+@Component
+@Slf4j
+public class ReconciliationService {
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String BALANCES_SQL = "SELECT a.account_number, " +
+            "w.amount + COALESCE((SELECT SUM(s.amount) FROM balance_shard s " +
+            "WHERE s.account_number = a.account_number), 0), " +
+            "COALESCE(b.balance, 0) + COALESCE((SELECT SUM(CASE WHEN l.direction = 'CREDIT' " +
+            "THEN l.amount ELSE -l.amount END) FROM ledger_entry l " +
+            "WHERE l.account_number = a.account_number AND l.created_at > COALESCE(b.as_of, ?)), 0) " +
+            "FROM account a JOIN wallet_balance w ON w.id = a.wallet_balance_id " +
+            "LEFT JOIN balance_snapshot b ON b.account_number = a.account_number AND b.as_of = " +
+            "(SELECT MAX(p.as_of) FROM balance_snapshot p WHERE p.account_number = a.account_number) ";
+    private static final String RANGE_SQL = BALANCES_SQL + "WHERE a.id >= ? AND a.id < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ForkJoinPool pool;
+    private final ExecutorService runner;
+    private final Timer runTimer;
+    private final int chunkSize;
+    private final int maxReported;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong lastAccountsChecked = new AtomicLong();
+    private final AtomicLong lastMismatches = new AtomicLong();
+    private volatile ReconciliationReportDTO lastReport;
+
+    public ReconciliationService(JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${wallet.reconciliation.chunk-size:10000}") int chunkSize,
+                                 @Value("${wallet.reconciliation.parallelism:4}") int parallelism,
+                                 @Value("${wallet.reconciliation.fetch-size:1000}") int fetchSize,
+                                 @Value("${wallet.reconciliation.max-reported:1000}") int maxReported) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorTemplate.setFetchSize(fetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.pool = new ForkJoinPool(parallelism);
+        this.runner = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.runTimer = Timer.builder("wallet.reconciliation.run").register(meterRegistry);
+        Gauge.builder("wallet.reconciliation.accounts", lastAccountsChecked, AtomicLong::get)
+                .description("Accounts checked by the last completed reconciliation")
+                .register(meterRegistry);
+        Gauge.builder("wallet.reconciliation.mismatches", lastMismatches, AtomicLong::get)
+                .description("Accounts whose stored balance disagreed with the ledger in the last completed reconciliation")
+                .register(meterRegistry);
+        this.chunkSize = chunkSize;
+        this.maxReported = maxReported;
+    }
+
+    @PreDestroy
+    void stop() {
+        runner.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    /**
+     * Hands the run to the reconciliation thread and returns, so the scan never holds up the
+     * shared scheduler thread (outbox relay, hold expiry, engine eviction).
+     */
+    @Scheduled(cron = "${wallet.reconciliation.cron:0 30 0 * * *}")
+    public void scheduledReconcile() {
+        try {
+            start();
+        } catch (ReconciliationInProgressException ex) {
+            log.info("Skipped scheduled reconciliation: {}", ex.getMessage());
+        }
+    }
+
+    /** Starts a run in the background and returns its RUNNING report. */
+    public ReconciliationReportDTO start() {
+        begin();
+        ReconciliationReportDTO report = lastReport;
+        runner.submit(this::runAndRelease);
+        return report;
+    }
+
+    /** Runs a reconciliation in the calling thread and returns its report. */
+    public ReconciliationReportDTO reconcile() {
+        begin();
+        return runAndRelease();
+    }
+
+    /** Report of the running or last finished reconciliation, or null if none has run yet. */
+    public ReconciliationReportDTO lastReport() {
+        return lastReport;
+    }
+
+    private void begin() {
+        if (!running.compareAndSet(false, true)) {
+            throw new ReconciliationInProgressException();
+        }
+        lastReport = new ReconciliationReportDTO(ReconciliationReportDTO.Status.RUNNING, LocalDateTime.now(),
+                null, 0, 0, List.of(), null);
+    }
+
+    private ReconciliationReportDTO runAndRelease() {
+        LocalDateTime startedAt = lastReport.getStartedAt();
+        long started = System.nanoTime();
+        try {
+            Partition result = scanAll();
+            List<ReconciliationMismatchDTO> mismatches = result.mismatches;
+            runTimer.record(Duration.ofNanos(System.nanoTime() - started));
+            lastAccountsChecked.set(result.accountsChecked);
+            lastMismatches.set(mismatches.size());
+            if (!mismatches.isEmpty()) {
+                log.warn("Reconciliation found {} of {} accounts out of line with the ledger",
+                        mismatches.size(), result.accountsChecked);
+            }
+            lastReport = new ReconciliationReportDTO(ReconciliationReportDTO.Status.COMPLETED, startedAt,
+                    LocalDateTime.now(), result.accountsChecked, mismatches.size(),
+                    List.copyOf(mismatches.subList(0, Math.min(mismatches.size(), maxReported))), null);
+        } catch (RuntimeException ex) {
+            log.error("Reconciliation failed", ex);
+            lastReport = new ReconciliationReportDTO(ReconciliationReportDTO.Status.FAILED, startedAt,
+                    LocalDateTime.now(), 0, 0, List.of(), ex.getMessage());
+        } finally {
+            running.set(false);
+        }
+        return lastReport;
+    }
+
+    private Partition scanAll() {
+        Map<String, Object> idRange = jdbcTemplate.queryForMap("SELECT MIN(id) AS lo, MAX(id) AS hi FROM account");
+        if (idRange.get("lo") == null) {
+            return new Partition(0, List.of());
+        }
+        long lo = ((Number) idRange.get("lo")).longValue();
+        long hi = ((Number) idRange.get("hi")).longValue();
+        return pool.invoke(new RangeTask(lo, hi + 1));
+    }
+
+    Partition scanRange(long fromId, long toId) {
+        List<ReconciliationMismatchDTO> mismatches = new ArrayList<>();
+        long[] checked = new long[1];
+        readOnlyTransaction.executeWithoutResult(status -> cursorTemplate.query(RANGE_SQL, rs -> {
+            checked[0]++;
+            collect(rs.getString(1), rs.getBigDecimal(2), rs.getBigDecimal(3), mismatches);
+        }, Timestamp.valueOf(BEGINNING), fromId, toId));
+        return new Partition(checked[0], mismatches);
+    }
+
+    private static void collect(String accountNumber, BigDecimal stored, BigDecimal ledger,
+                                List<ReconciliationMismatchDTO> mismatches) {
+        if (stored.compareTo(ledger) != 0) {
+            mismatches.add(new ReconciliationMismatchDTO(accountNumber, stored, ledger, stored.subtract(ledger)));
+        }
+    }
+
+    record Partition(long accountsChecked, List<ReconciliationMismatchDTO> mismatches) {
+
+        Partition merge(Partition other) {
+            List<ReconciliationMismatchDTO> merged = new ArrayList<>(mismatches.size() + other.mismatches.size());
+            merged.addAll(mismatches);
+            merged.addAll(other.mismatches);
+            return new Partition(accountsChecked + other.accountsChecked, merged);
+        }
+    }
+
+    /** Halves its id range until it is at most one chunk, then scans it. */
+    private final class RangeTask extends RecursiveTask<Partition> {
+
+        private final long fromId;
+        private final long toId;
+
+        RangeTask(long fromId, long toId) {
+            this.fromId = fromId;
+            this.toId = toId;
+        }
+
+        @Override
+        protected Partition compute() {
+            if (toId - fromId <= chunkSize) {
+                return scanRange(fromId, toId);
+            }
+            long middle = fromId + (toId - fromId) / 2;
+            RangeTask left = new RangeTask(fromId, middle);
+            left.fork();
+            Partition right = new RangeTask(middle, toId).compute();
+            return left.join().merge(right);
+        }
+    }
+}
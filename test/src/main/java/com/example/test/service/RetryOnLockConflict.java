@@ -0,0 +1,29 @@
+package com.example.test.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Retries a method that fails on a lock timeout or an optimistic version conflict, with
+ * jittered exponential backoff, as configured by {@code wallet.transfer.lock-retry.*}.
+ * Put it only on methods that start their own transaction: a retry inside a joined one
+ * would run in a transaction already marked rollback-only.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Retryable(retryFor = {PessimisticLockingFailureException.class, OptimisticLockingFailureException.class},
+        maxAttemptsExpression = "${wallet.transfer.lock-retry.max-attempts:3}",
+        backoff = @Backoff(delayExpression = "${wallet.transfer.lock-retry.delay-ms:20}",
+                maxDelayExpression = "${wallet.transfer.lock-retry.max-delay-ms:500}",
+                multiplier = 2, random = true))
+public @interface RetryOnLockConflict {
+}
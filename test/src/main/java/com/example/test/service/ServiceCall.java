@@ -1,15 +1,46 @@
 package com.example.test.service;
 
+import com.example.test.dto.AccountBalancesDTO;
+import com.example.test.dto.AvailableBalanceDTO;
+import com.example.test.dto.BalanceResponseDTO;
+import com.example.test.dto.BatchTransferItemResult;
+import com.example.test.dto.BulkUserResultDTO;
 import com.example.test.dto.DoTransDto;
 import com.example.test.dto.FundAccountDto;
+import com.example.test.dto.FxTransferDto;
+import com.example.test.dto.FxTransferResultDTO;
+import com.example.test.dto.HoldDTO;
+import com.example.test.dto.HoldRequestDto;
+import com.example.test.dto.UserResponseDTO;
 import com.example.test.model.User;
 
+import java.math.BigDecimal;
+import java.util.List;
+
 public interface ServiceCall {
 
-    void createUserAndAccount(User user);
+    UserResponseDTO createUserAndAccount(User user);
+
+    UserResponseDTO getUser(Long id);
+
+    BulkUserResultDTO createUsersAndAccounts(List<User> users);
+
+    BalanceResponseDTO doIntraTransfer(DoTransDto request);
+    BalanceResponseDTO fundAccount(FundAccountDto request);
+
+    List<BatchTransferItemResult> doIntraTransferBatch(List<DoTransDto> transfers);
+    /** As doIntraTransferBatch, inside the caller's transaction and without lock retries. */
+    List<BatchTransferItemResult> settleTransferBatch(List<DoTransDto> transfers);
+
+    FxTransferResultDTO doFxTransfer(FxTransferDto request);
+
+    AccountBalancesDTO balancesByCurrency(String accountNumber);
+
+    HoldDTO authorizeHold(HoldRequestDto request);
+    HoldDTO captureHold(String reference, BigDecimal amount);
+    HoldDTO releaseHold(String reference);
 
-    void doIntraTransfer(DoTransDto request);
-    void fundAccount(FundAccountDto request);
+    AvailableBalanceDTO availableBalance(String accountNumber);
 
 
 }
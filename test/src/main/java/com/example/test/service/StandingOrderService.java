@@ -0,0 +1,343 @@
+package com.example.test.service;
+
+import com.example.test.dto.BatchTransferItemResult;
+import com.example.test.dto.DoTransDto;
+import com.example.test.dto.StandingOrderDTO;
+import com.example.test.dto.StandingOrderRequestDto;
+import com.example.test.exception.AccountNotFoundException;
+import com.example.test.exception.InvalidAmountException;
+import com.example.test.exception.InvalidStandingOrderException;
+import com.example.test.exception.SameAccountTransferException;
+import com.example.test.exception.StandingOrderNotFoundException;
+import com.example.test.model.Money;
+import com.example.test.model.StandingOrder;
+import com.example.test.repo.AccountRepo;
+import com.example.test.repo.StandingOrderRepo;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Scheduled and recurring transfers run by the wallet itself instead of an external cron.
+ *
+ * Each poll takes at most {@code max-per-poll} due orders, oldest first, so a midnight peak
+ * drains at a steady rate over the following polls; on top of that each order runs a fixed
+ * offset of up to {@code spread} after its nominal time. The due orders are split into
+ * {@code partitions} by source account and the partitions run on a pool of
+ * {@code parallelism} workers. Within a partition orders are grouped into batches of
+ * {@code batch-size}, ordered by source account and schedule, and settled with one
+ * {@link ServiceCall#settleTransferBatch} call each, so every account's orders run in order
+ * and no two workers debit the same account.
+ *
+ * A batch and the advance of its orders to their next occurrence commit together: a failed
+ * batch leaves its orders due for the next poll and a committed one never runs them again.
+ * Each batch is its own transaction. It locks its orders' rows first and leaves out any order
+ * cancelled or run since it was read, and a lock conflict reruns the whole batch (up to
+ * {@code wallet.transfer.lock-retry.max-attempts} times) in a fresh transaction.
+ * An item that fails (e.g. insufficient balance) is recorded on its order and the order moves
+ * on to its next occurrence. Missed occurrences are run one by one. Meant to run on a
+ * single node.
+ */
+@Component
+@Slf4j
+public class StandingOrderService {
+
+    private static final String ADVANCE_SQL = "UPDATE standing_order SET status = ?, scheduled_at = ?, " +
+            "next_run_at = ?, last_run_at = ?, last_reference = ?, last_error = ?, failure_count = failure_count + ? " +
+            "WHERE id = ? AND status = 'ACTIVE' AND next_run_at = ?";
+
+    private final StandingOrderRepo standingOrderRepo;
+    private final AccountRepo accountRepo;
+    private final ServiceCall serviceCall;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RetryTemplate lockRetry;
+    private final Timer pollTimer;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final int maxPerPoll;
+    private final int partitions;
+    private final int parallelism;
+    private final int batchSize;
+    private final long spreadMillis;
+    private final AtomicBoolean polling = new AtomicBoolean();
+
+    private ExecutorService executor;
+    private ExecutorService runner;
+
+    public StandingOrderService(StandingOrderRepo standingOrderRepo,
+                                AccountRepo accountRepo,
+                                ServiceCall serviceCall,
+                                JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${wallet.standing-orders.max-per-poll:5000}") int maxPerPoll,
+                                @Value("${wallet.standing-orders.partitions:8}") int partitions,
+                                @Value("${wallet.standing-orders.parallelism:4}") int parallelism,
+                                @Value("${wallet.standing-orders.batch-size:200}") int batchSize,
+                                @Value("${wallet.standing-orders.spread:10m}") Duration spread,
+                                @Value("${wallet.transfer.lock-retry.max-attempts:3}") int lockRetryAttempts,
+                                @Value("${wallet.transfer.lock-retry.delay-ms:20}") long lockRetryDelayMs,
+                                @Value("${wallet.transfer.lock-retry.max-delay-ms:500}") long lockRetryMaxDelayMs) {
+        this.standingOrderRepo = standingOrderRepo;
+        this.accountRepo = accountRepo;
+        this.serviceCall = serviceCall;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lockRetry = RetryTemplate.builder()
+                .maxAttempts(lockRetryAttempts)
+                .exponentialBackoff(lockRetryDelayMs, 2, lockRetryMaxDelayMs, true)
+                .retryOn(ConcurrencyFailureException.class)
+                .build();
+        this.pollTimer = Timer.builder("wallet.standing-orders.poll").register(meterRegistry);
+        this.succeeded = Counter.builder("wallet.standing-orders.executed").tag("result", "success")
+                .register(meterRegistry);
+        this.failed = Counter.builder("wallet.standing-orders.executed").tag("result", "failed")
+                .register(meterRegistry);
+        this.maxPerPoll = maxPerPoll;
+        this.partitions = partitions;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.spreadMillis = spread.toMillis();
+    }
+
+    @PostConstruct
+    void start() {
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "standing-order-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        runner = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "standing-order-poll");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void stop() {
+        runner.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    public StandingOrderDTO create(StandingOrderRequestDto request) {
+        if (request.getAmount() == null || request.getAmount().signum() <= 0) {
+            throw new InvalidAmountException("Transfer amount must be greater than zero");
+        }
+        Money.toMinor(request.getAmount());
+        if (request.getFrequency() == null) {
+            throw new InvalidStandingOrderException("frequency is required");
+        }
+        for (String accountNumber : new String[]{request.getFromAccount(), request.getToAccount()}) {
+            if (accountNumber == null || !accountRepo.existsByAccountNumber(accountNumber)) {
+                throw new AccountNotFoundException(accountNumber);
+            }
+        }
+        if (request.getFromAccount().equals(request.getToAccount())) {
+            throw new SameAccountTransferException();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime first = request.getFirstRunAt() != null ? request.getFirstRunAt() : now;
+        if (request.getEndAt() != null && first.isAfter(request.getEndAt())) {
+            throw new InvalidStandingOrderException("firstRunAt must not be after endAt");
+        }
+        String reference = "SO" + UUID.randomUUID().toString().replace("-", "").substring(0, 16).toUpperCase();
+        StandingOrder order = new StandingOrder(null, reference, request.getFromAccount(), request.getToAccount(),
+                request.getAmount(), request.getFrequency(), StandingOrder.Status.ACTIVE, first,
+                runAt(reference, first), request.getEndAt(), null, null, null, 0, now);
+        StandingOrder saved = standingOrderRepo.save(order);
+        log.info("Standing order {} created: {} {} from {} to {}, first run {}", reference, request.getFrequency(),
+                request.getAmount(), request.getFromAccount(), request.getToAccount(), saved.getNextRunAt());
+        return StandingOrderDTO.from(saved);
+    }
+
+    public StandingOrderDTO get(String reference) {
+        return StandingOrderDTO.from(standingOrderRepo.findByReference(reference)
+                .orElseThrow(() -> new StandingOrderNotFoundException(reference)));
+    }
+
+    /** Stops future runs; a run already in progress still completes. */
+    public StandingOrderDTO cancel(String reference) {
+        StandingOrder order = standingOrderRepo.findByReference(reference)
+                .orElseThrow(() -> new StandingOrderNotFoundException(reference));
+        jdbcTemplate.update("UPDATE standing_order SET status = 'CANCELLED' WHERE id = ? AND status = 'ACTIVE'",
+                order.getId());
+        return get(reference);
+    }
+
+    /**
+     * Hands the due orders to the poll thread and returns, so a burst of due orders never holds
+     * up the shared scheduler thread (outbox relay, hold expiry, engine eviction). A tick that
+     * finds the previous poll still running does nothing.
+     */
+    @Scheduled(fixedDelayString = "${wallet.standing-orders.poll-interval-ms:1000}")
+    public void poll() {
+        if (!polling.compareAndSet(false, true)) {
+            return;
+        }
+        runner.submit(() -> {
+            try {
+                runDue(LocalDateTime.now());
+            } catch (RuntimeException ex) {
+                log.error("Standing order poll failed", ex);
+            } finally {
+                polling.set(false);
+            }
+        });
+    }
+
+    /** Runs up to {@code max-per-poll} orders due at {@code now}; returns how many were settled. */
+    public int runDue(LocalDateTime now) {
+        List<StandingOrder> due = standingOrderRepo.findDue(now, PageRequest.of(0, maxPerPoll));
+        if (due.isEmpty()) {
+            return 0;
+        }
+        long started = System.nanoTime();
+
+        List<List<StandingOrder>> byPartition = new ArrayList<>(partitions);
+        for (int i = 0; i < partitions; i++) {
+            byPartition.add(new ArrayList<>());
+        }
+        for (StandingOrder order : due) {
+            byPartition.get(Math.floorMod(order.getFromAccount().hashCode(), partitions)).add(order);
+        }
+
+        List<Future<Integer>> running = new ArrayList<>();
+        for (List<StandingOrder> partition : byPartition) {
+            if (!partition.isEmpty()) {
+                partition.sort(Comparator.comparing(StandingOrder::getFromAccount)
+                        .thenComparing(StandingOrder::getScheduledAt)
+                        .thenComparing(StandingOrder::getId));
+                running.add(executor.submit(() -> runPartition(partition, now)));
+            }
+        }
+        int settled = 0;
+        try {
+            for (Future<Integer> partition : running) {
+                settled += partition.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running standing orders", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Standing order partition failed", ex.getCause());
+        }
+        pollTimer.record(Duration.ofNanos(System.nanoTime() - started));
+        log.info("Ran {} of {} due standing orders in {} partitions", settled, due.size(), running.size());
+        return settled;
+    }
+
+    private int runPartition(List<StandingOrder> orders, LocalDateTime now) {
+        int settled = 0;
+        for (int i = 0; i < orders.size(); i += batchSize) {
+            List<StandingOrder> batch = orders.subList(i, Math.min(orders.size(), i + batchSize));
+            try {
+                settled += runBatch(batch, now);
+            } catch (RuntimeException ex) {
+                log.warn("Standing order batch of {} failed, will retry on the next poll: {}",
+                        batch.size(), ex.getMessage());
+            }
+        }
+        return settled;
+    }
+
+    /** Settles one batch in its own transaction, retried on lock conflicts; returns how many orders ran. */
+    int runBatch(List<StandingOrder> batch, LocalDateTime now) {
+        Integer count = lockRetry.execute(retry -> transactionTemplate.execute(status -> settleBatch(batch, now)));
+        return count != null ? count : 0;
+    }
+
+    private int settleBatch(List<StandingOrder> batch, LocalDateTime now) {
+        Map<Long, StandingOrder> current = standingOrderRepo.findAllByIdInWithLock(
+                        batch.stream().map(StandingOrder::getId).toList()).stream()
+                .collect(Collectors.toMap(StandingOrder::getId, Function.identity()));
+        List<StandingOrder> orders = batch.stream()
+                .filter(order -> {
+                    StandingOrder locked = current.get(order.getId());
+                    return locked != null && locked.getStatus() == StandingOrder.Status.ACTIVE
+                            && locked.getNextRunAt().equals(order.getNextRunAt());
+                })
+                .toList();
+        if (orders.isEmpty()) {
+            return 0;
+        }
+
+        List<DoTransDto> transfers = new ArrayList<>(orders.size());
+        for (StandingOrder order : orders) {
+            transfers.add(new DoTransDto(order.getFromAccount(), order.getToAccount(), order.getAmount()));
+        }
+        List<BatchTransferItemResult> results = serviceCall.settleTransferBatch(transfers);
+
+        List<Object[]> advances = new ArrayList<>(orders.size());
+        int failures = 0;
+        for (int i = 0; i < orders.size(); i++) {
+            StandingOrder order = orders.get(i);
+            BatchTransferItemResult result = results.get(i);
+            boolean ok = result.getStatus() == BatchTransferItemResult.Status.SUCCESS;
+            failures += ok ? 0 : 1;
+
+            LocalDateTime next = order.getFrequency().next(order.getScheduledAt());
+            boolean finished = next == null || (order.getEndAt() != null && next.isAfter(order.getEndAt()));
+            advances.add(new Object[]{
+                    (finished ? StandingOrder.Status.COMPLETED : StandingOrder.Status.ACTIVE).name(),
+                    finished ? Timestamp.valueOf(order.getScheduledAt()) : Timestamp.valueOf(next),
+                    finished ? null : Timestamp.valueOf(runAt(order.getReference(), next)),
+                    Timestamp.valueOf(now),
+                    ok ? result.getReference() : order.getLastReference(),
+                    ok ? null : result.getMessage(),
+                    ok ? 0 : 1,
+                    order.getId(),
+                    Timestamp.valueOf(order.getNextRunAt())});
+        }
+        int[] updated = jdbcTemplate.batchUpdate(ADVANCE_SQL, advances);
+        for (int count : updated) {
+            if (count == 0) {
+                // The rows are locked, so this means a bug rather than a race: undo the batch
+                throw new IllegalStateException("Standing order changed while running");
+            }
+        }
+        succeeded.increment(orders.size() - failures);
+        failed.increment(failures);
+        return orders.size();
+    }
+
+    /** Nominal time plus the order's fixed offset within the spread window. */
+    private LocalDateTime runAt(String reference, LocalDateTime scheduledAt) {
+        if (spreadMillis <= 0) {
+            return scheduledAt;
+        }
+        return scheduledAt.plus(Duration.ofMillis(Math.floorMod(reference.hashCode() * 0x9E3779B9L, spreadMillis)));
+    }
+}
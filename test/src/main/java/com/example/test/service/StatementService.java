@@ -0,0 +1,213 @@
+package com.example.test.service;
+
+import com.example.test.dto.LedgerEntryDTO;
+import com.example.test.dto.TransactionHistoryDTO;
+import com.example.test.exception.AccountNotFoundException;
+import com.example.test.model.LedgerEntry;
+import com.example.test.repo.AccountRepo;
+import com.example.test.repo.LedgerEntryRepo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Transaction history and statements, read from the append-only ledger. Entries are written
+ * by {@link LedgerWriter} in the transaction that moves the money, so a committed transfer
+ * is visible here at once.
+ */
+@Component
+@RequiredArgsConstructor
+public class StatementService {
+
+    public enum Format {
+        CSV("text/csv"), NDJSON("application/x-ndjson");
+
+        private final String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public String contentType() {
+            return contentType;
+        }
+
+        public String extension() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private static final String STATEMENT_SQL = "SELECT id, reference, type, direction, amount, " +
+            "counterparty_account, created_at FROM ledger_entry WHERE account_number = ? ORDER BY id";
+    private static final String CSV_HEADER = "id,created_at,reference,type,direction,amount,counterparty_account";
+
+    private final LedgerEntryRepo ledgerEntryRepo;
+    private final AccountRepo accountRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+
+    @Value("${wallet.statement.max-page-size:500}")
+    private int maxPageSize;
+
+    @Value("${wallet.statement.fetch-size:1000}")
+    private int fetchSize;
+
+    private JdbcTemplate cursorTemplate;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        // Separate template so the fetch size only applies to statement cursors
+        cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        cursorTemplate.setFetchSize(fetchSize);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Returns up to {@code limit} entries older than {@code before} (or the newest entries when
+     * {@code before} is null), newest first. Seeks on (account_number, id) instead of using an
+     * offset, so page 10,000 costs the same as page 1.
+     */
+    public TransactionHistoryDTO history(String accountNumber, Long before, int limit) {
+        requireAccount(accountNumber);
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        // One extra row tells whether another page exists
+        Limit fetch = Limit.of(pageSize + 1);
+        List<LedgerEntry> rows = before == null
+                ? ledgerEntryRepo.findByAccountNumberOrderByIdDesc(accountNumber, fetch)
+                : ledgerEntryRepo.findByAccountNumberAndIdLessThanOrderByIdDesc(accountNumber, before, fetch);
+
+        boolean more = rows.size() > pageSize;
+        List<LedgerEntryDTO> entries = new ArrayList<>(Math.min(rows.size(), pageSize));
+        for (int i = 0; i < rows.size() && i < pageSize; i++) {
+            entries.add(LedgerEntryDTO.from(rows.get(i)));
+        }
+        Long nextCursor = more ? entries.get(entries.size() - 1).getId() : null;
+        return new TransactionHistoryDTO(accountNumber, entries, nextCursor);
+    }
+
+    public void requireAccount(String accountNumber) {
+        if (!accountRepo.existsByAccountNumber(accountNumber)) {
+            throw new AccountNotFoundException(accountNumber);
+        }
+    }
+
+    /**
+     * Writes the account's whole ledger, oldest first, row by row from a database cursor.
+     * Nothing is collected in memory, so the size of the account does not matter.
+     */
+    public void export(String accountNumber, Format format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        try {
+            RowWriter rowWriter = format == Format.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+            readOnlyTransaction.executeWithoutResult(status ->
+                    cursorTemplate.query(STATEMENT_SQL, rs -> {
+                        try {
+                            rowWriter.write(rs);
+                        } catch (IOException ex) {
+                            throw new UncheckedIOException(ex);
+                        }
+                    }, accountNumber));
+            rowWriter.finish();
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        default void finish() throws IOException {
+        }
+    }
+
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            writer.write(Long.toString(rs.getLong("id")));
+            writer.write(',');
+            writer.write(String.valueOf(rs.getTimestamp("created_at").toLocalDateTime()));
+            writer.write(',');
+            writer.write(escape(rs.getString("reference")));
+            writer.write(',');
+            writer.write(rs.getString("type"));
+            writer.write(',');
+            writer.write(rs.getString("direction"));
+            writer.write(',');
+            writer.write(rs.getBigDecimal("amount").toPlainString());
+            writer.write(',');
+            String counterparty = rs.getString("counterparty_account");
+            writer.write(counterparty == null ? "" : escape(counterparty));
+            writer.write('\n');
+        }
+
+        private static String escape(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer);
+            // Newlines separate the objects instead of Jackson's default space; the response
+            // stream is closed by the container, not by Jackson
+            generator.setRootValueSeparator(null);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeStringField("createdAt", String.valueOf(rs.getTimestamp("created_at").toLocalDateTime()));
+            generator.writeStringField("reference", rs.getString("reference"));
+            generator.writeStringField("type", rs.getString("type"));
+            generator.writeStringField("direction", rs.getString("direction"));
+            generator.writeNumberField("amount", rs.getBigDecimal("amount"));
+            generator.writeStringField("counterpartyAccount", rs.getString("counterparty_account"));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+}
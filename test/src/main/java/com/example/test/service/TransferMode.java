@@ -0,0 +1,22 @@
+package com.example.test.service;
+
+/**
+ * How {@link DoService} locks wallet balances during a transfer.
+ * Selected per deployment with {@code wallet.transfer.mode}.
+ */
+public enum TransferMode {
+
+    /** Locks only the source account row; the destination is read without a lock. */
+    PESSIMISTIC,
+
+    /** Locks both wallet balance rows in ascending id order with a single query. */
+    ORDERED,
+
+    /**
+     * Takes no read locks: reads both balances, then debits the source with an update
+     * conditional on the version it read and credits the destination with a plain delta
+     * update, which needs no check. A concurrent change to the source fails the debit and
+     * the transfer is retried. Suited to accounts with little contention.
+     */
+    OPTIMISTIC
+}
@@ -0,0 +1,67 @@
+package com.example.test.config;
+
+import com.example.test.exception.DatabaseBusyException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DbAccessLimiterTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> context.getBeanFactory()
+                    .setConversionService(ApplicationConversionService.getSharedInstance()))
+            .withBean(MeterRegistry.class, SimpleMeterRegistry::new)
+            .withUserConfiguration(DbAccessLimiter.class);
+
+    private final DbAccessLimiter limiter =
+            new DbAccessLimiter(new SimpleMeterRegistry(), 1, Duration.ofMillis(50));
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void callWithoutTransactionWaitsForPermitAndFailsFastWhenNoneFreesUp() throws Throwable {
+        ProceedingJoinPoint inner = mock(ProceedingJoinPoint.class);
+        ProceedingJoinPoint outer = mock(ProceedingJoinPoint.class);
+        when(outer.proceed()).thenAnswer(invocation -> limiter.limit(inner));
+
+        assertThrows(DatabaseBusyException.class, () -> limiter.limit(outer));
+    }
+
+    @Test
+    void callJoiningAnOpenTransactionTakesNoPermit() throws Throwable {
+        ProceedingJoinPoint inner = mock(ProceedingJoinPoint.class);
+        when(inner.proceed()).thenReturn("settled");
+        ProceedingJoinPoint outer = mock(ProceedingJoinPoint.class);
+        when(outer.proceed()).thenAnswer(invocation -> {
+            // As the transaction advice inside the limiter would have done
+            TransactionSynchronizationManager.setActualTransactionActive(true);
+            return limiter.limit(inner);
+        });
+
+        assertEquals("settled", limiter.limit(outer));
+    }
+
+    @Test
+    void platformThreadModeRegistersNoLimiter() {
+        // Without the aspect no ServiceCall waits for a permit or gets DatabaseBusyException
+        contextRunner.run(context -> assertTrue(context.getBeansOfType(DbAccessLimiter.class).isEmpty()));
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=false")
+                .run(context -> assertTrue(context.getBeansOfType(DbAccessLimiter.class).isEmpty()));
+        contextRunner.withPropertyValues("spring.threads.virtual.enabled=true")
+                .run(context -> assertEquals(1, context.getBeansOfType(DbAccessLimiter.class).size()));
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.test.config;
+
+import com.example.test.dto.BatchTransferDto;
+import com.example.test.dto.DoTransDto;
+import com.example.test.dto.FundAccountDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rate-limit",
+        "spring.jpa.show-sql=false",
+        "wallet.rate-limit.enabled=true",
+        "wallet.rate-limit.account.rate-per-second=0.01",
+        "wallet.rate-limit.account.burst=2",
+        "wallet.rate-limit.client.rate-per-second=0.01",
+        "wallet.rate-limit.client.burst=6"
+})
+@AutoConfigureMockMvc
+class RateLimitFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void hotSourceAccount_GetsTooManyRequests_OtherAccountsAndClientsDoNot() throws Exception {
+        double before = rejected("account");
+
+        // Within the burst the request reaches the controller, which reports the unknown account
+        mockMvc.perform(transfer("client-a", "HOT-1")).andExpect(status().isNotFound());
+        mockMvc.perform(transfer("client-a", "HOT-1")).andExpect(status().isNotFound());
+        mockMvc.perform(transfer("client-a", "HOT-1"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"))
+                .andExpect(jsonPath("$.success").value(false));
+        mockMvc.perform(transfer("client-a", "COLD-1")).andExpect(status().isNotFound());
+
+        assertEquals(before + 1, rejected("account"));
+    }
+
+    @Test
+    void clientOverItsBudget_GetsTooManyRequests() throws Exception {
+        double before = rejected("client");
+        for (int i = 0; i < 6; i++) {
+            mockMvc.perform(transfer("client-b", "ACC-B" + i)).andExpect(status().isNotFound());
+        }
+        mockMvc.perform(transfer("client-b", "ACC-B9")).andExpect(status().isTooManyRequests());
+        mockMvc.perform(transfer("client-c", "ACC-C1")).andExpect(status().isNotFound());
+
+        assertEquals(before + 1, rejected("client"));
+    }
+
+    @Test
+    void batchItems_SpendTheirSourceAccountsTokens_FundingDoesNot() throws Exception {
+        double before = rejected("account");
+
+        mockMvc.perform(fund("client-d", "HOT-2")).andExpect(status().isNotFound());
+        mockMvc.perform(fund("client-d", "HOT-2")).andExpect(status().isNotFound());
+        mockMvc.perform(fund("client-d", "HOT-2")).andExpect(status().isNotFound());
+        mockMvc.perform(batch("client-e", "HOT-2", "HOT-2")).andExpect(status().isOk());
+        mockMvc.perform(batch("client-e", "HOT-2"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.message").value(org.hamcrest.Matchers.containsString("HOT-2")));
+
+        assertEquals(before + 1, rejected("account"));
+    }
+
+    private MockHttpServletRequestBuilder fund(String apiKey, String accountNumber) throws Exception {
+        return post("/api/v1/wallet/fund")
+                .header(RateLimitFilter.API_KEY_HEADER, apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new FundAccountDto(accountNumber, BigDecimal.TEN)));
+    }
+
+    private MockHttpServletRequestBuilder batch(String apiKey, String... fromAccounts) throws Exception {
+        List<DoTransDto> transfers = new ArrayList<>();
+        for (String fromAccount : fromAccounts) {
+            transfers.add(new DoTransDto(fromAccount, "TO-1", BigDecimal.TEN));
+        }
+        return post("/api/v1/wallet/transfers/batch")
+                .header(RateLimitFilter.API_KEY_HEADER, apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new BatchTransferDto(transfers)));
+    }
+
+    private MockHttpServletRequestBuilder transfer(String apiKey, String fromAccount) throws Exception {
+        return post("/api/v1/wallet/transfer")
+                .header(RateLimitFilter.API_KEY_HEADER, apiKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new DoTransDto(fromAccount, "TO-1", BigDecimal.TEN)));
+    }
+
+    private double rejected(String scope) {
+        return meterRegistry.get("wallet.rate-limit.rejected").tag("scope", scope).counter().count();
+    }
+}
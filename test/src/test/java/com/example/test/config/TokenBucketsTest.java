@@ -0,0 +1,71 @@
+package com.example.test.config;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketsTest {
+
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    void allowsBurstThenRefillsAtRate() {
+        TokenBuckets buckets = new TokenBuckets(10, 3, 100);
+        long now = 5 * SECOND;
+
+        assertEquals(0, buckets.tryAcquire("a", now));
+        assertEquals(0, buckets.tryAcquire("a", now));
+        assertEquals(0, buckets.tryAcquire("a", now));
+        long wait = buckets.tryAcquire("a", now);
+        assertEquals(SECOND / 10, wait);
+        assertEquals(0, buckets.tryAcquire("b", now), "buckets are per key");
+
+        assertEquals(0, buckets.tryAcquire("a", now + wait));
+        assertTrue(buckets.tryAcquire("a", now + wait) > 0);
+    }
+
+    @Test
+    void concurrentCallersNeverExceedBurst() throws Exception {
+        TokenBuckets buckets = new TokenBuckets(0.001, 50, 100);
+        AtomicInteger granted = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < 8; t++) {
+            pool.submit(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        if (buckets.tryAcquire("hot") == 0) {
+                            granted.incrementAndGet();
+                        }
+                    }
+                } catch (Throwable ex) {
+                    failures.add(ex);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertTrue(failures.isEmpty(), () -> "Unexpected failures: " + failures);
+        assertEquals(50, granted.get());
+    }
+
+    @Test
+    void keyCountIsBounded() {
+        TokenBuckets buckets = new TokenBuckets(1, 1, 10);
+        for (int i = 0; i < 1_000; i++) {
+            buckets.tryAcquire("key" + i, 0);
+        }
+        assertTrue(buckets.size() <= 10);
+    }
+}
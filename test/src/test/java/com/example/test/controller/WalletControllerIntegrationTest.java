@@ -1,13 +1,25 @@
 package com.example.test.controller;
 
+import com.example.test.dto.BalanceChangeEvent;
+import com.example.test.dto.BatchTransferDto;
 import com.example.test.dto.DoTransDto;
+import com.example.test.dto.FundAccountDto;
 import com.example.test.model.Account;
+import com.example.test.model.LedgerEntry;
 import com.example.test.model.User;
 import com.example.test.model.WalletBalance;
 import com.example.test.repo.AccountRepo;
+import com.example.test.repo.LedgerEntryRepo;
 import com.example.test.repo.UserRepo;
 import com.example.test.repo.WalletBalanceRepo;
+import com.example.test.service.BalanceCache;
+import com.example.test.service.InProcessEventSink;
+import com.example.test.service.StatementService;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -15,14 +27,24 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
-@SpringBootTest
+// No standing order polls: Hibernate statistics count every thread's statements
+@SpringBootTest(properties = "wallet.standing-orders.poll-interval-ms=3600000")
 @AutoConfigureMockMvc
 @Transactional
 class WalletControllerIntegrationTest {
@@ -42,6 +64,24 @@ class WalletControllerIntegrationTest {
     @Autowired
     private WalletBalanceRepo walletBalanceRepo;
 
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private LedgerEntryRepo ledgerEntryRepo;
+
+    @Autowired
+    private StatementService statementService;
+
+    @Autowired
+    private InProcessEventSink inProcessEventSink;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private User testUser;
     private Account testAccount;
 
@@ -73,6 +113,9 @@ class WalletControllerIntegrationTest {
 
         testUser.setAccount(testAccount);
         userRepo.save(testUser);
+
+        // Each test rolls back, so drop balances cached by earlier tests
+        balanceCache.invalidate(testAccount.getAccountNumber());
     }
 
     @Test
@@ -89,6 +132,39 @@ class WalletControllerIntegrationTest {
                 .andExpect(jsonPath("$.data.email").value("newuser@test.com"));
     }
 
+    @Test
+    void createUser_WithoutEmail() throws Exception {
+        mockMvc.perform(post("/api/v1/wallet/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new User())))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.success").value(true));
+    }
+
+    @Test
+    void getUser_ReadsUserAccountAndBalanceWithOneStatement() throws Exception {
+        userRepo.flush();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        try {
+            mockMvc.perform(get("/api/v1/wallet/users/{id}", testUser.getId()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.data.id").value(testUser.getId()))
+                    .andExpect(jsonPath("$.data.email").value("integration@test.com"))
+                    .andExpect(jsonPath("$.data.account.accountNumber").value(testAccount.getAccountNumber()))
+                    .andExpect(jsonPath("$.data.account.balance").value(1000));
+            assertEquals(1, statistics.getPrepareStatementCount());
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+
+        mockMvc.perform(get("/api/v1/wallet/users/{id}", testUser.getId() + 1000))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.message").value("User not found: " + (testUser.getId() + 1000)));
+    }
+
     @Test
     void createUser_DuplicateEmail() throws Exception {
         User duplicateUser = new User();
@@ -132,7 +208,9 @@ class WalletControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(transferDto)))
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.success").value(true))
-                .andExpect(jsonPath("$.message").value("Transfer completed successfully"));
+                .andExpect(jsonPath("$.message").value("Transfer completed successfully"))
+                .andExpect(jsonPath("$.data.accountNumber").value(testAccount.getAccountNumber()))
+                .andExpect(jsonPath("$.data.balance").value(700));
     }
 
     @Test
@@ -154,7 +232,7 @@ class WalletControllerIntegrationTest {
                         .content(objectMapper.writeValueAsString(transferDto)))
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.success").value(false))
-                .andExpect(jsonPath("$.message").value(org.hamcrest.Matchers.containsString("Insufficient balance")));
+                .andExpect(jsonPath("$.message").value(containsString("Insufficient balance")));
     }
 
     @Test
@@ -171,4 +249,224 @@ class WalletControllerIntegrationTest {
                 .andExpect(jsonPath("$.success").value(false))
                 .andExpect(jsonPath("$.message").value("Cannot transfer to the same account"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void transferBatch_ReportsStatusPerItem() throws Exception {
+        WalletBalance destWallet = new WalletBalance();
+        destWallet.setAmount(BigDecimal.ZERO);
+
+        Account destAccount = new Account();
+        destAccount.setAccountNumber("BATCHDEST1");
+        destAccount.setWalletBalance(destWallet);
+        destAccount = accountRepo.save(destAccount);
+
+        BatchTransferDto batch = new BatchTransferDto(List.of(
+                new DoTransDto(testAccount.getAccountNumber(), destAccount.getAccountNumber(), BigDecimal.valueOf(400)),
+                new DoTransDto(testAccount.getAccountNumber(), destAccount.getAccountNumber(), BigDecimal.valueOf(700)),
+                new DoTransDto(testAccount.getAccountNumber(), testAccount.getAccountNumber(), BigDecimal.TEN)));
+
+        mockMvc.perform(post("/api/v1/wallet/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(batch)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.success").value(true))
+                .andExpect(jsonPath("$.data.total").value(3))
+                .andExpect(jsonPath("$.data.succeeded").value(1))
+                .andExpect(jsonPath("$.data.failed").value(2))
+                .andExpect(jsonPath("$.data.items[0].status").value("SUCCESS"))
+                .andExpect(jsonPath("$.data.items[1].message").value(containsString("Insufficient balance")))
+                .andExpect(jsonPath("$.data.items[2].message").value("Cannot transfer to the same account"));
+    }
+
+    @Test
+    void fund_ReplaysResponseForRepeatedIdempotencyKey() throws Exception {
+        FundAccountDto fundDto = new FundAccountDto(testAccount.getAccountNumber(), BigDecimal.valueOf(250));
+        String body = objectMapper.writeValueAsString(fundDto);
+
+        mockMvc.perform(post("/api/v1/wallet/fund")
+                        .header("Idempotency-Key", "fund-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Idempotent-Replayed"))
+                .andExpect(jsonPath("$.data.newBalance").value(1250));
+
+        mockMvc.perform(post("/api/v1/wallet/fund")
+                        .header("Idempotency-Key", "fund-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Idempotent-Replayed", "true"))
+                .andExpect(jsonPath("$.data.newBalance").value(1250));
+
+        mockMvc.perform(post("/api/v1/wallet/fund")
+                        .header("Idempotency-Key", "fund-retry-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new FundAccountDto(testAccount.getAccountNumber(), BigDecimal.TEN))))
+                .andExpect(status().isUnprocessableEntity());
+
+        mockMvc.perform(post("/api/v1/wallet/fund")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.newBalance").value(1500));
+    }
+
+    @Test
+    void getBalance_ReflectsFunding() throws Exception {
+        mockMvc.perform(get("/api/v1/wallet/accounts/{number}/balance", testAccount.getAccountNumber()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.balance").value(1000));
+
+        mockMvc.perform(post("/api/v1/wallet/fund")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new FundAccountDto(testAccount.getAccountNumber(), BigDecimal.valueOf(75)))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/v1/wallet/accounts/{number}/balance", testAccount.getAccountNumber()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.accountNumber").value(testAccount.getAccountNumber()))
+                .andExpect(jsonPath("$.data.balance").value(1075));
+
+        mockMvc.perform(get("/api/v1/wallet/accounts/{number}/balance", "NOPE"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void createUsersBulk_SkipsExistingAndRepeatedEmails() throws Exception {
+        String body = "[{\"email\": \"bulk1@test.com\"}, {\"email\": \"bulk2@test.com\"}, "
+                + "{\"email\": \"integration@test.com\"}, {\"email\": \"bulk1@test.com\"}, {\"email\": \"\"}]";
+
+        mockMvc.perform(post("/api/v1/wallet/users/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.data.received").value(5))
+                .andExpect(jsonPath("$.data.created").value(2))
+                .andExpect(jsonPath("$.data.duplicates").value(2))
+                .andExpect(jsonPath("$.data.invalid").value(1));
+
+        assertTrue(userRepo.findByEmail("bulk2@test.com")
+                .map(user -> user.getAccount().getWalletBalance() != null)
+                .orElse(false));
+    }
+
+    @Test
+    void fund_RecordsServiceRepositoryAndExceptionMetrics() throws Exception {
+        double notFoundBefore = meterRegistry.counter("wallet.exceptions",
+                "type", "AccountNotFoundException").count();
+
+        mockMvc.perform(post("/api/v1/wallet/fund")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                new FundAccountDto(testAccount.getAccountNumber(), BigDecimal.TEN))))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/v1/wallet/fund")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new FundAccountDto("NOPE", BigDecimal.TEN))))
+                .andExpect(status().isNotFound());
+
+        assertNotNull(meterRegistry.find("wallet.service")
+                .tag("operation", "fundAccount").timer());
+        assertNotNull(meterRegistry.find("wallet.repository")
+                .tags("repository", "WalletBalanceRepo", "method", "save").timer());
+        assertTrue(meterRegistry.find("wallet.lock.wait")
+                .tags("repository", "AccountRepo", "method", "findByAccountNumberWithLock").timer().count() > 0);
+        assertEquals(notFoundBefore + 1, meterRegistry.counter("wallet.exceptions",
+                "type", "AccountNotFoundException").count());
+    }
+
+    @Test
+    void getTransactions_PagesBackwardsWithKeysetCursor() throws Exception {
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            entries.add(LedgerEntry.funding("REF" + i, testAccount.getAccountNumber(),
+                    BigDecimal.valueOf(i), LocalDateTime.now()));
+        }
+        entries.add(LedgerEntry.funding("OTHER", "SOMEONE-ELSE", BigDecimal.ONE, LocalDateTime.now()));
+        ledgerEntryRepo.saveAll(entries);
+
+        String firstPage = mockMvc.perform(get("/api/v1/wallet/accounts/{number}/transactions", testAccount.getAccountNumber())
+                        .param("limit", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.entries.length()").value(2))
+                .andExpect(jsonPath("$.data.entries[0].reference").value("REF5"))
+                .andExpect(jsonPath("$.data.entries[1].reference").value("REF4"))
+                .andReturn().getResponse().getContentAsString();
+        long cursor = objectMapper.readTree(firstPage).at("/data/nextCursor").asLong();
+
+        String secondPage = mockMvc.perform(get("/api/v1/wallet/accounts/{number}/transactions", testAccount.getAccountNumber())
+                        .param("limit", "2").param("before", String.valueOf(cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.entries[0].reference").value("REF3"))
+                .andExpect(jsonPath("$.data.entries[1].reference").value("REF2"))
+                .andReturn().getResponse().getContentAsString();
+        cursor = objectMapper.readTree(secondPage).at("/data/nextCursor").asLong();
+
+        mockMvc.perform(get("/api/v1/wallet/accounts/{number}/transactions", testAccount.getAccountNumber())
+                        .param("limit", "2").param("before", String.valueOf(cursor)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.entries.length()").value(1))
+                .andExpect(jsonPath("$.data.entries[0].reference").value("REF1"))
+                .andExpect(jsonPath("$.data.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/v1/wallet/accounts/{number}/transactions", "NOPE"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void statementExport_WritesCsvAndNdjsonOldestFirst() throws Exception {
+        ledgerEntryRepo.saveAll(List.of(
+                LedgerEntry.funding("FUND1", testAccount.getAccountNumber(), new BigDecimal("100.00"), LocalDateTime.now()),
+                LedgerEntry.debit("TXN1", testAccount.getAccountNumber(), "DEST123", new BigDecimal("25.50"), LocalDateTime.now())));
+
+        ByteArrayOutputStream csv = new ByteArrayOutputStream();
+        statementService.export(testAccount.getAccountNumber(), StatementService.Format.CSV, csv);
+        String[] lines = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals(
+                "id,created_at,reference,type,direction,amount,counterparty_account", lines[0]);
+        assertTrue(lines[1].contains(",FUND1,FUNDING,CREDIT,100.00,"));
+        assertTrue(lines[2].endsWith(",TXN1,TRANSFER,DEBIT,25.50,DEST123"));
+
+        ByteArrayOutputStream ndjson = new ByteArrayOutputStream();
+        statementService.export(testAccount.getAccountNumber(), StatementService.Format.NDJSON, ndjson);
+        String[] objects = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, objects.length);
+        assertEquals("TXN1", objectMapper.readTree(objects[1]).get("reference").asText());
+        assertEquals("DEST123",
+                objectMapper.readTree(objects[1]).get("counterpartyAccount").asText());
+
+        mockMvc.perform(get("/api/v1/wallet/accounts/{number}/statement", testAccount.getAccountNumber())
+                        .param("format", "NDJSON"))
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("Content-Type", "application/x-ndjson"))
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"statement-" + testAccount.getAccountNumber() + ".ndjson\""));
+        mockMvc.perform(get("/api/v1/wallet/accounts/{number}/statement", "NOPE"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void streamEvents_SendsRelayedEventsAsServerSentEvents() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/v1/wallet/events"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        inProcessEventSink.publish(List.of(new BalanceChangeEvent(42L, "FUNDING_CREDIT",
+                testAccount.getAccountNumber(), "FUND1", BigDecimal.TEN, null, LocalDateTime.now())));
+
+        // Delivered on the subscriber's own thread, which writes the id, name and data separately
+        long deadline = System.nanoTime() + java.util.concurrent.TimeUnit.SECONDS.toNanos(5);
+        while (!result.getResponse().getContentAsString().contains("\"reference\":\"FUND1\"")
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        String body = result.getResponse().getContentAsString();
+        assertTrue(body.contains("id:42"));
+        assertTrue(body.contains("event:FUNDING_CREDIT"));
+        assertTrue(body.contains("\"accountNumber\":\"" + testAccount.getAccountNumber() + "\""));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.test.model;
+
+import com.example.test.exception.InvalidAmountException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void toMinor_AcceptsUpToTwoSignificantDecimals() {
+        assertEquals(40_000, Money.toMinor(BigDecimal.valueOf(400)));
+        assertEquals(1_050, Money.toMinor(new BigDecimal("10.5")));
+        assertEquals(1, Money.toMinor(new BigDecimal("0.010000")));
+        assertEquals(new BigDecimal("10.50"), Money.toDecimal(1_050));
+    }
+
+    @Test
+    void toMinor_RejectsExtraPrecisionAndOverflow() {
+        InvalidAmountException precision = assertThrows(InvalidAmountException.class,
+                () -> Money.toMinor(new BigDecimal("0.001")));
+        assertTrue(precision.getMessage().contains("decimal places"));
+        assertThrows(InvalidAmountException.class, () -> Money.toMinor(new BigDecimal("1e18")));
+        assertThrows(InvalidAmountException.class, () -> Money.add(Long.MAX_VALUE, 1));
+        assertEquals(-1, Money.add(Long.MAX_VALUE, Long.MIN_VALUE));
+    }
+}
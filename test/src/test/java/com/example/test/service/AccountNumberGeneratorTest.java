@@ -0,0 +1,64 @@
+package com.example.test.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class AccountNumberGeneratorTest {
+
+    private static final int BLOCK_SIZE = 1000;
+
+    @Test
+    void generate_HandsOutSequentialNumbersWithCheckDigit() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.queryForObject("next value for account_number_seq", Long.class)).thenReturn(100_000_000L);
+        AccountNumberGenerator generator = new AccountNumberGenerator(jdbcTemplate, "next value for account_number_seq", BLOCK_SIZE);
+
+        String first = generator.generate();
+        String second = generator.generate();
+
+        assertEquals("1000000008", first);
+        assertTrue(second.startsWith("100000001"));
+        assertTrue(AccountNumberGenerator.isValid(first));
+        assertTrue(AccountNumberGenerator.isValid(second));
+        assertFalse(AccountNumberGenerator.isValid("1000000007"));
+        verify(jdbcTemplate, times(1)).queryForObject("next value for account_number_seq", Long.class);
+    }
+
+    @Test
+    void generate_IsUniqueUnderConcurrencyAndOnlyQueriesPerBlock() throws Exception {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        AtomicLong sequence = new AtomicLong(100_000_000L);
+        when(jdbcTemplate.queryForObject(eq("nextval"), eq(Long.class)))
+                .thenAnswer(invocation -> sequence.getAndAdd(BLOCK_SIZE));
+        AccountNumberGenerator generator = new AccountNumberGenerator(jdbcTemplate, "nextval", BLOCK_SIZE);
+
+        int threads = 8;
+        int perThread = 25_000;
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    numbers.add(generator.generate());
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * perThread, numbers.size());
+        assertTrue(numbers.stream().allMatch(AccountNumberGenerator::isValid));
+        verify(jdbcTemplate, times(threads * perThread / BLOCK_SIZE)).queryForObject("nextval", Long.class);
+    }
+}
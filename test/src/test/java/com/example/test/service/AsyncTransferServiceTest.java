@@ -0,0 +1,130 @@
+package com.example.test.service;
+
+import com.example.test.dto.AsyncTransferStatusDTO;
+import com.example.test.dto.BatchTransferItemResult;
+import com.example.test.dto.DoTransDto;
+import com.example.test.exception.DatabaseBusyException;
+import com.example.test.exception.InvalidAmountException;
+import com.example.test.exception.SameAccountTransferException;
+import com.example.test.exception.TransferNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferServiceTest {
+
+    @Mock
+    private ServiceCall serviceCall;
+
+    private AsyncTransferService asyncTransferService;
+
+    @BeforeEach
+    void setUp() {
+        asyncTransferService = new AsyncTransferService(serviceCall, new SimpleMeterRegistry(),
+                1, 100, 50, 1000, Duration.ofMinutes(5));
+        asyncTransferService.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        asyncTransferService.stop();
+    }
+
+    @Test
+    void queuedTransfers_AreSettledInMicroBatches_InSubmissionOrder() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+        List<List<DoTransDto>> batches = new CopyOnWriteArrayList<>();
+        when(serviceCall.doIntraTransferBatch(anyList())).thenAnswer(invocation -> {
+            List<DoTransDto> transfers = new ArrayList<>(invocation.getArgument(0));
+            batches.add(transfers);
+            if (batches.size() == 1) {
+                firstBatchStarted.countDown();
+                releaseFirstBatch.await(5, TimeUnit.SECONDS);
+            }
+            List<BatchTransferItemResult> results = new ArrayList<>();
+            for (int i = 0; i < transfers.size(); i++) {
+                DoTransDto transfer = transfers.get(i);
+                results.add(transfer.getAmount().intValue() == 999
+                        ? BatchTransferItemResult.failed(i, transfer, "Insufficient balance")
+                        : BatchTransferItemResult.success(i, transfer, "TXN" + i));
+            }
+            return results;
+        });
+
+        AsyncTransferStatusDTO first = asyncTransferService.submit(transfer(1));
+        assertEquals(AsyncTransferStatusDTO.Status.QUEUED, first.getStatus());
+        assertTrue(firstBatchStarted.await(5, TimeUnit.SECONDS));
+
+        List<String> references = new ArrayList<>();
+        for (int amount : new int[]{2, 999, 3}) {
+            references.add(asyncTransferService.submit(transfer(amount)).getReference());
+        }
+        releaseFirstBatch.countDown();
+
+        assertEquals(AsyncTransferStatusDTO.Status.SUCCESS, awaitSettled(first.getReference()).getStatus());
+        assertEquals(AsyncTransferStatusDTO.Status.SUCCESS, awaitSettled(references.get(0)).getStatus());
+        AsyncTransferStatusDTO failed = awaitSettled(references.get(1));
+        assertEquals(AsyncTransferStatusDTO.Status.FAILED, failed.getStatus());
+        assertEquals("Insufficient balance", failed.getMessage());
+        AsyncTransferStatusDTO last = awaitSettled(references.get(2));
+        assertEquals(AsyncTransferStatusDTO.Status.SUCCESS, last.getStatus());
+        assertEquals("TXN2", last.getTransactionReference());
+        assertNotNull(last.getCompletedAt());
+
+        // Everything queued behind the first batch was settled together, in submission order
+        assertEquals(2, batches.size());
+        assertEquals(List.of(2, 999, 3), batches.get(1).stream().map(t -> t.getAmount().intValue()).toList());
+    }
+
+    @Test
+    void failedBatch_MarksEveryTransferFailed() throws Exception {
+        when(serviceCall.doIntraTransferBatch(anyList())).thenThrow(new DatabaseBusyException());
+
+        String reference = asyncTransferService.submit(transfer(5)).getReference();
+
+        AsyncTransferStatusDTO status = awaitSettled(reference);
+        assertEquals(AsyncTransferStatusDTO.Status.FAILED, status.getStatus());
+        assertTrue(status.getMessage().startsWith("Transfer could not be processed"));
+    }
+
+    @Test
+    void invalidTransfersAndUnknownReferences_AreRejectedImmediately() {
+        assertThrows(InvalidAmountException.class, () -> asyncTransferService.submit(transfer(0)));
+        assertThrows(SameAccountTransferException.class, () ->
+                asyncTransferService.submit(new DoTransDto("ACC1", "ACC1", BigDecimal.TEN)));
+        assertThrows(TransferNotFoundException.class, () -> asyncTransferService.status("ATXUNKNOWN"));
+        verifyNoInteractions(serviceCall);
+    }
+
+    private static DoTransDto transfer(int amount) {
+        return new DoTransDto("ACC1", "ACC2", BigDecimal.valueOf(amount));
+    }
+
+    private AsyncTransferStatusDTO awaitSettled(String reference) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        AsyncTransferStatusDTO status = asyncTransferService.status(reference);
+        while (status.getStatus() == AsyncTransferStatusDTO.Status.QUEUED && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+            status = asyncTransferService.status(reference);
+        }
+        return status;
+    }
+}
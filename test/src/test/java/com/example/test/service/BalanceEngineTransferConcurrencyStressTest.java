@@ -0,0 +1,16 @@
+package com.example.test.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the conservation stress test through the in-memory balance engine. The wallet rows
+ * are checked as soon as the transfers return, so each transaction must have written its own.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfer-stress-engine",
+        "spring.jpa.show-sql=false",
+        "wallet.balance-engine.enabled=true",
+        "wallet.transfer.lock-retry.max-attempts=10"
+})
+class BalanceEngineTransferConcurrencyStressTest extends TransferConcurrencyStressTest {
+}
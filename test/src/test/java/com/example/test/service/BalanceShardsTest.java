@@ -0,0 +1,124 @@
+package com.example.test.service;
+
+import com.example.test.dto.DoTransDto;
+import com.example.test.dto.FundAccountDto;
+import com.example.test.exception.InsufficientBalanceException;
+import com.example.test.model.BalanceShard;
+import com.example.test.repo.AccountRepo;
+import com.example.test.repo.BalanceShardRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:balance-shards",
+        "spring.jpa.show-sql=false",
+        "wallet.transfer.mode=ORDERED",
+        "wallet.transfer.lock-retry.max-attempts=10",
+        "wallet.sharding.rebalance-interval-ms=3600000"
+})
+class BalanceShardsTest {
+
+    private static final int THREADS = 8;
+    private static final int CREDITS_PER_THREAD = 40;
+
+    @Autowired
+    private ServiceCall serviceCall;
+
+    @Autowired
+    private BalanceShards balanceShards;
+
+    @Autowired
+    private BalanceShardRepo balanceShardRepo;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Test
+    void concurrentCreditsToShardedAccount_AreAllCounted() throws Exception {
+        String merchant = testAccounts.create("merchant");
+        String payer = testAccounts.create("payer", BigDecimal.valueOf(10_000));
+        assertEquals(4, balanceShards.enable(merchant, 4));
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> failures = new ConcurrentLinkedQueue<>();
+        for (int t = 0; t < THREADS; t++) {
+            boolean viaTransfer = t % 2 == 0;
+            pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < CREDITS_PER_THREAD; i++) {
+                    try {
+                        if (viaTransfer) {
+                            serviceCall.doIntraTransfer(new DoTransDto(payer, merchant, BigDecimal.ONE));
+                        } else {
+                            serviceCall.fundAccount(new FundAccountDto(merchant, BigDecimal.ONE));
+                        }
+                    } catch (Throwable ex) {
+                        failures.add(ex);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+
+        assertTrue(failures.isEmpty(), () -> "Unexpected failures: " + failures);
+        int credits = THREADS * CREDITS_PER_THREAD;
+        assertEquals(0, BigDecimal.valueOf(credits).compareTo(balanceOf(merchant)));
+        assertEquals(0, BigDecimal.valueOf(10_000 - credits / 2).compareTo(balanceOf(payer)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(walletRowOf(merchant)));
+        assertTrue(balanceShardRepo.findByAccountNumberOrderByShardIndex(merchant).stream()
+                .filter(shard -> shard.getAmount().signum() > 0).count() > 1);
+    }
+
+    @Test
+    void debitBeyondWalletRow_TakesFromShards_AndRebalanceEvensThemOut() {
+        String merchant = testAccounts.create("spender", BigDecimal.TEN);
+        String customer = testAccounts.create("customer");
+        balanceShards.enable(merchant, 3);
+        for (int i = 0; i < 10; i++) {
+            serviceCall.fundAccount(new FundAccountDto(merchant, BigDecimal.TEN));
+        }
+
+        serviceCall.doIntraTransfer(new DoTransDto(merchant, customer, BigDecimal.valueOf(70)));
+
+        assertEquals(0, BigDecimal.valueOf(40).compareTo(balanceOf(merchant)));
+        assertEquals(0, BigDecimal.valueOf(70).compareTo(balanceOf(customer)));
+        assertThrows(InsufficientBalanceException.class, () ->
+                serviceCall.doIntraTransfer(new DoTransDto(merchant, customer, BigDecimal.valueOf(41))));
+        assertEquals(0, BigDecimal.valueOf(40).compareTo(balanceOf(merchant)));
+
+        balanceShards.rebalance();
+
+        List<BalanceShard> shards = balanceShardRepo.findByAccountNumberOrderByShardIndex(merchant);
+        BigDecimal shardTotal = shards.stream().map(BalanceShard::getAmount).reduce(BigDecimal.ZERO, BigDecimal::add);
+        assertEquals(0, balanceOf(merchant).compareTo(shardTotal.add(walletRowOf(merchant))));
+        BigDecimal smallest = shards.stream().map(BalanceShard::getAmount).min(BigDecimal::compareTo).orElseThrow();
+        BigDecimal largest = shards.stream().map(BalanceShard::getAmount).max(BigDecimal::compareTo).orElseThrow();
+        assertTrue(largest.subtract(smallest).compareTo(BigDecimal.ONE) < 0);
+    }
+
+    private BigDecimal balanceOf(String accountNumber) {
+        return accountRepo.findBalanceByAccountNumber(accountNumber).orElseThrow();
+    }
+
+    private BigDecimal walletRowOf(String accountNumber) {
+        return accountRepo.findByAccountNumber(accountNumber).orElseThrow().getWalletBalance().getAmount();
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.test.service;
+
+import com.example.test.model.BalanceSnapshot;
+import com.example.test.model.LedgerEntry;
+import com.example.test.repo.BalanceSnapshotRepo;
+import com.example.test.repo.LedgerEntryRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:balance-snapshots",
+        "spring.jpa.show-sql=false",
+        "wallet.snapshot.chunk-size=3",
+        "wallet.snapshot.parallelism=2"
+})
+class BalanceSnapshotServiceTest {
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private BalanceSnapshotRepo balanceSnapshotRepo;
+
+    @Autowired
+    private LedgerEntryRepo ledgerEntryRepo;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Test
+    void snapshotsAcrossChunks_AndBalanceAtReadsSnapshotPlusDelta() {
+        LocalDateTime day1 = LocalDate.now().minusDays(30).atStartOfDay();
+        LocalDateTime day2 = day1.plusDays(1);
+        LocalDateTime day3 = day2.plusDays(1);
+
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            String accountNumber = testAccounts.create("snap" + i);
+            accounts.add(accountNumber);
+            ledgerEntryRepo.save(LedgerEntry.funding("F-" + i, accountNumber, BigDecimal.valueOf(100), day1.minusHours(1)));
+        }
+        String payer = accounts.get(0);
+        String payee = accounts.get(7);
+        ledgerEntryRepo.save(LedgerEntry.debit("T-1", payer, payee, BigDecimal.valueOf(30), day1.plusHours(2)));
+        ledgerEntryRepo.save(LedgerEntry.credit("T-1", payee, payer, BigDecimal.valueOf(30), day1.plusHours(2)));
+        ledgerEntryRepo.save(LedgerEntry.debit("T-2", payer, payee, BigDecimal.valueOf(5), day2.plusHours(3)));
+        ledgerEntryRepo.save(LedgerEntry.credit("T-2", payee, payer, BigDecimal.valueOf(5), day2.plusHours(3)));
+
+        assertTrue(balanceSnapshotService.snapshot(day1) >= accounts.size());
+        assertEquals(2, balanceSnapshotService.snapshot(day2));
+        assertEquals(0, balanceSnapshotService.snapshot(day2), "a repeated run must not write twice");
+
+        BalanceSnapshot payerDay2 = balanceSnapshotRepo
+                .findFirstByAccountNumberAndAsOfLessThanEqualOrderByAsOfDesc(payer, day2).orElseThrow();
+        assertEquals(day2, payerDay2.getAsOf());
+        assertEquals(0, BigDecimal.valueOf(70).compareTo(payerDay2.getBalance()));
+        // Untouched accounts keep their day-1 row only
+        assertEquals(day1, balanceSnapshotRepo
+                .findFirstByAccountNumberAndAsOfLessThanEqualOrderByAsOfDesc(accounts.get(4), day3).orElseThrow().getAsOf());
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(balanceSnapshotService.balanceAt(payer, day1.minusHours(2))));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(balanceSnapshotService.balanceAt(payer, day1.plusHours(1))));
+        assertEquals(0, BigDecimal.valueOf(70).compareTo(balanceSnapshotService.balanceAt(payer, day2.plusHours(1))));
+        assertEquals(0, BigDecimal.valueOf(65).compareTo(balanceSnapshotService.balanceAt(payer, day3)));
+        assertEquals(0, BigDecimal.valueOf(135).compareTo(balanceSnapshotService.balanceAt(payee, day3)));
+        assertEquals(0, BigDecimal.valueOf(100).compareTo(balanceSnapshotService.balanceAt(accounts.get(4), day3)));
+    }
+
+    @Test
+    void snapshotWithinLag_IsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> balanceSnapshotService.snapshot(LocalDateTime.now()));
+    }
+}
@@ -1,24 +1,50 @@
 package com.example.test.service;
 
+import com.example.test.dto.AccountWalletRef;
+import com.example.test.dto.AccountWalletSnapshot;
+import com.example.test.dto.BalanceResponseDTO;
+import com.example.test.dto.BatchTransferItemResult;
 import com.example.test.dto.DoTransDto;
+import com.example.test.dto.FundAccountDto;
+import com.example.test.exception.DuplicateEmailException;
+import com.example.test.exception.InvalidAmountException;
 import com.example.test.model.Account;
+import com.example.test.model.LedgerEntry;
 import com.example.test.model.User;
 import com.example.test.model.WalletBalance;
 import com.example.test.repo.AccountRepo;
 import com.example.test.repo.UserRepo;
 import com.example.test.repo.WalletBalanceRepo;
+import io.micrometer.core.annotation.Timed;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.lang.reflect.Method;
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +59,27 @@ class DoServiceTest {
     @Mock
     private WalletBalanceRepo walletBalanceRepo;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private LedgerWriter ledgerWriter;
+
+    @Mock
+    private BalanceCache balanceCache;
+
+    @Mock
+    private AccountNumberGenerator accountNumberGenerator;
+
+    @Mock
+    private BalanceShards balanceShards;
+
+    @Mock
+    private EmailIndex emailIndex;
+
+    @Mock
+    private OutboxWriter outboxWriter;
+
     @InjectMocks
     private DoService doService;
 
@@ -62,10 +109,10 @@ class DoServiceTest {
     @Test
     void createUserAndAccount_Success() {
         // Arrange
-        when(userRepo.findByEmail(anyString())).thenReturn(Optional.empty());
         when(userRepo.save(any(User.class))).thenReturn(testUser);
         when(walletBalanceRepo.save(any(WalletBalance.class))).thenReturn(testWalletBalance);
         when(accountRepo.save(any(Account.class))).thenReturn(testAccount);
+        when(accountNumberGenerator.generate()).thenReturn("1000000008");
 
         // Act
         assertDoesNotThrow(() -> doService.createUserAndAccount(testUser));
@@ -74,11 +121,15 @@ class DoServiceTest {
         verify(userRepo, times(2)).save(any(User.class));
         verify(walletBalanceRepo, times(1)).save(any(WalletBalance.class));
         verify(accountRepo, times(1)).save(any(Account.class));
+        // An email the index has never seen needs no lookup
+        verify(userRepo, never()).findByEmail(anyString());
+        verify(emailIndex).add("test@example.com");
     }
 
     @Test
     void createUserAndAccount_UserAlreadyExists() {
         // Arrange
+        when(emailIndex.mightContain("test@example.com")).thenReturn(true);
         when(userRepo.findByEmail(anyString())).thenReturn(Optional.of(testUser));
 
         // Act & Assert
@@ -87,6 +138,20 @@ class DoServiceTest {
         assertEquals("User with email test@example.com already exists", exception.getMessage());
     }
 
+    @Test
+    void createUserAndAccount_ConcurrentSignupWithSameEmail_MapsUniqueViolationToDuplicateEmail() {
+        // Arrange
+        when(userRepo.save(any(User.class))).thenReturn(testUser);
+        doThrow(new DataIntegrityViolationException("insert users", new RuntimeException(
+                "Unique index or primary key violation: \"PUBLIC.UK_USERS_EMAIL_INDEX_4 ON PUBLIC.USERS(EMAIL)\"")))
+                .when(userRepo).flush();
+
+        // Act & Assert
+        assertThrows(DuplicateEmailException.class, () -> doService.createUserAndAccount(testUser));
+        verifyNoInteractions(accountRepo, walletBalanceRepo);
+        verify(emailIndex, never()).add(anyString());
+    }
+
     @Test
     void doIntraTransfer_Success() {
         // Arrange
@@ -108,14 +173,37 @@ class DoServiceTest {
         when(walletBalanceRepo.save(any(WalletBalance.class))).thenReturn(testWalletBalance);
 
         // Act
-        assertDoesNotThrow(() -> doService.doIntraTransfer(transferDto));
+        BalanceResponseDTO sourceBalance = assertDoesNotThrow(() -> doService.doIntraTransfer(transferDto));
 
         // Assert
         assertEquals(BigDecimal.valueOf(500), testWalletBalance.getAmount());
+        assertEquals(BigDecimal.valueOf(500), sourceBalance.getBalance());
         assertEquals(BigDecimal.valueOf(1000), toWallet.getAmount());
         verify(walletBalanceRepo, times(2)).save(any(WalletBalance.class));
     }
 
+    @Test
+    void fundAccount_AppendsFundingEntryToLedger() {
+        // Arrange
+        when(accountRepo.findByAccountNumberWithLock("ACCT1234567890")).thenReturn(Optional.of(testAccount));
+
+        // Act
+        BalanceResponseDTO result = doService.fundAccount(new FundAccountDto("ACCT1234567890", BigDecimal.valueOf(250)));
+
+        // Assert
+        assertEquals(BigDecimal.valueOf(1250), testWalletBalance.getAmount());
+        assertEquals(BigDecimal.valueOf(1250), result.getBalance());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LedgerEntry>> entries = ArgumentCaptor.forClass(List.class);
+        verify(ledgerWriter).append(entries.capture());
+        verify(outboxWriter).append(entries.getValue());
+        LedgerEntry entry = entries.getValue().get(0);
+        assertEquals(LedgerEntry.EntryType.FUNDING, entry.getType());
+        assertEquals(LedgerEntry.Direction.CREDIT, entry.getDirection());
+        assertEquals("ACCT1234567890", entry.getAccountNumber());
+        assertEquals(BigDecimal.valueOf(250), entry.getAmount());
+    }
+
     @Test
     void doIntraTransfer_InsufficientBalance() {
         // Arrange
@@ -132,4 +220,254 @@ class DoServiceTest {
                 () -> doService.doIntraTransfer(transferDto));
         assertTrue(exception.getMessage().contains("Insufficient balance"));
     }
+
+    @Test
+    void doIntraTransfer_SubCentAmount_IsRejectedBeforeTouchingBalances() {
+        // Arrange
+        DoTransDto transferDto = new DoTransDto("ACCT1234567890", "ACCT0987654321", new BigDecimal("10.005"));
+
+        // Act & Assert
+        assertThrows(InvalidAmountException.class, () -> doService.doIntraTransfer(transferDto));
+        verifyNoInteractions(accountRepo, walletBalanceRepo, ledgerWriter);
+    }
+
+    @Test
+    void doIntraTransferBatch_NetsMovementsAndReportsPerItemStatus() {
+        // Arrange
+        WalletBalance secondWallet = new WalletBalance();
+        secondWallet.setId(2L);
+        secondWallet.setAmount(BigDecimal.valueOf(100));
+
+        when(accountRepo.findWalletRefs(anyCollection())).thenReturn(List.of(
+                walletRef("ACCT1234567890", 1L), walletRef("ACCT0987654321", 2L)));
+        when(walletBalanceRepo.findAllByIdInWithLock(List.of(1L, 2L)))
+                .thenReturn(List.of(testWalletBalance, secondWallet));
+
+        List<DoTransDto> transfers = List.of(
+                new DoTransDto("ACCT1234567890", "ACCT0987654321", BigDecimal.valueOf(300)),
+                new DoTransDto("ACCT0987654321", "ACCT1234567890", BigDecimal.valueOf(50)),
+                new DoTransDto("ACCT0987654321", "ACCT1234567890", BigDecimal.valueOf(5000)),
+                new DoTransDto("ACCT1234567890", "UNKNOWN", BigDecimal.valueOf(1)),
+                new DoTransDto("ACCT1234567890", "ACCT0987654321", BigDecimal.ZERO));
+
+        // Act
+        List<BatchTransferItemResult> results = doService.doIntraTransferBatch(transfers);
+
+        // Assert
+        assertEquals(List.of(BatchTransferItemResult.Status.SUCCESS, BatchTransferItemResult.Status.SUCCESS,
+                        BatchTransferItemResult.Status.FAILED, BatchTransferItemResult.Status.FAILED,
+                        BatchTransferItemResult.Status.FAILED),
+                results.stream().map(BatchTransferItemResult::getStatus).toList());
+        assertTrue(results.get(2).getMessage().contains("Insufficient balance"));
+        assertEquals("Account not found: UNKNOWN", results.get(3).getMessage());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> updates = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq("UPDATE wallet_balance SET amount = ?, version = version + 1 WHERE id = ?"), updates.capture());
+        assertEquals(2, updates.getValue().size());
+        for (Object[] row : updates.getValue()) {
+            BigDecimal expected = row[1].equals(1L) ? BigDecimal.valueOf(750) : BigDecimal.valueOf(350);
+            assertEquals(0, expected.compareTo((BigDecimal) row[0]));
+        }
+    }
+
+    @Test
+    void doIntraTransfer_Optimistic_AppliesVersionCheckedDebitInWalletIdOrder() {
+        // Arrange
+        ReflectionTestUtils.setField(doService, "transferMode", TransferMode.OPTIMISTIC);
+        when(accountRepo.findWalletSnapshots(anyCollection())).thenReturn(List.of(
+                walletSnapshot("ACCT0987654321", 1L, BigDecimal.valueOf(100), 7L),
+                walletSnapshot("ACCT1234567890", 2L, BigDecimal.valueOf(1000), 3L)));
+        when(walletBalanceRepo.applyDelta(1L, BigDecimal.valueOf(400))).thenReturn(1);
+        when(walletBalanceRepo.applyDeltaIfVersion(2L, 3L, BigDecimal.valueOf(-400))).thenReturn(1);
+
+        // Act
+        doService.doIntraTransfer(new DoTransDto("ACCT1234567890", "ACCT0987654321", BigDecimal.valueOf(400)));
+
+        // Assert
+        InOrder order = inOrder(walletBalanceRepo);
+        order.verify(walletBalanceRepo).applyDelta(1L, BigDecimal.valueOf(400));
+        order.verify(walletBalanceRepo).applyDeltaIfVersion(2L, 3L, BigDecimal.valueOf(-400));
+        verify(accountRepo, never()).findByAccountNumberWithLock(anyString());
+        verify(ledgerWriter).append(anyList());
+    }
+
+    @Test
+    void doIntraTransfer_Optimistic_ShardedDestination_DebitsSourceWalletBeforeCreditingShard() {
+        // Arrange
+        ReflectionTestUtils.setField(doService, "transferMode", TransferMode.OPTIMISTIC);
+        when(accountRepo.findWalletSnapshots(anyCollection())).thenReturn(List.of(
+                walletSnapshot("ACCT0987654321", 1L, BigDecimal.valueOf(100), 7L),
+                walletSnapshot("ACCT1234567890", 2L, BigDecimal.valueOf(1000), 3L)));
+        when(balanceShards.isSharded("ACCT1234567890")).thenReturn(false);
+        when(balanceShards.isSharded("ACCT0987654321")).thenReturn(true);
+        when(walletBalanceRepo.applyDeltaIfVersion(2L, 3L, BigDecimal.valueOf(-400))).thenReturn(1);
+        when(balanceShards.credit("ACCT0987654321", BigDecimal.valueOf(400))).thenReturn(true);
+
+        // Act
+        doService.doIntraTransfer(new DoTransDto("ACCT1234567890", "ACCT0987654321", BigDecimal.valueOf(400)));
+
+        // Assert: wallet row before shard row, the order every other path locks in
+        InOrder order = inOrder(walletBalanceRepo, balanceShards);
+        order.verify(walletBalanceRepo).applyDeltaIfVersion(2L, 3L, BigDecimal.valueOf(-400));
+        order.verify(balanceShards).credit("ACCT0987654321", BigDecimal.valueOf(400));
+        verify(walletBalanceRepo, never()).applyDelta(any(), any());
+    }
+
+    @Test
+    void doIntraTransfer_Optimistic_ConcurrentChangeFailsWithOptimisticLockingFailure() {
+        // Arrange
+        ReflectionTestUtils.setField(doService, "transferMode", TransferMode.OPTIMISTIC);
+        when(accountRepo.findWalletSnapshots(anyCollection())).thenReturn(List.of(
+                walletSnapshot("ACCT1234567890", 1L, BigDecimal.valueOf(1000), 3L),
+                walletSnapshot("ACCT0987654321", 2L, BigDecimal.valueOf(100), 7L)));
+        when(walletBalanceRepo.applyDeltaIfVersion(1L, 3L, BigDecimal.valueOf(-400))).thenReturn(0);
+
+        // Act & Assert
+        assertThrows(ObjectOptimisticLockingFailureException.class, () -> doService.doIntraTransfer(
+                new DoTransDto("ACCT1234567890", "ACCT0987654321", BigDecimal.valueOf(400))));
+        verify(walletBalanceRepo, never()).applyDelta(any(), any());
+        verifyNoInteractions(ledgerWriter);
+    }
+
+    @Test
+    void doIntraTransfer_Optimistic_LostDebitRace_RereadsWalletAndRetriesInSameTransaction() {
+        // Arrange
+        ReflectionTestUtils.setField(doService, "transferMode", TransferMode.OPTIMISTIC);
+        when(accountRepo.findWalletSnapshots(anyCollection()))
+                .thenReturn(List.of(walletSnapshot("ACCT1234567890", 1L, BigDecimal.valueOf(1000), 3L),
+                        walletSnapshot("ACCT0987654321", 2L, BigDecimal.valueOf(100), 7L)))
+                .thenReturn(List.of(walletSnapshot("ACCT1234567890", 1L, BigDecimal.valueOf(900), 4L)));
+        when(walletBalanceRepo.applyDeltaIfVersion(1L, 3L, BigDecimal.valueOf(-400))).thenReturn(0);
+        when(walletBalanceRepo.applyDeltaIfVersion(1L, 4L, BigDecimal.valueOf(-400))).thenReturn(1);
+        when(walletBalanceRepo.applyDelta(2L, BigDecimal.valueOf(400))).thenReturn(1);
+
+        // Act
+        doService.doIntraTransfer(new DoTransDto("ACCT1234567890", "ACCT0987654321", BigDecimal.valueOf(400)));
+
+        // Assert
+        verify(walletBalanceRepo).applyDeltaIfVersion(1L, 4L, BigDecimal.valueOf(-400));
+        verify(walletBalanceRepo).applyDelta(2L, BigDecimal.valueOf(400));
+        verify(ledgerWriter).append(anyList());
+    }
+
+    @Test
+    void doIntraTransfer_BalanceEngine_CreditsDestinationOnlyAfterCommitAndRefundsOnRollback() {
+        // Arrange
+        InMemoryBalanceEngine balanceEngine = mock(InMemoryBalanceEngine.class);
+        ReflectionTestUtils.setField(doService, "balanceEngine", balanceEngine);
+        when(balanceEngine.debit("ACCT1234567890", "ACCT0987654321", 40_000L)).thenReturn(60_000L);
+        DoTransDto transfer = new DoTransDto("ACCT1234567890", "ACCT0987654321", BigDecimal.valueOf(400));
+
+        for (int status : new int[]{TransactionSynchronization.STATUS_ROLLED_BACK,
+                TransactionSynchronization.STATUS_COMMITTED}) {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                // Act
+                BalanceResponseDTO sourceBalance = doService.doIntraTransfer(transfer);
+                assertEquals(new BigDecimal("600.00"), sourceBalance.getBalance());
+                verify(balanceEngine).writeDeltas(Map.of("ACCT1234567890", -40_000L, "ACCT0987654321", 40_000L));
+                verify(balanceEngine, never()).settle(anyString(), anyString(), anyLong(), anyBoolean());
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(synchronization -> synchronization.afterCompletion(status));
+            } finally {
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+
+            // Assert
+            verify(balanceEngine).settle("ACCT1234567890", "ACCT0987654321", 40_000L,
+                    status == TransactionSynchronization.STATUS_COMMITTED);
+            clearInvocations(balanceEngine);
+        }
+    }
+
+    @Test
+    void doIntraTransfer_BalanceEngine_RefundsSourceWhenTheTransactionRollsBack() {
+        // Arrange
+        InMemoryBalanceEngine balanceEngine = new InMemoryBalanceEngine(accountRepo, jdbcTemplate);
+        ReflectionTestUtils.setField(balanceEngine, "lockStripes", 16);
+        ReflectionTestUtils.setField(balanceEngine, "idleEviction", Duration.ofMinutes(10));
+        balanceEngine.initLocks();
+        ReflectionTestUtils.setField(doService, "balanceEngine", balanceEngine);
+        Account destination = new Account();
+        destination.setAccountNumber("ACCT0987654321");
+        destination.setWalletBalance(new WalletBalance());
+        destination.getWalletBalance().setId(2L);
+        destination.getWalletBalance().setAmount(BigDecimal.ZERO);
+        when(accountRepo.findByAccountNumber("ACCT1234567890")).thenReturn(Optional.of(testAccount));
+        when(accountRepo.findByAccountNumber("ACCT0987654321")).thenReturn(Optional.of(destination));
+        doThrow(new IllegalStateException("ledger unavailable")).when(ledgerWriter).append(anyList());
+        DoTransDto transfer = new DoTransDto("ACCT1234567890", "ACCT0987654321", BigDecimal.valueOf(400));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // Act
+            assertThrows(IllegalStateException.class, () -> doService.doIntraTransfer(transfer));
+            assertEquals(60_000L, balanceEngine.balanceOf("ACCT1234567890"));
+            TransactionSynchronizationManager.getSynchronizations()
+                    .forEach(synchronization -> synchronization.afterCompletion(
+                            TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        // Assert
+        assertEquals(100_000L, balanceEngine.balanceOf("ACCT1234567890"));
+        assertEquals(0L, balanceEngine.balanceOf("ACCT0987654321"));
+    }
+
+    @Test
+    void everyServiceCallMethod_IsTimedUnderItsOwnOperationTag() throws NoSuchMethodException {
+        for (Method method : ServiceCall.class.getMethods()) {
+            Timed timed = DoService.class.getMethod(method.getName(), method.getParameterTypes())
+                    .getAnnotation(Timed.class);
+            assertNotNull(timed, method.getName() + " has no @Timed");
+            assertEquals("wallet.service", timed.value());
+            assertArrayEquals(new String[]{"operation", method.getName()}, timed.extraTags());
+        }
+    }
+
+    private static AccountWalletSnapshot walletSnapshot(String accountNumber, Long walletBalanceId,
+                                                        BigDecimal amount, Long version) {
+        return new AccountWalletSnapshot() {
+            @Override
+            public String getAccountNumber() {
+                return accountNumber;
+            }
+
+            @Override
+            public Long getWalletBalanceId() {
+                return walletBalanceId;
+            }
+
+            @Override
+            public BigDecimal getAmount() {
+                return amount;
+            }
+
+            @Override
+            public BigDecimal getHeldAmount() {
+                return BigDecimal.ZERO;
+            }
+
+            @Override
+            public Long getVersion() {
+                return version;
+            }
+        };
+    }
+
+    private static AccountWalletRef walletRef(String accountNumber, Long walletBalanceId) {
+        return new AccountWalletRef() {
+            @Override
+            public String getAccountNumber() {
+                return accountNumber;
+            }
+
+            @Override
+            public Long getWalletBalanceId() {
+                return walletBalanceId;
+            }
+        };
+    }
 }
\ No newline at end of file
@@ -0,0 +1,37 @@
+package com.example.test.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class EmailIndexTest {
+
+    @Test
+    void neverMissesAddedEmails_AndRarelyClaimsUnseenOnes() {
+        EmailIndex index = new EmailIndex(mock(JdbcTemplate.class), 10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            index.add("user" + i + "@example.com");
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(index.mightContain("user" + i + "@example.com"));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            if (index.mightContain("other" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void nullEmail_IsNeverIndexedOrReported() {
+        EmailIndex index = new EmailIndex(mock(JdbcTemplate.class), 1_000, 0.01);
+        index.add(null);
+
+        assertFalse(index.mightContain(null));
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.test.service;
+
+import com.example.test.dto.FxRatesDTO;
+import com.example.test.exception.InvalidAmountException;
+import com.example.test.exception.UnsupportedCurrencyException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FxRateTableTest {
+
+    private final FxRateTable table = new FxRateTable("USD", "EUR:0.80, GBP:0.50");
+
+    @Test
+    void quote_UsesCrossRateBetweenNonBaseCurrencies() {
+        FxRateTable.Quote quote = table.quote("eur", "GBP");
+
+        assertEquals("EUR", quote.sourceCurrency());
+        assertEquals(0, new BigDecimal("0.625").compareTo(quote.rate()));
+        assertEquals(new BigDecimal("62.50"), quote.convert(BigDecimal.valueOf(100)));
+        assertEquals(new BigDecimal("80.00"), table.quote("USD", "EUR").convert(BigDecimal.valueOf(100)));
+        assertEquals(0, BigDecimal.ONE.compareTo(table.quote("GBP", "GBP").rate()));
+    }
+
+    @Test
+    void convert_RoundsHalfEvenToTwoPlaces() {
+        FxRateTable.Quote quote = new FxRateTable("USD", "EUR:0.925").quote("USD", "EUR");
+
+        assertEquals(new BigDecimal("0.92"), quote.convert(BigDecimal.ONE));
+        assertEquals(new BigDecimal("0.93"), quote.convert(new BigDecimal("1.01")));
+    }
+
+    @Test
+    void convert_RoundsToTargetMinorUnitWithRateAtFixedScale() {
+        FxRateTable rates = new FxRateTable("USD", "JPY:151.50, KWD:0.3075");
+
+        assertEquals(new BigDecimal("15150"), rates.quote("USD", "JPY").convert(BigDecimal.valueOf(100)));
+        assertEquals(new BigDecimal("3.075"), rates.quote("USD", "KWD").convert(BigDecimal.TEN));
+        FxRateTable.Quote yenToDollar = rates.quote("JPY", "USD");
+        assertEquals(new BigDecimal("0.0066006600660066"), yenToDollar.rate());
+        assertEquals(new BigDecimal("6.60"), yenToDollar.convert(BigDecimal.valueOf(1000)));
+        assertThrows(UnsupportedCurrencyException.class, () -> new FxRateTable("USD", "XAU:0.0005"));
+    }
+
+    @Test
+    void update_PublishesNewVersionAndKeepsOtherRates() {
+        FxRateTable.Quote before = table.quote("USD", "EUR");
+
+        FxRatesDTO rates = table.update(Map.of("eur", new BigDecimal("0.90"), "JPY", new BigDecimal("150")));
+
+        assertEquals(before.version() + 1, rates.getVersion());
+        assertEquals(0, new BigDecimal("0.50").compareTo(rates.getRates().get("GBP")));
+        assertEquals(0, new BigDecimal("0.90").compareTo(table.quote("USD", "EUR").rate()));
+        assertEquals(0, new BigDecimal("0.80").compareTo(before.rate()));
+        assertEquals(rates.getVersion(), table.quote("JPY", "GBP").version());
+    }
+
+    @Test
+    void update_RejectsInvalidRatesWithoutPublishing() {
+        long version = table.rates().getVersion();
+
+        assertThrows(InvalidAmountException.class, () -> table.update(Map.of("EUR", BigDecimal.ZERO)));
+        assertThrows(InvalidAmountException.class, () -> table.update(Map.of("USD", new BigDecimal("2"))));
+        assertThrows(UnsupportedCurrencyException.class, () -> table.update(Map.of("XYZ1", BigDecimal.ONE)));
+
+        assertEquals(version, table.rates().getVersion());
+    }
+
+    @Test
+    void quote_RejectsCurrenciesWithoutRate() {
+        assertThrows(UnsupportedCurrencyException.class, () -> table.quote("USD", "CHF"));
+        assertThrows(UnsupportedCurrencyException.class, () -> table.quote(null, "EUR"));
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.test.service;
+
+import com.example.test.dto.AccountBalancesDTO;
+import com.example.test.dto.FundAccountDto;
+import com.example.test.dto.FxTransferDto;
+import com.example.test.dto.FxTransferResultDTO;
+import com.example.test.exception.InsufficientBalanceException;
+import com.example.test.exception.InvalidAmountException;
+import com.example.test.exception.SameAccountTransferException;
+import com.example.test.exception.UnsupportedCurrencyException;
+import com.example.test.repo.FxTransferRepo;
+import com.example.test.repo.LedgerEntryRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:fx",
+        "spring.jpa.show-sql=false",
+        "wallet.fx.base-currency=USD",
+        "wallet.fx.rates=EUR:0.80,GBP:0.50,JPY:150"
+})
+class FxTransferTest {
+
+    @Autowired
+    private ServiceCall serviceCall;
+
+    @Autowired
+    private FxTransferRepo fxTransferRepo;
+
+    @Autowired
+    private LedgerEntryRepo ledgerEntryRepo;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Test
+    void doFxTransfer_MovesMoneyAcrossCurrencyBalances() throws Exception {
+        String alice = testAccounts.create("fxa");
+        String bob = testAccounts.create("fxb");
+        serviceCall.fundAccount(new FundAccountDto(alice, BigDecimal.valueOf(100)));
+
+        FxTransferResultDTO toEur = serviceCall.doFxTransfer(new FxTransferDto(alice, bob, BigDecimal.valueOf(50), "USD", "EUR"));
+        FxTransferResultDTO toGbp = serviceCall.doFxTransfer(new FxTransferDto(bob, bob, BigDecimal.valueOf(40), "EUR", "GBP"));
+
+        assertEquals(new BigDecimal("40.00"), toEur.getTargetAmount());
+        assertEquals(new BigDecimal("25.00"), toGbp.getTargetAmount());
+        AccountBalancesDTO aliceBalances = serviceCall.balancesByCurrency(alice);
+        assertEquals("USD", aliceBalances.getBaseCurrency());
+        assertEquals(0, BigDecimal.valueOf(50).compareTo(aliceBalances.getBalances().get("USD")));
+        AccountBalancesDTO bobBalances = serviceCall.balancesByCurrency(bob);
+        assertEquals(0, BigDecimal.ZERO.compareTo(bobBalances.getBalances().get("USD")));
+        assertEquals(0, BigDecimal.ZERO.compareTo(bobBalances.getBalances().get("EUR")));
+        assertEquals(0, BigDecimal.valueOf(25).compareTo(bobBalances.getBalances().get("GBP")));
+        assertTrue(fxTransferRepo.findAll().stream().anyMatch(fx -> fx.getReference().equals(toGbp.getReference())
+                && fx.getRate().compareTo(new BigDecimal("0.625")) == 0));
+
+        assertEquals(1, ledgerEntryRepo.findAll().stream()
+                .filter(entry -> entry.getReference().equals(toEur.getReference())).count());
+        assertEquals(0, ledgerEntryRepo.findAll().stream()
+                .filter(entry -> entry.getReference().equals(toGbp.getReference())).count());
+    }
+
+    @Test
+    void doFxTransfer_RejectsShortfallSameCurrencySelfTransferAndUnknownCurrency() {
+        String carol = testAccounts.create("fxc");
+        String dave = testAccounts.create("fxd");
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> serviceCall.doFxTransfer(new FxTransferDto(carol, dave, BigDecimal.ONE, "EUR", "USD")));
+        assertThrows(SameAccountTransferException.class,
+                () -> serviceCall.doFxTransfer(new FxTransferDto(carol, carol, BigDecimal.ONE, "EUR", "EUR")));
+        assertThrows(UnsupportedCurrencyException.class,
+                () -> serviceCall.doFxTransfer(new FxTransferDto(carol, dave, BigDecimal.ONE, "USD", "CHF")));
+        assertEquals(1, serviceCall.balancesByCurrency(carol).getBalances().size());
+    }
+
+    @Test
+    void doFxTransfer_RoundsToEachCurrencysMinorUnitAndRecordsTheAppliedRate() {
+        String erin = testAccounts.create("fxe");
+        serviceCall.fundAccount(new FundAccountDto(erin, BigDecimal.valueOf(10)));
+
+        FxTransferResultDTO toYen = serviceCall.doFxTransfer(
+                new FxTransferDto(erin, erin, new BigDecimal("1.01"), "USD", "JPY"));
+        assertEquals(new BigDecimal("152"), toYen.getTargetAmount());
+        assertEquals(new BigDecimal("152"), serviceCall.balancesByCurrency(erin).getBalances().get("JPY"));
+        assertThrows(InvalidAmountException.class, () -> serviceCall.doFxTransfer(
+                new FxTransferDto(erin, erin, new BigDecimal("0.5"), "JPY", "USD")));
+
+        FxTransferResultDTO toDollar = serviceCall.doFxTransfer(
+                new FxTransferDto(erin, erin, BigDecimal.valueOf(152), "JPY", "USD"));
+        assertEquals(new BigDecimal("1.01"), toDollar.getTargetAmount());
+        assertEquals(new BigDecimal("0.0066666666666667"), toDollar.getRate());
+        assertTrue(fxTransferRepo.findAll().stream().anyMatch(fx -> fx.getReference().equals(toDollar.getReference())
+                && fx.getRate().equals(toDollar.getRate())));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.test.service;
+
+import com.example.test.dto.AvailableBalanceDTO;
+import com.example.test.dto.DoTransDto;
+import com.example.test.dto.FundAccountDto;
+import com.example.test.dto.HoldDTO;
+import com.example.test.dto.HoldRequestDto;
+import com.example.test.exception.HoldNotActiveException;
+import com.example.test.exception.InsufficientBalanceException;
+import com.example.test.model.Hold;
+import com.example.test.repo.HoldRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:holds",
+        "spring.jpa.show-sql=false"
+})
+class HoldTest {
+
+    @Autowired
+    private ServiceCall serviceCall;
+
+    @Autowired
+    private HoldRepo holdRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private BalanceShards balanceShards;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Test
+    void captureHold_SettlesCapturedPartAndReleasesTheRest() {
+        String payer = testAccounts.createFunded("holda", 100);
+        String merchant = testAccounts.createFunded("holdb", 0);
+
+        HoldDTO hold = serviceCall.authorizeHold(new HoldRequestDto(payer, merchant, BigDecimal.valueOf(70), null));
+
+        assertAvailable(payer, 100, 70, 30);
+        assertThrows(InsufficientBalanceException.class,
+                () -> serviceCall.doIntraTransfer(new DoTransDto(payer, merchant, BigDecimal.valueOf(40))));
+        assertThrows(InsufficientBalanceException.class,
+                () -> serviceCall.authorizeHold(new HoldRequestDto(payer, merchant, BigDecimal.valueOf(31), null)));
+
+        HoldDTO captured = serviceCall.captureHold(hold.getReference(), BigDecimal.valueOf(60));
+
+        assertEquals(Hold.Status.CAPTURED, captured.getStatus());
+        assertAvailable(payer, 40, 0, 40);
+        assertAvailable(merchant, 60, 0, 60);
+        assertThrows(HoldNotActiveException.class, () -> serviceCall.captureHold(hold.getReference(), null));
+        assertThrows(HoldNotActiveException.class, () -> serviceCall.releaseHold(hold.getReference()));
+        assertClosed(hold, Hold.Status.CAPTURED);
+    }
+
+    @Test
+    void releaseHold_RestoresAvailableBalanceOnce() {
+        String payer = testAccounts.createFunded("holdc", 50);
+        String merchant = testAccounts.createFunded("holdd", 0);
+        HoldDTO hold = serviceCall.authorizeHold(new HoldRequestDto(payer, merchant, BigDecimal.valueOf(50), null));
+        assertAvailable(payer, 50, 50, 0);
+
+        assertEquals(Hold.Status.RELEASED, serviceCall.releaseHold(hold.getReference()).getStatus());
+
+        assertAvailable(payer, 50, 0, 50);
+        HoldNotActiveException ex = assertThrows(HoldNotActiveException.class,
+                () -> serviceCall.captureHold(hold.getReference(), null));
+        assertTrue(ex.getMessage().endsWith("RELEASED"));
+        serviceCall.doIntraTransfer(new DoTransDto(payer, merchant, BigDecimal.valueOf(50)));
+        assertClosed(hold, Hold.Status.RELEASED);
+    }
+
+    @Test
+    void expiryWheel_ExpiresDueHoldsOnlyEvenWhenLaterOnesShareTheirSlot() {
+        String payer = testAccounts.createFunded("holde", 100);
+        String merchant = testAccounts.createFunded("holdf", 0);
+        HoldDTO shortHold = serviceCall.authorizeHold(new HoldRequestDto(payer, merchant, BigDecimal.valueOf(10), 30L));
+        HoldDTO longHold = serviceCall.authorizeHold(new HoldRequestDto(payer, merchant, BigDecimal.valueOf(20), 7200L));
+        assertAvailable(payer, 100, 30, 70);
+
+        // A private 60-slot wheel: the long hold goes round it many times before it is due
+        HoldExpiryWheel wheel = new HoldExpiryWheel(holdRepo, jdbcTemplate, transactionTemplate,
+                new SimpleMeterRegistry(), 1000, 60);
+        wheel.schedule(id(shortHold), shortHold.getExpiresAt());
+        wheel.schedule(id(longHold), longHold.getExpiresAt());
+        long now = System.currentTimeMillis();
+
+        assertEquals(0, wheel.advance(now + 10_000));
+        assertEquals(1, wheel.advance(now + Duration.ofMinutes(2).toMillis()));
+        assertEquals(Hold.Status.EXPIRED, holdRepo.findByReference(shortHold.getReference()).orElseThrow().getStatus());
+        assertEquals(Hold.Status.AUTHORIZED, holdRepo.findByReference(longHold.getReference()).orElseThrow().getStatus());
+        assertAvailable(payer, 100, 20, 80);
+        assertClosed(shortHold, Hold.Status.EXPIRED);
+
+        assertEquals(1, wheel.advance(now + Duration.ofHours(3).toMillis()));
+        assertAvailable(payer, 100, 0, 100);
+        assertThrows(HoldNotActiveException.class, () -> serviceCall.captureHold(longHold.getReference(), null));
+    }
+
+    @Test
+    void authorizeHold_CollectsShardFundsOnShardedAccount() {
+        String payer = testAccounts.createFunded("holdg", 0);
+        String merchant = testAccounts.createFunded("holdh", 0);
+        balanceShards.enable(payer, 4);
+        serviceCall.fundAccount(new FundAccountDto(payer, BigDecimal.valueOf(80)));
+        assertAvailable(payer, 80, 0, 80);
+
+        assertThrows(InsufficientBalanceException.class,
+                () -> serviceCall.authorizeHold(new HoldRequestDto(payer, merchant, BigDecimal.valueOf(81), null)));
+        HoldDTO hold = serviceCall.authorizeHold(new HoldRequestDto(payer, merchant, BigDecimal.valueOf(80), null));
+
+        assertAvailable(payer, 80, 80, 0);
+        serviceCall.captureHold(hold.getReference(), null);
+        assertAvailable(payer, 0, 0, 0);
+        assertAvailable(merchant, 80, 0, 80);
+    }
+
+    private long id(HoldDTO hold) {
+        return holdRepo.findByReference(hold.getReference()).orElseThrow().getId();
+    }
+
+    /** Reads the row itself, so a later write of a stale entity would show up here. */
+    private void assertClosed(HoldDTO hold, Hold.Status status) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT status, closed_at FROM wallet_hold WHERE reference = ?", hold.getReference());
+        assertEquals(status.name(), row.get("STATUS"));
+        assertNotNull(row.get("CLOSED_AT"), "closed_at");
+    }
+
+    private void assertAvailable(String accountNumber, long balance, long held, long available) {
+        AvailableBalanceDTO dto = serviceCall.availableBalance(accountNumber);
+        assertEquals(0, BigDecimal.valueOf(balance).compareTo(dto.getBalance()), "balance");
+        assertEquals(0, BigDecimal.valueOf(held).compareTo(dto.getHeldAmount()), "held");
+        assertEquals(0, BigDecimal.valueOf(available).compareTo(dto.getAvailableBalance()), "available");
+    }
+}
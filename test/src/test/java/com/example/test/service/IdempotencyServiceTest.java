@@ -0,0 +1,183 @@
+package com.example.test.service;
+
+import com.example.test.dto.ApiResponse;
+import com.example.test.exception.IdempotencyCacheFullException;
+import com.example.test.model.IdempotencyRecord;
+import com.example.test.repo.IdempotencyRecordRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyRecordRepo idempotencyRecordRepo;
+
+    private IdempotencyService idempotencyService;
+
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        idempotencyService = new IdempotencyService(idempotencyRecordRepo, objectMapper);
+        ReflectionTestUtils.setField(idempotencyService, "maxEntries", 2);
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofHours(1));
+    }
+
+    private ResponseEntity<ApiResponse<String>> run(String key) {
+        return idempotencyService.execute("fund", key, key, () ->
+                ResponseEntity.ok(ApiResponse.success("done", "run-" + executions.incrementAndGet())));
+    }
+
+    @Test
+    void execute_ReplaysFromMemoryWithoutRunningAgain() {
+        when(idempotencyRecordRepo.findById(anyString())).thenReturn(Optional.empty());
+
+        ResponseEntity<ApiResponse<String>> first = run("k1");
+        ResponseEntity<ApiResponse<String>> second = run("k1");
+
+        assertEquals(1, executions.get());
+        assertEquals(first.getBody().getData(), second.getBody().getData());
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyService.REPLAY_HEADER));
+        verify(idempotencyRecordRepo, times(1)).findById("fund:k1");
+    }
+
+    @Test
+    void execute_WritesRecordBeforeReturningAndAnswersEvictedKeyFromTable() {
+        when(idempotencyRecordRepo.findById(anyString())).thenReturn(Optional.empty());
+
+        run("k1");
+
+        // Written with the response, not when the cache lets go of it
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<IdempotencyRecord>> saved = ArgumentCaptor.forClass(List.class);
+        verify(idempotencyRecordRepo).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        IdempotencyRecord record = saved.getValue().get(0);
+        assertEquals("fund:k1", record.getIdempotencyKey());
+
+        run("k2");
+        run("k3");
+        verify(idempotencyRecordRepo, times(3)).saveAll(anyList());
+
+        // An evicted key is answered from the table
+        when(idempotencyRecordRepo.findById("fund:k1")).thenReturn(Optional.of(record));
+        ResponseEntity<ApiResponse<String>> replay = run("k1");
+        assertEquals(3, executions.get());
+        assertEquals("run-1", replay.getBody().getData());
+    }
+
+    @Test
+    void execute_ReplaysEvictedKeyFromMemoryUntilItsRowIsWritten() {
+        when(idempotencyRecordRepo.findById(anyString())).thenReturn(Optional.empty());
+        when(idempotencyRecordRepo.saveAll(anyList())).thenThrow(new IllegalStateException("database down"));
+
+        run("k1");
+        run("k2");
+        run("k3");
+
+        ResponseEntity<ApiResponse<String>> replay = run("k1");
+        assertEquals(3, executions.get());
+        assertEquals("run-1", replay.getBody().getData());
+        verify(idempotencyRecordRepo, times(1)).findById("fund:k1");
+    }
+
+    @Test
+    void execute_RetriesFailedWritesOnceTheTableTakesWritesAgain() {
+        when(idempotencyRecordRepo.findById(anyString())).thenReturn(Optional.empty());
+        when(idempotencyRecordRepo.saveAll(anyList()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(List.of());
+
+        run("k1");
+        run("k2");
+        run("k3");
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<IdempotencyRecord>> saved = ArgumentCaptor.forClass(List.class);
+        verify(idempotencyRecordRepo, times(4)).saveAll(saved.capture());
+        assertEquals(List.of("fund:k1", "fund:k2"), saved.getAllValues().get(3).stream()
+                .map(IdempotencyRecord::getIdempotencyKey).toList());
+
+        // Written now, so evicted k1 comes from the table
+        run("k1");
+        verify(idempotencyRecordRepo, times(2)).findById("fund:k1");
+    }
+
+    @Test
+    void execute_DoesNotReplayExpiredUnwrittenKey() {
+        when(idempotencyRecordRepo.findById(anyString())).thenReturn(Optional.empty());
+        when(idempotencyRecordRepo.saveAll(anyList())).thenThrow(new IllegalStateException("database down"));
+
+        run("k1");
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofSeconds(-1));
+
+        run("k1");
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void purgeExpired_DropsExpiredUnwrittenKeys() {
+        when(idempotencyRecordRepo.findById(anyString())).thenReturn(Optional.empty());
+        when(idempotencyRecordRepo.saveAll(anyList()))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenThrow(new IllegalStateException("database down"))
+                .thenReturn(List.of());
+
+        run("k1");
+        run("k2");
+        run("k3");
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofSeconds(-1));
+        idempotencyService.purgeExpired();
+
+        // The next write succeeds and finds nothing left to retry
+        ReflectionTestUtils.setField(idempotencyService, "ttl", Duration.ofHours(1));
+        run("k4");
+        verify(idempotencyRecordRepo, times(4)).saveAll(anyList());
+    }
+
+    @Test
+    void execute_RefusesNewKeysWhenEverySlotIsInProgress() {
+        when(idempotencyRecordRepo.findById(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(IdempotencyCacheFullException.class, () -> idempotencyService.execute("fund", "k1", "k1",
+                () -> idempotencyService.execute("fund", "k2", "k2",
+                        () -> run("k3"))));
+
+        assertEquals(0, executions.get());
+        run("k3");
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void execute_ReleasesKeyWhenRequestFails() {
+        when(idempotencyRecordRepo.findById(anyString())).thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("fund", "k1", "k1",
+                () -> { throw new IllegalStateException("boom"); }));
+
+        run("k1");
+        assertEquals(1, executions.get());
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.test.service;
+
+import com.example.test.exception.AccountNotFoundException;
+import com.example.test.exception.InsufficientBalanceException;
+import com.example.test.exception.InvalidAmountException;
+import com.example.test.exception.SameAccountTransferException;
+import com.example.test.model.Account;
+import com.example.test.model.WalletBalance;
+import com.example.test.repo.AccountRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryBalanceEngineTest {
+
+    @Mock
+    private AccountRepo accountRepo;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private InMemoryBalanceEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new InMemoryBalanceEngine(accountRepo, jdbcTemplate);
+        ReflectionTestUtils.setField(engine, "lockStripes", 16);
+        ReflectionTestUtils.setField(engine, "idleEviction", Duration.ofMinutes(10));
+        engine.initLocks();
+    }
+
+    private void givenAccount(long id, String accountNumber, long balance) {
+        WalletBalance walletBalance = new WalletBalance();
+        walletBalance.setId(id);
+        walletBalance.setAmount(BigDecimal.valueOf(balance));
+        Account account = new Account();
+        account.setId(id);
+        account.setAccountNumber(accountNumber);
+        account.setWalletBalance(walletBalance);
+        when(accountRepo.findByAccountNumber(accountNumber)).thenReturn(Optional.of(account));
+    }
+
+    @Test
+    void debitThenSettle_MovesFundsAndWritesDeltasInWalletIdOrder() {
+        givenAccount(2L, "A", 1000);
+        givenAccount(1L, "B", 0);
+
+        engine.debit("A", "B", 40_000);
+        engine.writeDeltas(Map.of("A", -40_000L, "B", 40_000L));
+        engine.settle("A", "B", 40_000, true);
+
+        assertEquals(60_000, engine.balanceOf("A"));
+        assertEquals(40_000, engine.balanceOf("B"));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(
+                eq("UPDATE wallet_balance SET amount = amount + ?, version = version + 1 WHERE id = ?"), rows.capture());
+        assertArrayEquals(new Object[]{new BigDecimal("400.00"), 1L}, rows.getValue().get(0));
+        assertArrayEquals(new Object[]{new BigDecimal("-400.00"), 2L}, rows.getValue().get(1));
+    }
+
+    @Test
+    void settle_RefundsTheSourceWhenTheTransactionRolledBack() {
+        givenAccount(1L, "A", 1000);
+        givenAccount(2L, "B", 0);
+
+        engine.debit("A", "B", 40_000);
+        engine.settle("A", "B", 40_000, false);
+
+        assertEquals(100_000, engine.balanceOf("A"));
+        assertEquals(0, engine.balanceOf("B"));
+    }
+
+    @Test
+    void evictIdle_KeepsAccountsWithMovementsInFlightAndReloadsTheRest() {
+        givenAccount(1L, "A", 1000);
+        givenAccount(2L, "B", 0);
+        givenAccount(3L, "C", 5);
+        engine.balanceOf("C");
+        engine.debit("A", "B", 40_000);
+        ReflectionTestUtils.setField(engine, "idleEviction", Duration.ofSeconds(-1));
+
+        engine.evictIdle();
+        // A and B stay loaded until the transfer settles, C comes back from its row
+        engine.settle("A", "B", 40_000, true);
+        assertEquals(60_000, engine.balanceOf("A"));
+        assertEquals(40_000, engine.balanceOf("B"));
+        assertEquals(500, engine.balanceOf("C"));
+        verify(accountRepo, times(1)).findByAccountNumber("A");
+        verify(accountRepo, times(2)).findByAccountNumber("C");
+
+        engine.evictIdle();
+        engine.balanceOf("A");
+        verify(accountRepo, times(2)).findByAccountNumber("A");
+    }
+
+    @Test
+    void debit_TakesOnlyFromTheSourceAndKeepsValidations() {
+        givenAccount(1L, "A", 100);
+        givenAccount(2L, "B", 0);
+        when(accountRepo.findByAccountNumber("MISSING")).thenReturn(Optional.empty());
+
+        assertEquals(6_000, engine.debit("A", "B", 4_000));
+        assertEquals(0, engine.balanceOf("B"));
+        assertThrows(InsufficientBalanceException.class, () -> engine.debit("A", "B", 6_001));
+        assertThrows(SameAccountTransferException.class, () -> engine.debit("A", "A", 1));
+        assertThrows(AccountNotFoundException.class, () -> engine.debit("A", "MISSING", 1));
+        assertEquals(6_000, engine.balanceOf("A"));
+    }
+
+    @Test
+    void creditBeyondLongRange_IsRejectedWithoutChangingTheBalance() {
+        givenAccount(1L, "A", 0);
+        engine.reserveCredit("A", Long.MAX_VALUE - 5);
+
+        // Counts the credit still waiting for its commit
+        assertThrows(InvalidAmountException.class, () -> engine.reserveCredit("A", 10));
+        engine.settleCredit("A", Long.MAX_VALUE - 5, true);
+        assertThrows(InvalidAmountException.class, () -> engine.reserveCredit("A", 10));
+        assertEquals(Long.MAX_VALUE - 5, engine.balanceOf("A"));
+    }
+
+    @Test
+    void concurrentDebitsAndSettlements_ConserveTotalBalance() throws Exception {
+        int accounts = 8;
+        for (int i = 0; i < accounts; i++) {
+            givenAccount(i + 1, "ACC" + i, 10_000);
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            pool.submit(() -> {
+                for (int i = 0; i < 5_000; i++) {
+                    int from = (seed + i) % accounts;
+                    int to = (seed + i * 7 + 1) % accounts;
+                    if (from == to) {
+                        continue;
+                    }
+                    try {
+                        engine.debit("ACC" + from, "ACC" + to, 300);
+                    } catch (InsufficientBalanceException ignored) {
+                        continue;
+                    }
+                    // Every third transfer rolls back and refunds its source instead
+                    engine.settle("ACC" + from, "ACC" + to, 300, i % 3 != 0);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        long total = 0;
+        for (int i = 0; i < accounts; i++) {
+            total += engine.balanceOf("ACC" + i);
+        }
+        assertEquals(1_000_000L * accounts, total);
+        verify(accountRepo, atMost(accounts * 2)).findByAccountNumber(anyString());
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.test.service;
+
+import com.example.test.dto.BalanceChangeEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InProcessEventSinkTest {
+
+    private final InProcessEventSink sink = new InProcessEventSink(4);
+
+    @Test
+    void publish_DropsSubscriberThatFallsBehindWithoutHoldingUpOthers() throws InterruptedException {
+        CountDownLatch stuck = new CountDownLatch(1);
+        CountDownLatch dropped = new CountDownLatch(1);
+        sink.subscribe(event -> {
+            try {
+                stuck.await();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }, dropped::countDown);
+        List<BalanceChangeEvent> received = new CopyOnWriteArrayList<>();
+        Runnable unsubscribe = sink.subscribe(received::add);
+
+        // Batches of two: the live subscriber keeps up, the stuck one overflows its buffer of four
+        for (long id = 1; id <= 10; id += 2) {
+            sink.publish(List.of(event(id), event(id + 1)));
+            awaitSize(received, (int) id + 1);
+        }
+
+        assertTrue(dropped.await(5, TimeUnit.SECONDS));
+        assertEquals(LongStream.rangeClosed(1, 10).boxed().toList(),
+                received.stream().map(BalanceChangeEvent::getEventId).toList());
+        assertEquals(1, sink.subscriberCount());
+        unsubscribe.run();
+        assertEquals(0, sink.subscriberCount());
+    }
+
+    @Test
+    void publish_DropsSubscriberWhoseConsumerFails() throws InterruptedException {
+        CountDownLatch dropped = new CountDownLatch(1);
+        sink.subscribe(event -> {
+            throw new IllegalStateException("client gone");
+        }, dropped::countDown);
+
+        sink.publish(List.of(event(1)));
+
+        assertTrue(dropped.await(5, TimeUnit.SECONDS));
+        assertEquals(0, sink.subscriberCount());
+    }
+
+    private static BalanceChangeEvent event(long id) {
+        BalanceChangeEvent event = new BalanceChangeEvent();
+        event.setEventId(id);
+        return event;
+    }
+
+    private static void awaitSize(List<?> received, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
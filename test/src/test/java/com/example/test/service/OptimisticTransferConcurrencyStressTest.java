@@ -0,0 +1,18 @@
+package com.example.test.service;
+
+import org.springframework.boot.test.context.SpringBootTest;
+
+/**
+ * Runs the conservation stress test against the optimistic mode, where every conflicting
+ * debit is rolled back and retried.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfer-stress-optimistic",
+        "spring.jpa.show-sql=false",
+        "wallet.transfer.mode=OPTIMISTIC",
+        "wallet.transfer.lock-retry.max-attempts=20",
+        "wallet.transfer.lock-retry.delay-ms=1",
+        "wallet.transfer.lock-retry.max-delay-ms=50"
+})
+class OptimisticTransferConcurrencyStressTest extends TransferConcurrencyStressTest {
+}
@@ -0,0 +1,164 @@
+package com.example.test.service;
+
+import com.example.test.dto.BalanceChangeEvent;
+import com.example.test.dto.DoTransDto;
+import com.example.test.dto.FundAccountDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:outbox",
+        "spring.jpa.show-sql=false",
+        "wallet.outbox.poll-interval-ms=3600000",
+        "wallet.outbox.max-batch=3",
+        "wallet.outbox.file-sink.path=target/outbox-relay-test/events.ndjson"
+})
+class OutboxRelayTest {
+
+    private static final Path EVENTS_FILE = Path.of("target/outbox-relay-test/events.ndjson");
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private InProcessEventSink inProcessEventSink;
+
+    @Autowired
+    private FailingSink failingSink;
+
+    @Autowired
+    private ServiceCall serviceCall;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @BeforeEach
+    void drainOutbox() throws IOException {
+        failingSink.failing.set(false);
+        outboxRelay.relay();
+        Files.deleteIfExists(EVENTS_FILE);
+    }
+
+    @Test
+    void relay_DeliversCommittedChangesInOrderToEverySinkAndEmptiesOutbox() throws Exception {
+        String from = testAccounts.create("outboxa");
+        String to = testAccounts.create("outboxb");
+        serviceCall.fundAccount(new FundAccountDto(from, BigDecimal.valueOf(100)));
+        serviceCall.doIntraTransfer(new DoTransDto(from, to, BigDecimal.valueOf(30)));
+        assertEquals(3, outboxSize());
+
+        List<BalanceChangeEvent> received = new CopyOnWriteArrayList<>();
+        Runnable unsubscribe = inProcessEventSink.subscribe(received::add);
+        try {
+            assertEquals(3, outboxRelay.relay());
+            awaitSize(received, 3);
+        } finally {
+            unsubscribe.run();
+        }
+
+        assertEquals(0, outboxSize());
+        assertEquals(List.of("FUNDING_CREDIT", "TRANSFER_DEBIT", "TRANSFER_CREDIT"),
+                received.stream().map(BalanceChangeEvent::getType).toList());
+        BalanceChangeEvent debit = received.get(1);
+        assertEquals(from, debit.getAccountNumber());
+        assertEquals(to, debit.getCounterpartyAccount());
+        assertEquals(0, BigDecimal.valueOf(30).compareTo(debit.getAmount()));
+        assertTrue(received.get(0).getEventId() < debit.getEventId());
+        assertEquals(3, Files.readAllLines(EVENTS_FILE).size());
+    }
+
+    @Test
+    void relay_KeepsBatchWhenASinkFailsAndRedeliversItLater() {
+        String account = testAccounts.create("outboxc");
+        serviceCall.fundAccount(new FundAccountDto(account, BigDecimal.valueOf(10)));
+        failingSink.failing.set(true);
+
+        assertEquals(0, outboxRelay.relay());
+        assertEquals(1, outboxSize());
+
+        failingSink.failing.set(false);
+        assertEquals(1, outboxRelay.relay());
+        assertEquals(0, outboxSize());
+    }
+
+    @Test
+    void relay_DropsUnreadableRowAndKeepsRelayingTheRest() throws Exception {
+        jdbcTemplate.update("INSERT INTO outbox_event (aggregate_id, event_type, payload, created_at) " +
+                "VALUES ('BROKEN', 'FUNDING_CREDIT', 'not json', CURRENT_TIMESTAMP)");
+        String account = testAccounts.create("outboxf");
+        serviceCall.fundAccount(new FundAccountDto(account, BigDecimal.valueOf(10)));
+
+        List<BalanceChangeEvent> received = new CopyOnWriteArrayList<>();
+        Runnable unsubscribe = inProcessEventSink.subscribe(received::add);
+        try {
+            assertEquals(1, outboxRelay.relay());
+            awaitSize(received, 1);
+        } finally {
+            unsubscribe.run();
+        }
+
+        assertEquals(0, outboxSize());
+        assertEquals(List.of(account), received.stream().map(BalanceChangeEvent::getAccountNumber).toList());
+    }
+
+    @Test
+    void rolledBackTransfer_WritesNoEvents() {
+        String from = testAccounts.create("outboxd");
+        String to = testAccounts.create("outboxe");
+
+        assertThrows(RuntimeException.class,
+                () -> serviceCall.doIntraTransfer(new DoTransDto(from, to, BigDecimal.valueOf(5))));
+
+        assertEquals(0, outboxSize());
+    }
+
+    private int outboxSize() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM outbox_event", Integer.class);
+    }
+
+    /** Subscribers are fed on their own threads, so wait for them to catch up. */
+    private static void awaitSize(List<?> received, int size) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (received.size() < size && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    static class FailingSink implements EventSink {
+        final AtomicBoolean failing = new AtomicBoolean();
+
+        @Override
+        public void publish(List<BalanceChangeEvent> events) throws IOException {
+            if (failing.get()) {
+                throw new IOException("sink unavailable");
+            }
+        }
+    }
+
+    @TestConfiguration
+    static class FailingSinkConfig {
+        @Bean
+        FailingSink failingSink() {
+            return new FailingSink();
+        }
+    }
+}
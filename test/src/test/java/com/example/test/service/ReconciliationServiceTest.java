@@ -0,0 +1,72 @@
+package com.example.test.service;
+
+import com.example.test.dto.DoTransDto;
+import com.example.test.dto.FundAccountDto;
+import com.example.test.dto.ReconciliationMismatchDTO;
+import com.example.test.dto.ReconciliationReportDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:reconciliation",
+        "spring.jpa.show-sql=false",
+        "wallet.reconciliation.chunk-size=4",
+        "wallet.reconciliation.parallelism=2"
+})
+class ReconciliationServiceTest {
+
+    @Autowired
+    private ReconciliationService reconciliationService;
+
+    @Autowired
+    private BalanceSnapshotService balanceSnapshotService;
+
+    @Autowired
+    private BalanceShards balanceShards;
+
+    @Autowired
+    private ServiceCall serviceCall;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Test
+    void reconcile_ReportsOnlyAccountsWhoseStoredBalanceDrifted() throws Exception {
+        List<String> accounts = new ArrayList<>();
+        for (int i = 0; i < 11; i++) {
+            String accountNumber = testAccounts.create("recon" + i);
+            accounts.add(accountNumber);
+            serviceCall.fundAccount(new FundAccountDto(accountNumber, BigDecimal.valueOf(100)));
+        }
+        balanceShards.enable(accounts.get(3), 2);
+        serviceCall.fundAccount(new FundAccountDto(accounts.get(3), BigDecimal.valueOf(25)));
+        serviceCall.doIntraTransfer(new DoTransDto(accounts.get(0), accounts.get(9), BigDecimal.valueOf(40)));
+        balanceSnapshotService.snapshot(LocalDateTime.now().minusHours(1));
+
+        String drifted = accounts.get(6);
+        jdbcTemplate.update("UPDATE wallet_balance SET amount = amount + 7 WHERE id = " +
+                "(SELECT wallet_balance_id FROM account WHERE account_number = ?)", drifted);
+
+        ReconciliationReportDTO report = reconciliationService.reconcile();
+
+        assertEquals(ReconciliationReportDTO.Status.COMPLETED, report.getStatus());
+        assertTrue(report.getAccountsChecked() >= accounts.size());
+        assertEquals(1, report.getMismatchCount());
+        ReconciliationMismatchDTO mismatch = report.getMismatches().get(0);
+        assertEquals(drifted, mismatch.getAccountNumber());
+        assertEquals(0, BigDecimal.valueOf(7).compareTo(mismatch.getDifference()));
+        assertSame(report, reconciliationService.lastReport());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.test.service;
+
+import com.example.test.dto.StandingOrderDTO;
+import com.example.test.dto.StandingOrderRequestDto;
+import com.example.test.exception.InvalidStandingOrderException;
+import com.example.test.exception.SameAccountTransferException;
+import com.example.test.model.StandingOrder;
+import com.example.test.repo.AccountRepo;
+import com.example.test.repo.StandingOrderRepo;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:standingorders",
+        "spring.jpa.show-sql=false",
+        "wallet.standing-orders.poll-interval-ms=3600000",
+        "wallet.standing-orders.partitions=3",
+        "wallet.standing-orders.batch-size=2",
+        "wallet.standing-orders.spread=0s"
+})
+class StandingOrderServiceTest {
+
+    @Autowired
+    private StandingOrderService standingOrderService;
+
+    @Autowired
+    private ServiceCall serviceCall;
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private StandingOrderRepo standingOrderRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private TestAccounts testAccounts;
+
+    @Test
+    void runDue_SettlesDueOrdersInOrderAndAdvancesOrCompletesThem() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        List<String> payers = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            payers.add(testAccounts.createFunded("sopay" + i, 100));
+        }
+        String payee = testAccounts.createFunded("sopayee", 0);
+        List<StandingOrderDTO> daily = new ArrayList<>();
+        for (String payer : payers) {
+            daily.add(standingOrderService.create(new StandingOrderRequestDto(payer, payee, BigDecimal.valueOf(10),
+                    StandingOrder.Frequency.DAILY, now.minusDays(1), null)));
+        }
+        // Scheduled after the daily order's first occurrence on the same account
+        StandingOrderDTO once = standingOrderService.create(new StandingOrderRequestDto(payers.get(0), payee,
+                BigDecimal.valueOf(85), StandingOrder.Frequency.ONCE, now.minusHours(1), null));
+        StandingOrderDTO tooLarge = standingOrderService.create(new StandingOrderRequestDto(payers.get(1), payee,
+                BigDecimal.valueOf(500), StandingOrder.Frequency.WEEKLY, now.minusHours(1), null));
+        StandingOrderDTO future = standingOrderService.create(new StandingOrderRequestDto(payers.get(2), payee,
+                BigDecimal.valueOf(1), StandingOrder.Frequency.DAILY, now.plusHours(1), null));
+
+        assertEquals(7, standingOrderService.runDue(now));
+
+        // The daily orders were a day behind: the next poll runs today's occurrence too
+        assertEquals(5, standingOrderService.runDue(now));
+        assertEquals(0, standingOrderService.runDue(now));
+
+        // payer 0 paid yesterday's 10 and the 85 in schedule order, leaving too little for today's 10
+        assertEquals(0, BigDecimal.valueOf(5).compareTo(balanceCache.get(payers.get(0))));
+        assertEquals(0, BigDecimal.valueOf(80).compareTo(balanceCache.get(payers.get(1))));
+        assertEquals(0, BigDecimal.valueOf(9 * 10 + 85).compareTo(balanceCache.get(payee)));
+
+        StandingOrderDTO firstDaily = standingOrderService.get(daily.get(0).getReference());
+        assertEquals(StandingOrder.Status.ACTIVE, firstDaily.getStatus());
+        assertEquals(now.plusDays(1), firstDaily.getScheduledAt());
+        assertNotNull(firstDaily.getLastReference());
+        assertEquals(1, firstDaily.getFailureCount());
+        StandingOrderDTO secondDaily = standingOrderService.get(daily.get(1).getReference());
+        assertNull(secondDaily.getLastError());
+        assertEquals(0, secondDaily.getFailureCount());
+        assertEquals(StandingOrder.Status.COMPLETED, standingOrderService.get(once.getReference()).getStatus());
+
+        StandingOrderDTO failed = standingOrderService.get(tooLarge.getReference());
+        assertEquals(StandingOrder.Status.ACTIVE, failed.getStatus());
+        assertEquals(1, failed.getFailureCount());
+        assertTrue(failed.getLastError().startsWith("Insufficient balance"));
+        assertEquals(now.minusHours(1).plusWeeks(1), failed.getScheduledAt());
+
+        assertNull(standingOrderService.get(future.getReference()).getLastRunAt());
+    }
+
+    @Test
+    void runDue_SkipsCancelledOrdersAndCompletesAtEnd() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        String payer = testAccounts.createFunded("socancel", 100);
+        String payee = testAccounts.createFunded("socancelto", 0);
+        StandingOrderDTO cancelled = standingOrderService.create(new StandingOrderRequestDto(payer, payee,
+                BigDecimal.ONE, StandingOrder.Frequency.DAILY, now.minusMinutes(1), null));
+        StandingOrderDTO ending = standingOrderService.create(new StandingOrderRequestDto(payer, payee,
+                BigDecimal.ONE, StandingOrder.Frequency.DAILY, now.minusMinutes(1), now));
+
+        assertEquals(StandingOrder.Status.CANCELLED, standingOrderService.cancel(cancelled.getReference()).getStatus());
+        assertEquals(1, standingOrderService.runDue(now));
+
+        assertEquals(StandingOrder.Status.COMPLETED, standingOrderService.get(ending.getReference()).getStatus());
+        assertEquals(0, BigDecimal.valueOf(99).compareTo(balanceCache.get(payer)));
+    }
+
+    @Test
+    void runBatch_LeavesOutOrdersCancelledSinceReadAndRunsTheRest() {
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        String payer = testAccounts.createFunded("sostale", 100);
+        String payee = testAccounts.createFunded("sostaleto", 0);
+        StandingOrderDTO kept = standingOrderService.create(new StandingOrderRequestDto(payer, payee,
+                BigDecimal.ONE, StandingOrder.Frequency.DAILY, now.minusMinutes(1), null));
+        StandingOrderDTO cancelled = standingOrderService.create(new StandingOrderRequestDto(payer, payee,
+                BigDecimal.TEN, StandingOrder.Frequency.DAILY, now.minusMinutes(1), null));
+        List<StandingOrder> batch = List.of(
+                standingOrderRepo.findByReference(kept.getReference()).orElseThrow(),
+                standingOrderRepo.findByReference(cancelled.getReference()).orElseThrow());
+
+        standingOrderService.cancel(cancelled.getReference());
+
+        assertEquals(1, standingOrderService.runBatch(batch, now));
+        assertEquals(0, standingOrderService.runBatch(batch, now));
+        assertEquals(0, BigDecimal.valueOf(99).compareTo(balanceCache.get(payer)));
+        assertEquals(now.minusMinutes(1).plusDays(1), standingOrderService.get(kept.getReference()).getScheduledAt());
+        assertNull(standingOrderService.get(cancelled.getReference()).getLastRunAt());
+    }
+
+    @Test
+    void create_SpreadsRunsWithinWindowAndValidatesRequest() {
+        StandingOrderService spreading = new StandingOrderService(standingOrderRepo, accountRepo, serviceCall,
+                jdbcTemplate, transactionManager, new SimpleMeterRegistry(), 100, 2, 1, 10, Duration.ofMinutes(10), 3, 20, 500);
+        String payer = testAccounts.createFunded("sospread", 0);
+        String payee = testAccounts.createFunded("sospreadto", 0);
+        LocalDateTime midnight = LocalDateTime.now().plusDays(1).toLocalDate().atStartOfDay();
+
+        for (int i = 0; i < 20; i++) {
+            StandingOrderDTO order = spreading.create(new StandingOrderRequestDto(payer, payee, BigDecimal.ONE,
+                    StandingOrder.Frequency.MONTHLY, midnight, null));
+            assertEquals(midnight, order.getScheduledAt());
+            assertFalse(order.getNextRunAt().isBefore(midnight));
+            assertTrue(order.getNextRunAt().isBefore(midnight.plusMinutes(10)));
+        }
+        assertThrows(SameAccountTransferException.class, () -> spreading.create(new StandingOrderRequestDto(
+                payer, payer, BigDecimal.ONE, StandingOrder.Frequency.DAILY, null, null)));
+        assertThrows(InvalidStandingOrderException.class, () -> spreading.create(new StandingOrderRequestDto(
+                payer, payee, BigDecimal.ONE, null, null, null)));
+    }
+}
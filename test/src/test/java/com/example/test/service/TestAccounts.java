@@ -0,0 +1,55 @@
+package com.example.test.service;
+
+import com.example.test.dto.FundAccountDto;
+import com.example.test.model.Account;
+import com.example.test.model.User;
+import com.example.test.model.WalletBalance;
+import com.example.test.repo.AccountRepo;
+import com.example.test.repo.UserRepo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+
+/**
+ * Creates a user with its wallet and account for Spring Boot tests. Emails and account
+ * numbers are made unique from {@code prefix}, so tests sharing a database do not clash.
+ */
+@Component
+@RequiredArgsConstructor
+public class TestAccounts {
+
+    private final UserRepo userRepo;
+    private final AccountRepo accountRepo;
+    private final ServiceCall serviceCall;
+
+    /** An account with an empty wallet. */
+    public String create(String prefix) {
+        return create(prefix, BigDecimal.ZERO);
+    }
+
+    /** An account whose wallet row starts at {@code openingBalance}, with no ledger entry for it. */
+    public String create(String prefix, BigDecimal openingBalance) {
+        User user = new User();
+        user.setEmail(prefix + "-" + System.nanoTime() + "@test.com");
+        user = userRepo.save(user);
+
+        WalletBalance walletBalance = new WalletBalance();
+        walletBalance.setAmount(openingBalance);
+
+        Account account = new Account();
+        account.setAccountNumber(prefix.toUpperCase() + "-" + System.nanoTime());
+        account.setUser(user);
+        account.setWalletBalance(walletBalance);
+        return accountRepo.save(account).getAccountNumber();
+    }
+
+    /** An account funded with {@code amount} through fundAccount, so the ledger agrees with it. */
+    public String createFunded(String prefix, long amount) {
+        String accountNumber = create(prefix);
+        if (amount > 0) {
+            serviceCall.fundAccount(new FundAccountDto(accountNumber, BigDecimal.valueOf(amount)));
+        }
+        return accountNumber;
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.test.service;
+
+import com.example.test.dto.DoTransDto;
+import com.example.test.exception.InsufficientBalanceException;
+import com.example.test.model.Account;
+import com.example.test.model.User;
+import com.example.test.model.WalletBalance;
+import com.example.test.repo.AccountRepo;
+import com.example.test.repo.LedgerEntryRepo;
+import com.example.test.repo.UserRepo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfer-stress",
+        "spring.jpa.show-sql=false",
+        "wallet.transfer.mode=ORDERED",
+        "wallet.transfer.lock-retry.max-attempts=10"
+})
+class TransferConcurrencyStressTest {
+
+    private static final int ACCOUNTS = 6;
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 150;
+    private static final BigDecimal OPENING_BALANCE = BigDecimal.valueOf(1000);
+
+    @Autowired
+    private ServiceCall serviceCall;
+
+    @Autowired
+    private UserRepo userRepo;
+
+    @Autowired
+    private AccountRepo accountRepo;
+
+    @Autowired
+    private LedgerEntryRepo ledgerEntryRepo;
+
+    private final List<String> accountNumbers = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < ACCOUNTS; i++) {
+            User user = new User();
+            user.setEmail("stress" + i + "-" + System.nanoTime() + "@test.com");
+            user = userRepo.save(user);
+
+            WalletBalance walletBalance = new WalletBalance();
+            walletBalance.setAmount(OPENING_BALANCE);
+
+            Account account = new Account();
+            account.setAccountNumber("STRESS" + i + "-" + System.nanoTime());
+            account.setUser(user);
+            account.setWalletBalance(walletBalance);
+            accountNumbers.add(accountRepo.save(account).getAccountNumber());
+        }
+    }
+
+    @Test
+    void concurrentCrossTransfers_ConserveTotalBalance() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger completed = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> unexpected = new ConcurrentLinkedQueue<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    int from = random.nextInt(ACCOUNTS);
+                    int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+                    DoTransDto transfer = new DoTransDto(accountNumbers.get(from), accountNumbers.get(to),
+                            BigDecimal.valueOf(random.nextInt(1, 50)));
+                    try {
+                        serviceCall.doIntraTransfer(transfer);
+                        completed.incrementAndGet();
+                    } catch (InsufficientBalanceException ignored) {
+                    } catch (Throwable ex) {
+                        unexpected.add(ex);
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(2, TimeUnit.MINUTES), "stress run did not finish");
+
+        assertTrue(unexpected.isEmpty(), () -> "unexpected failures: " + unexpected);
+        assertTrue(completed.get() > 0);
+
+        BigDecimal total = BigDecimal.ZERO;
+        for (String accountNumber : accountNumbers) {
+            BigDecimal balance = accountRepo.findByAccountNumber(accountNumber).orElseThrow()
+                    .getWalletBalance().getAmount();
+            assertTrue(balance.signum() >= 0, "negative balance on " + accountNumber);
+            total = total.add(balance);
+        }
+        assertEquals(0, OPENING_BALANCE.multiply(BigDecimal.valueOf(ACCOUNTS)).compareTo(total));
+
+        // Every committed transfer wrote a debit and a credit in its own transaction
+        long ledgerEntries = accountNumbers.stream()
+                .mapToLong(number -> ledgerEntryRepo.findByAccountNumberOrderByIdAsc(number).size())
+                .sum();
+        assertEquals(2L * completed.get(), ledgerEntries);
+    }
+}